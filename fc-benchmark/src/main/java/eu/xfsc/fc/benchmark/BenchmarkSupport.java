@@ -0,0 +1,94 @@
+package eu.xfsc.fc.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.stream.StreamManager;
+
+import com.apicatalog.jsonld.loader.DocumentLoader;
+import com.apicatalog.jsonld.loader.SchemeRouter;
+
+import eu.xfsc.fc.core.pojo.ContentAccessor;
+import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
+import eu.xfsc.fc.core.service.filestore.CacheFileStore;
+import eu.xfsc.fc.core.service.filestore.FileStore;
+import eu.xfsc.fc.core.service.verification.CachingHttpLoader;
+import eu.xfsc.fc.core.service.verification.ContextBundle;
+import eu.xfsc.fc.core.service.verification.LocatorCaching;
+
+/**
+ * Shared set-up for the benchmarks: classpath resources and the same caching document loaders
+ * the verification service uses, backed by an in-memory file store. Remote JSON-LD contexts are
+ * fetched once during warm-up and served from memory afterwards.
+ */
+public final class BenchmarkSupport {
+
+  public static final String PARTICIPANT_TYPE = "http://w3id.org/gaia-x/participant#Participant";
+  public static final String OFFERING_TYPE = "http://w3id.org/gaia-x/service#ServiceOffering";
+
+  public static final String PARTICIPANT_SD = "Claims-Extraction-Tests/participantSD.jsonld";
+  public static final String OFFERING_SD = "Query-Tests/serviceOfferingSD.jsonld";
+  public static final String DEFAULT_SHAPES = "defaultschema/shacl/mergedShapesGraph.ttl";
+  public static final String[] DEFAULT_ONTOLOGIES = {
+      "defaultschema/ontology/gax-core_generated.ttl",
+      "defaultschema/ontology/gax-trust-framework_generated.ttl"
+  };
+
+  private static StreamManager streamManager;
+
+  private BenchmarkSupport() {
+    // Utility class.
+  }
+
+  /**
+   * Routes com.apicatalog.jsonld and Jena document loading through the context bundle and an in-memory cache.
+   *
+   * @return StreamManager to be used for Jena parsing
+   */
+  public static synchronized StreamManager initLoaders() {
+    if (streamManager == null) {
+      FileStore contextCache = new CacheFileStore("benchmarkContextCache", 64);
+      ContextBundle contextBundle = new ContextBundle(ContextBundle.DEFAULT_LOCATION);
+      DocumentLoader cachingLoader = new CachingHttpLoader(contextCache, contextBundle);
+      SchemeRouter loader = (SchemeRouter) SchemeRouter.defaultInstance();
+      loader.set("http", cachingLoader);
+      loader.set("https", cachingLoader);
+      StreamManager clone = StreamManager.get().clone();
+      clone.clearLocators();
+      clone.addLocator(new LocatorCaching(contextCache, contextBundle));
+      streamManager = clone;
+    }
+    return streamManager;
+  }
+
+  public static ContentAccessor getAccessor(String path) throws IOException {
+    try (InputStream is = BenchmarkSupport.class.getClassLoader().getResourceAsStream(path)) {
+      if (is == null) {
+        throw new IOException("resource not found: " + path);
+      }
+      return new ContentAccessorDirect(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Merges Turtle resources into one document, the same way composite schemas are built.
+   */
+  public static ContentAccessor getMergedAccessor(String... paths) throws IOException {
+    Model union = ModelFactory.createDefaultModel();
+    for (String path: paths) {
+      try (InputStream is = getAccessor(path).getContentAsStream()) {
+        RDFDataMgr.read(union, is, Lang.TURTLE);
+      }
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    RDFDataMgr.write(out, union, Lang.TURTLE);
+    return new ContentAccessorDirect(out.toString(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,58 @@
+package eu.xfsc.fc.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.xfsc.fc.core.pojo.ContentAccessor;
+import eu.xfsc.fc.core.pojo.SdClaim;
+import eu.xfsc.fc.core.service.verification.ClaimExtractor;
+import eu.xfsc.fc.core.service.verification.DanubeTechClaimExtractor;
+import eu.xfsc.fc.core.service.verification.TitaniumClaimExtractor;
+
+/**
+ * Compares both claim extractors on the same self-descriptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaimExtractionBenchmark {
+
+  @Param({BenchmarkSupport.PARTICIPANT_SD, BenchmarkSupport.OFFERING_SD})
+  public String sdFile;
+
+  private ContentAccessor sd;
+  private final ClaimExtractor titanium = new TitaniumClaimExtractor();
+  private final ClaimExtractor danubeTech = new DanubeTechClaimExtractor();
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkSupport.initLoaders();
+    sd = BenchmarkSupport.getAccessor(sdFile);
+  }
+
+  @Benchmark
+  public List<SdClaim> titanium() throws Exception {
+    return titanium.extractClaims(sd);
+  }
+
+  @Benchmark
+  public List<SdClaim> danubeTech() throws Exception {
+    return danubeTech.extractClaims(sd);
+  }
+
+}
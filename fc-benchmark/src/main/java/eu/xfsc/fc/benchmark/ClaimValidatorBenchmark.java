@@ -0,0 +1,74 @@
+package eu.xfsc.fc.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.system.stream.StreamManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.danubetech.verifiablecredentials.VerifiablePresentation;
+
+import eu.xfsc.fc.core.pojo.ContentAccessor;
+import eu.xfsc.fc.core.pojo.SdClaim;
+import eu.xfsc.fc.core.service.verification.TitaniumClaimExtractor;
+import eu.xfsc.fc.core.util.ClaimValidator;
+
+/**
+ * Claim syntax validation, SHACL validation against the default shapes and
+ * subject type detection against the default ontologies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaimValidatorBenchmark {
+
+  @Param({BenchmarkSupport.PARTICIPANT_SD, BenchmarkSupport.OFFERING_SD})
+  public String sdFile;
+
+  private StreamManager streamManager;
+  private List<SdClaim> claims;
+  private ContentAccessor shapes;
+  private ContentAccessor ontology;
+  private String credential;
+
+  @Setup
+  public void setup() throws Exception {
+    streamManager = BenchmarkSupport.initLoaders();
+    ContentAccessor sd = BenchmarkSupport.getAccessor(sdFile);
+    claims = new TitaniumClaimExtractor().extractClaims(sd);
+    shapes = BenchmarkSupport.getAccessor(BenchmarkSupport.DEFAULT_SHAPES);
+    ontology = BenchmarkSupport.getMergedAccessor(BenchmarkSupport.DEFAULT_ONTOLOGIES);
+    credential = VerifiablePresentation.fromJson(sd.getContentAsString()).getVerifiableCredential().toJson();
+  }
+
+  @Benchmark
+  public Model validateClaims() {
+    return new ClaimValidator().validateClaims(claims);
+  }
+
+  @Benchmark
+  public String validateClaimsBySchema() {
+    return ClaimValidator.validateClaimsBySchema(claims, shapes, streamManager);
+  }
+
+  @Benchmark
+  public Boolean getSubjectType() {
+    return ClaimValidator.getSubjectType(ontology, streamManager, credential, BenchmarkSupport.PARTICIPANT_TYPE,
+        BenchmarkSupport.OFFERING_TYPE);
+  }
+
+}
@@ -0,0 +1,62 @@
+package eu.xfsc.fc.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.xfsc.fc.core.pojo.SdClaim;
+import eu.xfsc.fc.core.service.verification.TitaniumClaimExtractor;
+import eu.xfsc.fc.core.util.ClaimValidator;
+import eu.xfsc.fc.core.util.ExtendClaims;
+
+/**
+ * Annotation of validated claims with the claimsGraphUri property before graph import.
+ * addPropertyGraphUri changes the model it gets, so every invocation works on a fresh
+ * copy; the {@link #copyOnly()} baseline shows the share of the copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtendClaimsBenchmark {
+
+  @Param({BenchmarkSupport.PARTICIPANT_SD, BenchmarkSupport.OFFERING_SD})
+  public String sdFile;
+
+  private Model claims;
+  private String subject;
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkSupport.initLoaders();
+    List<SdClaim> sdClaims = new TitaniumClaimExtractor().extractClaims(BenchmarkSupport.getAccessor(sdFile));
+    claims = new ClaimValidator().validateClaims(sdClaims);
+    subject = sdClaims.get(0).getSubjectValue();
+  }
+
+  @Benchmark
+  public Model copyOnly() {
+    return ModelFactory.createDefaultModel().add(claims);
+  }
+
+  @Benchmark
+  public String addPropertyGraphUri() {
+    return ExtendClaims.addPropertyGraphUri(ModelFactory.createDefaultModel().add(claims), subject);
+  }
+
+}
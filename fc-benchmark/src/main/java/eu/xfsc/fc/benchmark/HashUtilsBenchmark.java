@@ -0,0 +1,45 @@
+package eu.xfsc.fc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.xfsc.fc.core.util.HashUtils;
+
+/**
+ * SHA-256 hashing of self-description and schema content of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashUtilsBenchmark {
+
+  @Param({BenchmarkSupport.PARTICIPANT_SD, BenchmarkSupport.OFFERING_SD, BenchmarkSupport.DEFAULT_SHAPES})
+  public String file;
+
+  private String content;
+
+  @Setup
+  public void setup() throws Exception {
+    content = BenchmarkSupport.getAccessor(file).getContentAsString();
+  }
+
+  @Benchmark
+  public String calculateSha256AsHex() {
+    return HashUtils.calculateSha256AsHex(content);
+  }
+
+}
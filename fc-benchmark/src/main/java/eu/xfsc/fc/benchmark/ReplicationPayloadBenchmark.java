@@ -0,0 +1,110 @@
+package eu.xfsc.fc.benchmark;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.pojo.SdClaim;
+import eu.xfsc.fc.core.pojo.Validator;
+import eu.xfsc.fc.core.pojo.VerificationResult;
+import eu.xfsc.fc.core.pojo.VerificationResultOffering;
+import eu.xfsc.fc.core.service.pubsub.SDPayloadCodec;
+import eu.xfsc.fc.core.service.pubsub.SDReplicationPayload;
+
+/**
+ * Encoding and decoding of replicated SD events: the legacy JSON message, which carries no claims, vs. the binary
+ * payload with extracted claims, plain and deflated. The encode benchmark reports the payload size as its
+ * payloadBytes counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplicationPayloadBenchmark {
+
+  @Param({"json", "cbor", "deflated"})
+  public String format;
+
+  private final ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules();
+  private SDPayloadCodec codec;
+  private String content;
+  private VerificationResult verificationResult;
+  private byte[] data;
+
+  @Setup
+  public void setup() throws Exception {
+    content = BenchmarkSupport.getAccessor(BenchmarkSupport.PARTICIPANT_SD).getContentAsString();
+    verificationResult = createVerificationResult();
+    codec = new SDPayloadCodec("deflated".equals(format) ? 0 : -1);
+    data = doEncode();
+  }
+
+  @Benchmark
+  public byte[] encode(PayloadSize size) throws Exception {
+    byte[] bytes = doEncode();
+    size.payloadBytes = bytes.length;
+    return bytes;
+  }
+
+  @Benchmark
+  public Object decode() throws Exception {
+    if ("json".equals(format)) {
+      Map<?, ?> message = jsonMapper.readValue(data, Map.class);
+      return jsonMapper.readValue((String) message.get("verificationResult"), JsonNode.class);
+    }
+    return codec.decode(data).toVerificationResult();
+  }
+
+  private byte[] doEncode() throws Exception {
+    if ("json".equals(format)) {
+      return jsonMapper.writeValueAsBytes(Map.of("content", content,
+          "verificationResult", jsonMapper.writeValueAsString(verificationResult)));
+    }
+    return codec.encode(new SDReplicationPayload(content, verificationResult));
+  }
+
+  private static VerificationResult createVerificationResult() {
+    String subject = "<https://delta-dao.com/.well-known/serviceMVGPortal.json>";
+    List<SdClaim> claims = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      claims.add(new SdClaim(subject, "<https://www.w3id.org/gaia-x/service#name" + i + ">", "\"EuProGigant Portal " + i + "\""));
+    }
+    List<Validator> validators = List.of(new Validator("did:web:compliance.lab.gaia-x.eu", "PK",
+        Instant.now().plus(1, ChronoUnit.DAYS)));
+    return new VerificationResultOffering(Instant.now(), SelfDescriptionStatus.ACTIVE.getValue(), "http://gaiax.de",
+        Instant.now(), subject, claims, validators);
+  }
+
+  /**
+   * Size of the encoded payload, reported as secondary result next to the encode score.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PayloadSize {
+
+    public long payloadBytes;
+  }
+
+}
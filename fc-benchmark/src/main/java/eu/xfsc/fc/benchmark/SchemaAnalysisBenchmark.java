@@ -0,0 +1,56 @@
+package eu.xfsc.fc.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.xfsc.fc.core.pojo.ContentAccessor;
+import eu.xfsc.fc.core.service.schemastore.SchemaAnalysisResult;
+import eu.xfsc.fc.core.service.schemastore.SchemaStoreImpl;
+
+/**
+ * Schema analysis for the bundled default schemas and for schemas in other serializations,
+ * analyzeSchema tries JSON-LD, RDF/XML and Turtle in that order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaAnalysisBenchmark {
+
+  @Param({
+    BenchmarkSupport.DEFAULT_SHAPES,
+    "defaultschema/ontology/gax-core_generated.ttl",
+    "defaultschema/ontology/gax-trust-framework_generated.ttl",
+    "Schema-Tests/validShacl.jsonld",
+    "Schema-Tests/validShacl.rdfxml"
+  })
+  public String schemaFile;
+
+  private ContentAccessor schema;
+  private final SchemaStoreImpl schemaStore = new SchemaStoreImpl();
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkSupport.initLoaders();
+    schema = BenchmarkSupport.getAccessor(schemaFile);
+  }
+
+  @Benchmark
+  public SchemaAnalysisResult analyzeSchema() {
+    return schemaStore.analyzeSchema(schema);
+  }
+
+}
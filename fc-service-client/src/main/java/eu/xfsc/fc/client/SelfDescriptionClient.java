@@ -9,6 +9,7 @@ import java.util.Map;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import eu.xfsc.fc.api.generated.model.SelfDescription;
+import eu.xfsc.fc.api.generated.model.SelfDescriptionExport;
 import eu.xfsc.fc.api.generated.model.SelfDescriptionResult;
 
 public class SelfDescriptionClient extends ServiceClient {
@@ -74,6 +75,16 @@ public class SelfDescriptionClient extends ServiceClient {
         return getSelfDescriptions(null, null, null, null, null, null, null, ids, null, true, true, null, null);
     }
     
+    public SelfDescriptionExport exportSelfDescriptions(String afterHash, Integer limit) {
+    	StringBuilder query = new StringBuilder(baseUrl);
+    	query.append("/self-descriptions/export?");
+    	Map<String, Object> params = new HashMap<>();
+    	buildQuery(query, params, "afterHash", afterHash);
+    	buildQuery(query, params, "limit", limit);
+    	query.deleteCharAt(query.length() - 1);
+    	return doGet(query.toString(), params, SelfDescriptionExport.class);
+    }
+    
     private String buildTimeRange(Instant start, Instant end) {
     	if (start == null) {
     		if (end == null) {
@@ -6,13 +6,19 @@ import javax.sql.DataSource;
 
 import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.zaxxer.hikari.HikariDataSource;
+
+import eu.xfsc.fc.core.dao.impl.ReadReplicaRouter;
+
 @Configuration 
 @EnableTransactionManagement
 public class DatabaseConfig {
@@ -47,6 +53,36 @@ public class DatabaseConfig {
     return transactionManager;
   }
   
+  /**
+   * Create the router of read-only operations. Reads are routed to the replica database only when its url is set.
+   *
+   * @return the read replica router.
+   */
+  @Bean
+  public ReadReplicaRouter readReplicaRouter(JdbcTemplate jdbcTemplate,
+      @Value("${federated-catalogue.datasource.replica.url:}") String url,
+      @Value("${federated-catalogue.datasource.replica.username:}") String username,
+      @Value("${federated-catalogue.datasource.replica.password:}") String password,
+      @Value("${federated-catalogue.datasource.replica.maximum-pool-size:64}") int maximumPoolSize,
+      @Value("${federated-catalogue.datasource.replica.connection-timeout:2000}") long connectionTimeout,
+      @Value("${federated-catalogue.datasource.replica.max-lag:1000}") long maxLag,
+      @Value("${federated-catalogue.datasource.replica.lag-check-interval:5000}") long lagCheckInterval) {
+    HikariDataSource replica = null;
+    if (!url.isBlank()) {
+      replica = new HikariDataSource();
+      replica.setPoolName("replica");
+      replica.setJdbcUrl(url);
+      replica.setUsername(username);
+      replica.setPassword(password);
+      replica.setMaximumPoolSize(maximumPoolSize);
+      replica.setConnectionTimeout(connectionTimeout);
+      // the replica must be usable when it is not there at start-up
+      replica.setInitializationFailTimeout(-1);
+      replica.setReadOnly(true);
+    }
+    return new ReadReplicaRouter(jdbcTemplate, replica, maxLag, lagCheckInterval);
+  }
+
   private Properties hibernateProperties() {
     Properties hibernateProperties = new Properties();
     hibernateProperties.setProperty("hibernate.hbm2ddl.auto", "validate");
@@ -23,6 +23,9 @@ public class FileStoreConfig {
   @Value("${federated-catalogue.file-store.context-cache.location}")
   private String contextCacheFilesLocation;
 
+  @Value("${federated-catalogue.file-store.history.location:historyFiles}")
+  private String historyFilesLocation;
+
   @Value("${federated-catalogue.file-store.cached}")
   private boolean cached;
   
@@ -34,7 +37,7 @@ public class FileStoreConfig {
   @Bean
   public FileStore schemaFileStore() {
 	if (cached) {  
-      return new CacheFileStore(cacheSize);
+      return new CacheFileStore("schemaFileStore", cacheSize);
 	}
      
 	if (scope.equals("runtime")) {
@@ -47,7 +50,7 @@ public class FileStoreConfig {
   @Bean
   public FileStore contextCacheFileStore() {
 	if (cached) {
-	  return new CacheFileStore(cacheSize);
+	  return new CacheFileStore("contextCacheFileStore", cacheSize);
 	}
 	
     if (scope.equals("runtime")) {
@@ -56,4 +59,18 @@ public class FileStoreConfig {
     String TEMPORARY_FOLDER_PATH_CC = TEMPORARY_FOLDER_FILE.getAbsolutePath() + File.separator + "testContextCache";
     return new FileStoreImpl(TEMPORARY_FOLDER_PATH_CC);
   }
+
+  /**
+   * Content of historical self-descriptions offloaded from the database. It is never cached in memory,
+   * the file store is the only copy of the content, so files are on disk before the database copy is removed.
+   * The location must be storage shared by all catalogue instances, as any of them reads offloaded content.
+   */
+  @Bean
+  public FileStore historyFileStore() {
+    if (scope.equals("runtime")) {
+      return new FileStoreImpl(historyFilesLocation, true);
+    }
+    String TEMPORARY_FOLDER_PATH_HISTORY = TEMPORARY_FOLDER_FILE.getAbsolutePath() + File.separator + "testHistoryFiles";
+    return new FileStoreImpl(TEMPORARY_FOLDER_PATH_HISTORY, true);
+  }
 }
@@ -74,4 +74,26 @@ public class NatsConfig {
             System.exit(-1);
         }
     }	
+
+    public static StreamInfo createStreamIfAbsent(JetStreamManagement jsm, String stream, String subject) {
+        try {
+            return jsm.getStreamInfo(stream);
+        } catch (Exception ex) {
+            log.debug("stream; {} not found: {}", stream, ex.getMessage());
+        }
+
+        try {
+        	StreamConfiguration sc = StreamConfiguration.builder()
+        	    .name(stream)
+        	    .subjects(subject)
+        	    .build();
+            StreamInfo si = jsm.addStream(sc);
+            log.info("stream; created: {}", si.getConfiguration().getName());
+            return si;
+        } catch (Exception ex) {
+        	log.error("error creating stream", ex);
+            System.exit(-1);
+        }
+        return null;
+    }	
 }
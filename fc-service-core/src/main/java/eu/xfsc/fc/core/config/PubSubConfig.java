@@ -1,12 +1,14 @@
 package eu.xfsc.fc.core.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import eu.xfsc.fc.core.service.pubsub.OutboxSDPublisherImpl;
 import eu.xfsc.fc.core.service.pubsub.SDPublisher;
 import eu.xfsc.fc.core.service.pubsub.SDSubscriber;
-import eu.xfsc.fc.core.service.pubsub.nats.NatsSDPublisherImpl;
+import eu.xfsc.fc.core.service.pubsub.nats.NatsSDOutboxRelay;
 import eu.xfsc.fc.core.service.pubsub.nats.NatsSDSubscriberImpl;
 import lombok.extern.slf4j.Slf4j;
 
@@ -27,13 +29,19 @@ public class PubSubConfig {
 			//	pub = new BasfSDPublisherImpl();
 			//	break;
 			case "nats": 
-				pub = new NatsSDPublisherImpl();
+				pub = new OutboxSDPublisherImpl();
 				break;
     	}
     	log.debug("getSDPublisher; returning {} for impl {}", pub, pubImpl);
     	return pub;
     }
 
+    @Bean
+    @ConditionalOnProperty(value = "publisher.impl", havingValue = "nats")
+    public NatsSDOutboxRelay getSDOutboxRelay() {
+    	return new NatsSDOutboxRelay();
+    }
+
     @Bean
     public SDSubscriber getSDSubscriber() {
     	SDSubscriber sub = null;
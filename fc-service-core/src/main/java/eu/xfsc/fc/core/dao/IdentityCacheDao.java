@@ -0,0 +1,70 @@
+package eu.xfsc.fc.core.dao;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import eu.xfsc.fc.api.generated.model.UserProfile;
+import eu.xfsc.fc.core.pojo.PaginatedResults;
+import eu.xfsc.fc.core.pojo.ParticipantMetaData;
+
+/**
+ * Local read-model of the participants, users and their roles kept in Keycloak, so that they can be listed
+ * without calls to the Keycloak admin API. Every row keeps the time it was read from Keycloak, older data does
+ * not replace newer, and removed participants and users are not stored again with data read before removal.
+ */
+public interface IdentityCacheDao {
+
+  /**
+   * Adds or replaces the participant, unless it was stored or removed after the given time.
+   *
+   * @param participant the participant, without self-description
+   * @param syncTime time the participant was read from Keycloak
+   */
+  void storeParticipant(ParticipantMetaData participant, Instant syncTime);
+
+  /**
+   * Removes the participant and all its users.
+   *
+   * @param participantId the participant identifier
+   * @param removeTime time the participant was removed from Keycloak
+   */
+  void removeParticipant(String participantId, Instant removeTime);
+
+  Optional<ParticipantMetaData> selectParticipant(String participantId);
+
+  PaginatedResults<ParticipantMetaData> searchParticipants(int offset, int limit);
+
+  /**
+   * Adds or replaces the user with its roles, unless it was stored or removed after the given time.
+   *
+   * @param user the user profile
+   * @param syncTime time the user was read from Keycloak
+   */
+  void storeUser(UserProfile user, Instant syncTime);
+
+  /**
+   * Removes the user.
+   *
+   * @param userId the user identifier
+   * @param removeTime time the user was removed from Keycloak
+   */
+  void removeUser(String userId, Instant removeTime);
+
+  /**
+   * @param participantId the participant of the users, all users if null
+   * @param offset how many users to skip
+   * @param limit the maximum number of users to return
+   * @return one page of users ordered by identifier, with the total number of matching users
+   */
+  PaginatedResults<UserProfile> searchUsers(String participantId, int offset, int limit);
+
+  /**
+   * Removes participants and users not stored since the given time, they are not in Keycloak anymore. Removals
+   * before that time are forgotten, the synchronization does not see the removed participants and users anymore.
+   *
+   * @param syncTime start time of the last full synchronization
+   * @return number of removed participants and users
+   */
+  int removeStale(Instant syncTime);
+
+}
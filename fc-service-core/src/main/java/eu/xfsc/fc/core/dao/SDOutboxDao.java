@@ -0,0 +1,15 @@
+package eu.xfsc.fc.core.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import eu.xfsc.fc.core.service.pubsub.SDEventRecord;
+
+public interface SDOutboxDao {
+
+	void insert(Collection<SDEventRecord> events);
+	List<SDEventRecord> claimHeads(int limit, long lease);
+	int delete(Collection<Long> ids);
+	int postpone(Collection<Long> ids, long retryDelay);
+	
+}
@@ -1,6 +1,7 @@
 package eu.xfsc.fc.core.dao;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import eu.xfsc.fc.core.service.schemastore.SchemaRecord;
@@ -11,8 +12,14 @@ public interface SchemaDao {
 	SchemaRecord select(String schemaId);
 	Map<Integer, Collection<String>> selectSchemas();
 	Map<Integer, Collection<String>> selectSchemasByTerm(String term);
+	List<SchemaRecord> selectGraphs(int type);
+	List<SchemaRecord> selectWithoutGraph();
+	Integer selectType(String schemaId);
+	Map<Integer, Long> selectVersions();
+	long incrementVersion(int type);
 	boolean insert(SchemaRecord schema);
-	int update(String id, String content, Collection<String> terms);
+	int update(String id, String content, String format, byte[] graph, Collection<String> terms);
+	int updateGraph(String schemaId, String format, byte[] graph);
 	Integer delete(String schemaId);
 	int deleteAll();
 
@@ -13,10 +13,12 @@ public interface SelfDescriptionDao {
 	SdMetaRecord select(String hash);
     PaginatedResults<SdMetaRecord> selectByFilter(SdFilter filter, boolean withMeta, boolean withContent);
 	List<String> selectHashes(String startHash, int count, int chunks, int chunkId);
-	List<String> selectExpiredHashes();
+	List<SubjectHashRecord> updateExpired(int status, int limit);
 	SubjectHashRecord insert(SdMetaRecord sd);
 	SubjectStatusRecord update(String hash, int status);
 	SubjectStatusRecord delete(String hash);
 	int deleteAll();
+	List<SdMetaRecord> selectHistoryToOffload(int minSize, int limit);
+	int clearHistoryContent(String hash);
 
 }
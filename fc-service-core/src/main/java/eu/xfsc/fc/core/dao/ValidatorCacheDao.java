@@ -1,5 +1,8 @@
 package eu.xfsc.fc.core.dao;
 
+import java.util.Collection;
+import java.util.Map;
+
 import eu.xfsc.fc.core.pojo.Validator;
 
 /**
@@ -23,6 +26,14 @@ public interface ValidatorCacheDao {
    */
   Validator getFromCache(String didURI);
 
+  /**
+   * Search for the validators with the given DIDs.
+   *
+   * @param didURIs The DIDs of the requested validators.
+   * @return the found validators by their DIDs.
+   */
+  Map<String, Validator> getFromCache(Collection<String> didURIs);
+
   /**
    * Remove the validator with the given DID from the cache.
    *
@@ -0,0 +1,178 @@
+package eu.xfsc.fc.core.dao.impl;
+
+import static java.sql.Types.*;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import eu.xfsc.fc.api.generated.model.UserProfile;
+import eu.xfsc.fc.core.dao.IdentityCacheDao;
+import eu.xfsc.fc.core.pojo.PaginatedResults;
+import eu.xfsc.fc.core.pojo.ParticipantMetaData;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Postgres read-model of Keycloak participants and users. Pages are read with one indexed query, the total count
+ * is computed by the same query. Removals leave a tombstone, so that a synchronization which read Keycloak before
+ * the removal can not store the participant or user again.
+ */
+@Slf4j
+@Component
+public class IdentityCacheDaoImpl implements IdentityCacheDao {
+
+	private static final String PARTICIPANT = "participant";
+	private static final String USER = "user";
+	private static final String TOMBSTONE = """
+		insert into identitytombstone(kind, entityid, removetime) values(?, ?, ?)
+		on conflict (kind, entityid) do update set removetime = greatest(identitytombstone.removetime, excluded.removetime)""";
+	private static final String TOMBSTONE_USERS = """
+		insert into identitytombstone(kind, entityid, removetime) select ?, userid, cast(? as timestamptz) from usercache where participantid = ?
+		on conflict (kind, entityid) do update set removetime = greatest(identitytombstone.removetime, excluded.removetime)""";
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Override
+	public void storeParticipant(ParticipantMetaData participant, Instant syncTime) {
+		String sql = """
+			insert into participantcache(participantid, name, publickey, sdhash, synctime)
+			select ?, ?, ?, ?, cast(? as timestamptz) where not exists (select 1 from identitytombstone
+			  where kind = ? and entityid = ? and removetime >= ?)
+			on conflict (participantid) do update set name = excluded.name, publickey = excluded.publickey,
+			sdhash = excluded.sdhash, synctime = excluded.synctime where participantcache.synctime <= excluded.synctime""";
+		Timestamp ts = Timestamp.from(syncTime);
+		jdbc.update(sql, participant.getId(), participant.getName(), participant.getPublicKey(), participant.getSdHash(), ts,
+				PARTICIPANT, participant.getId(), ts);
+	}
+
+	@Override
+	public void removeParticipant(String participantId, Instant removeTime) {
+		Timestamp ts = Timestamp.from(removeTime);
+		jdbc.update(TOMBSTONE_USERS, USER, ts, participantId);
+		storeTombstone(PARTICIPANT, participantId, ts);
+		int users = jdbc.update("delete from usercache where participantid = ?", participantId);
+		int cnt = jdbc.update("delete from participantcache where participantid = ?", participantId);
+		log.debug("removeParticipant; removed {} participants and {} users", cnt, users);
+	}
+
+	@Override
+	public Optional<ParticipantMetaData> selectParticipant(String participantId) {
+		String sql = "select participantid, name, publickey, sdhash from participantcache where participantid = ?";
+		List<ParticipantMetaData> parts = jdbc.query(sql, new Object[] {participantId}, new int[] {VARCHAR}, new ParticipantMapper(null));
+		return parts.stream().findFirst();
+	}
+
+	@Override
+	public PaginatedResults<ParticipantMetaData> searchParticipants(int offset, int limit) {
+		String sql = "select participantid, name, publickey, sdhash, count(*) over() from participantcache order by participantid offset ? limit ?";
+		long[] total = new long[1];
+		List<ParticipantMetaData> parts = jdbc.query(sql, new ParticipantMapper(total), offset, limit);
+		if (parts.isEmpty() && offset > 0) {
+			total[0] = jdbc.queryForObject("select count(*) from participantcache", Long.class);
+		}
+		return new PaginatedResults<>(total[0], parts);
+	}
+
+	@Override
+	public void storeUser(UserProfile user, Instant syncTime) {
+		String sql = """
+			insert into usercache(userid, participantid, firstname, lastname, email, roles, synctime)
+			select ?, ?, ?, ?, ?, cast(? as varchar[]), cast(? as timestamptz) where not exists (select 1 from identitytombstone
+			  where kind = ? and entityid = ? and removetime >= ?)
+			on conflict (userid) do update set participantid = excluded.participantid, firstname = excluded.firstname,
+			lastname = excluded.lastname, email = excluded.email, roles = excluded.roles, synctime = excluded.synctime
+			where usercache.synctime <= excluded.synctime""";
+		String[] roles = user.getRoleIds() == null ? new String[0] : user.getRoleIds().toArray(new String[0]);
+		Timestamp ts = Timestamp.from(syncTime);
+		jdbc.update(sql, user.getId(), user.getParticipantId(), user.getFirstName(), user.getLastName(), user.getEmail(), roles,
+				ts, USER, user.getId(), ts);
+	}
+
+	@Override
+	public void removeUser(String userId, Instant removeTime) {
+		storeTombstone(USER, userId, Timestamp.from(removeTime));
+		jdbc.update("delete from usercache where userid = ?", userId);
+	}
+
+	private void storeTombstone(String kind, String entityId, Timestamp removeTime) {
+		jdbc.update(TOMBSTONE, kind, entityId, removeTime);
+	}
+
+	@Override
+	public PaginatedResults<UserProfile> searchUsers(String participantId, int offset, int limit) {
+		String columns = "select userid, participantid, firstname, lastname, email, roles, count(*) over() from usercache";
+		long[] total = new long[1];
+		List<UserProfile> users;
+		if (participantId == null) {
+			users = jdbc.query(columns + " order by userid offset ? limit ?", new UserMapper(total), offset, limit);
+		} else {
+			users = jdbc.query(columns + " where participantid = ? order by userid offset ? limit ?", new UserMapper(total),
+					participantId, offset, limit);
+		}
+		if (users.isEmpty() && offset > 0) {
+			total[0] = participantId == null ? jdbc.queryForObject("select count(*) from usercache", Long.class) :
+				jdbc.queryForObject("select count(*) from usercache where participantid = ?", Long.class, participantId);
+		}
+		return new PaginatedResults<>(total[0], users);
+	}
+
+	@Override
+	public int removeStale(Instant syncTime) {
+		Timestamp ts = Timestamp.from(syncTime);
+		int users = jdbc.update("delete from usercache where synctime < ?", ts);
+		int parts = jdbc.update("delete from participantcache where synctime < ?", ts);
+		jdbc.update("delete from identitytombstone where removetime < ?", ts);
+		log.debug("removeStale; removed {} participants and {} users", parts, users);
+		return parts + users;
+	}
+
+	private static class ParticipantMapper implements RowMapper<ParticipantMetaData> {
+
+		private final long[] total;
+
+		ParticipantMapper(long[] total) {
+			this.total = total;
+		}
+
+		@Override
+		public ParticipantMetaData mapRow(ResultSet rs, int rowNum) throws SQLException {
+			if (total != null) {
+				total[0] = rs.getLong(5);
+			}
+			return new ParticipantMetaData(rs.getString(1), rs.getString(2), rs.getString(3), null, rs.getString(4));
+		}
+	}
+
+	private static class UserMapper implements RowMapper<UserProfile> {
+
+		private final long[] total;
+
+		UserMapper(long[] total) {
+			this.total = total;
+		}
+
+		@Override
+		public UserProfile mapRow(ResultSet rs, int rowNum) throws SQLException {
+			total[0] = rs.getLong(7);
+			Array arr = rs.getArray(6);
+			List<String> roles = arr == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList((String[]) arr.getArray()));
+			String firstName = rs.getString(3);
+			String lastName = rs.getString(4);
+			return new UserProfile(rs.getString(2), firstName, lastName, rs.getString(5), roles, rs.getString(1),
+					firstName + " " + lastName);
+		}
+	}
+
+}
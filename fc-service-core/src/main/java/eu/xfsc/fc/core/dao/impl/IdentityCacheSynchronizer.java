@@ -0,0 +1,123 @@
+package eu.xfsc.fc.core.dao.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.ClientsResource;
+import org.keycloak.admin.client.resource.GroupsResource;
+import org.keycloak.admin.client.resource.RolesResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.xfsc.fc.core.dao.IdentityCacheDao;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Synchronizes the identity read-model with Keycloak. Changes made through the catalogue are written to the
+ * read-model at once, the synchronization picks up changes made in Keycloak directly. Role mappings are read per
+ * client role, so the number of admin calls depends on the number of pages, not on the number of users. Lists
+ * are served from the read-model once this instance synchronized it completely, before they are read from
+ * Keycloak.
+ */
+@Slf4j
+@Component
+public class IdentityCacheSynchronizer {
+
+  @Value("${keycloak.realm}")
+  private String realm;
+  @Value("${keycloak.resource}")
+  private String resourceId;
+  @Value("${federated-catalogue.keycloak.read-model.enabled:false}")
+  private boolean readModel;
+  @Value("${federated-catalogue.keycloak.read-model.page-size:500}")
+  private int pageSize;
+  @Autowired
+  private Keycloak keycloak;
+  @Autowired
+  private IdentityCacheDao identityCache;
+
+  private volatile boolean ready;
+
+  /**
+   * @return true if the read-model is enabled and was synchronized completely at least once
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Reads all participants, users and client role mappings from Keycloak, stores them in the read-model and
+   * removes the ones not in Keycloak anymore.
+   *
+   * @return number of synchronized participants and users, -1 if the read-model is not enabled
+   */
+  public int synchronize() {
+    if (!readModel) {
+      return -1;
+    }
+    log.debug("synchronize.enter");
+    Instant syncTime = Instant.now();
+    int count = 0;
+
+    GroupsResource groups = keycloak.realm(realm).groups();
+    List<GroupRepresentation> groupPage;
+    int first = 0;
+    do {
+      groupPage = groups.groups(null, first, pageSize, false);
+      for (GroupRepresentation group: groupPage) {
+        identityCache.storeParticipant(ParticipantDaoImpl.toParticipantExt(group), syncTime);
+      }
+      first += groupPage.size();
+    } while (groupPage.size() == pageSize);
+    count += first;
+
+    Map<String, List<RoleRepresentation>> userRoles = getUserRoles();
+    UsersResource users = keycloak.realm(realm).users();
+    List<UserRepresentation> userPage;
+    first = 0;
+    do {
+      userPage = users.list(first, pageSize);
+      for (UserRepresentation user: userPage) {
+        identityCache.storeUser(UserDaoImpl.toUserProfile(user, userRoles.getOrDefault(user.getId(), List.of())), syncTime);
+      }
+      first += userPage.size();
+    } while (userPage.size() == pageSize);
+    count += first;
+
+    int removed = identityCache.removeStale(syncTime);
+    ready = true;
+    log.debug("synchronize.exit; synchronized {} participants and users, removed {}", count, removed);
+    return count;
+  }
+
+  private Map<String, List<RoleRepresentation>> getUserRoles() {
+    ClientsResource clients = keycloak.realm(realm).clients();
+    ClientRepresentation client = clients.findByClientId(resourceId).get(0);
+    RolesResource roles = clients.get(client.getId()).roles();
+    Map<String, List<RoleRepresentation>> userRoles = new HashMap<>();
+    for (RoleRepresentation role: roles.list()) {
+      Collection<UserRepresentation> members;
+      int first = 0;
+      do {
+        members = roles.get(role.getName()).getRoleUserMembers(first, pageSize);
+        for (UserRepresentation member: members) {
+          userRoles.computeIfAbsent(member.getId(), id -> new ArrayList<>()).add(role);
+        }
+        first += members.size();
+      } while (members.size() == pageSize);
+    }
+    return userRoles;
+  }
+
+}
@@ -5,11 +5,13 @@ import static eu.xfsc.fc.core.util.KeycloakUtils.getErrorMessage;
 
 import eu.xfsc.fc.api.generated.model.Participant;
 import eu.xfsc.fc.api.generated.model.UserProfile;
+import eu.xfsc.fc.core.dao.IdentityCacheDao;
 import eu.xfsc.fc.core.dao.ParticipantDao;
 import eu.xfsc.fc.core.exception.ConflictException;
 import eu.xfsc.fc.core.pojo.PaginatedResults;
 import eu.xfsc.fc.core.pojo.ParticipantMetaData;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -38,13 +40,20 @@ public class ParticipantDaoImpl implements ParticipantDao {
   private static final String ATR_NAME = "name";
   private static final String ATR_PUBLIC_KEY  = "publicKey";
   private static final String ATR_SD_HASH = "sdHash";
+  private static final int DEFAULT_LIMIT = 100;
 
   @Value("${keycloak.realm}")
   private String realm;
   @Value("${keycloak.resource}")
   private String resourceId;
+  @Value("${federated-catalogue.keycloak.read-model.enabled:false}")
+  private boolean readModel;
   @Autowired
   private Keycloak keycloak;
+  @Autowired
+  private IdentityCacheDao identityCache;
+  @Autowired
+  private IdentityCacheSynchronizer identitySynchronizer;
 
   /**
    * Create Participant.
@@ -63,6 +72,9 @@ public class ParticipantDaoImpl implements ParticipantDao {
       log.info("create.error; status {}:{}, {}", response.getStatus(), response.getStatusInfo(), message);
       throw new ConflictException(message);
     }
+    if (readModel) {
+      identityCache.storeParticipant(participant, Instant.now());
+    }
     return participant;
   }
 
@@ -91,6 +103,12 @@ public class ParticipantDaoImpl implements ParticipantDao {
    */
   @Override
   public Optional<PaginatedResults<UserProfile>> selectUsers(String participantId, Integer offset, Integer limit) {
+    if (identitySynchronizer.isReady()) {
+      if (identityCache.selectParticipant(participantId).isEmpty()) {
+        return Optional.empty();
+      }
+      return Optional.of(identityCache.searchUsers(participantId, toOffset(offset), toLimit(limit)));
+    }
 
     GroupsResource instance = keycloak.realm(realm).groups();
     List<GroupRepresentation> groups = instance.groups(participantId, 0, 1, false);
@@ -136,6 +154,9 @@ public class ParticipantDaoImpl implements ParticipantDao {
     } while (users.size() > 0);
 
     instance.group(groupRepo.getId()).remove();
+    if (readModel) {
+      identityCache.removeParticipant(participantId, Instant.now());
+    }
     return Optional.of(toParticipantExt(groupRepo));
   }
 
@@ -156,7 +177,11 @@ public class ParticipantDaoImpl implements ParticipantDao {
     GroupRepresentation groupRepo = groups.get(0);
     GroupRepresentation updated = toGroupRepo(participant);
     instance.group(groupRepo.getId()).update(updated);
-    return Optional.of(toParticipantExt(updated));
+    ParticipantMetaData result = toParticipantExt(updated);
+    if (readModel) {
+      identityCache.storeParticipant(result, Instant.now());
+    }
+    return Optional.of(result);
   }
 
   /**
@@ -168,11 +193,14 @@ public class ParticipantDaoImpl implements ParticipantDao {
    */
   @Override
   public PaginatedResults<ParticipantMetaData> search(Integer offset, Integer limit) {
+    if (identitySynchronizer.isReady()) {
+      return identityCache.searchParticipants(toOffset(offset), toLimit(limit));
+    }
     GroupsResource instance = keycloak.realm(realm).groups();
     List<GroupRepresentation> groups = instance.groups(null, offset, limit, false);
     Map<String, Long> counts = instance.count();
     long total = counts.get("count");
-    return new PaginatedResults<>(total, groups.stream().map(this::toParticipantExt).collect(Collectors.toList()));
+    return new PaginatedResults<>(total, groups.stream().map(ParticipantDaoImpl::toParticipantExt).collect(Collectors.toList()));
   }
 
   /**
@@ -203,9 +231,17 @@ public class ParticipantDaoImpl implements ParticipantDao {
         attributes.get(ATR_PUBLIC_KEY).get(0), attributes.get(ATR_SD_HASH).get(0));
   }
 
-  private ParticipantMetaData toParticipantExt(GroupRepresentation groupRepo) {
+  static ParticipantMetaData toParticipantExt(GroupRepresentation groupRepo) {
     Map<String, List<String>> attributes = groupRepo.getAttributes();
     return new ParticipantMetaData(groupRepo.getName(), attributes.get(ATR_NAME).get(0),
         attributes.get(ATR_PUBLIC_KEY).get(0), null, attributes.get(ATR_SD_HASH).get(0));
   }
+
+  static int toOffset(Integer offset) {
+    return offset == null ? 0 : offset;
+  }
+
+  static int toLimit(Integer limit) {
+    return limit == null ? DEFAULT_LIMIT : limit;
+  }
 }
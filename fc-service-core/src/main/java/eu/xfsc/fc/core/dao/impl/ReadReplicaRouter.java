@@ -0,0 +1,127 @@
+package eu.xfsc.fc.core.dao.impl;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Routes read-only DAO operations to a replica database when one is configured. Reads go to the primary database
+ * when no replica is configured, inside read-write transactions, when the replica is unavailable or lags behind
+ * more than maxLag, and for maxLag after the last write of this instance, so that the own writes are always read back.
+ * Store methods which only read run without transaction, a read-only transaction would hold a primary connection
+ * while the replica is read.
+ * <p>
+ * The last write is tracked per instance. Writes of other instances become visible on the replica with its
+ * replication lag, so reads after a write on another instance may be up to maxLag behind.
+ */
+@Slf4j
+public class ReadReplicaRouter implements AutoCloseable {
+
+  private static final String LAG_QUERY = """
+      select cast(case when pg_is_in_recovery() and pg_last_wal_receive_lsn() <> pg_last_wal_replay_lsn()
+        then coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) else 0 end as bigint)""";
+
+  private final JdbcTemplate primaryJdbc;
+  private final NamedParameterJdbcTemplate primaryNamedJdbc;
+  private final DataSource replicaDataSource;
+  private final JdbcTemplate replicaJdbc;
+  private final NamedParameterJdbcTemplate replicaNamedJdbc;
+  private final long maxLag;
+  private final long lagCheckInterval;
+
+  // time of the last write of this instance, not of the others sharing the primary
+  private volatile long lastWrite;
+  private volatile long lastLagCheck;
+  private volatile long replicaLag = Long.MAX_VALUE;
+
+  /**
+   * @param primaryJdbc template of the primary database
+   * @param replicaDataSource the replica database, reads are not routed if null
+   * @param maxLag maximum replication lag in ms the replica is used with
+   * @param lagCheckInterval ms between checks of the replication lag
+   */
+  public ReadReplicaRouter(JdbcTemplate primaryJdbc, DataSource replicaDataSource, long maxLag, long lagCheckInterval) {
+    this.primaryJdbc = primaryJdbc;
+    this.primaryNamedJdbc = new NamedParameterJdbcTemplate(primaryJdbc);
+    this.replicaDataSource = replicaDataSource;
+    if (replicaDataSource == null) {
+      this.replicaJdbc = null;
+      this.replicaNamedJdbc = null;
+    } else {
+      this.replicaJdbc = new JdbcTemplate(replicaDataSource);
+      this.replicaNamedJdbc = new NamedParameterJdbcTemplate(replicaJdbc);
+    }
+    this.maxLag = maxLag;
+    this.lagCheckInterval = lagCheckInterval;
+  }
+
+  public boolean isReplicaEnabled() {
+    return replicaDataSource != null;
+  }
+
+  /**
+   * @return template to run a read-only operation with
+   */
+  public JdbcTemplate readJdbc() {
+    return useReplica() ? replicaJdbc : primaryJdbc;
+  }
+
+  /**
+   * @return named parameter template to run a read-only operation with
+   */
+  public NamedParameterJdbcTemplate readNamedJdbc() {
+    return useReplica() ? replicaNamedJdbc : primaryNamedJdbc;
+  }
+
+  /**
+   * Marks a write to the primary database, reads go to the primary until the replica caught up with it.
+   */
+  public void written() {
+    lastWrite = System.currentTimeMillis();
+  }
+
+  boolean useReplica() {
+    if (replicaDataSource == null) {
+      return false;
+    }
+    if (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      // the transaction may have written already, the replica can not see it
+      return false;
+    }
+    long now = System.currentTimeMillis();
+    if (now - lastWrite < maxLag) {
+      return false;
+    }
+    if (now - lastLagCheck >= lagCheckInterval) {
+      lastLagCheck = now;
+      checkLag();
+    }
+    return replicaLag <= maxLag;
+  }
+
+  private void checkLag() {
+    try {
+      replicaLag = queryLag();
+      log.debug("checkLag; replica lag: {} ms", replicaLag);
+    } catch (RuntimeException ex) {
+      replicaLag = Long.MAX_VALUE;
+      log.warn("checkLag; replica not available, reading from primary: {}", ex.getMessage());
+    }
+  }
+
+  long queryLag() {
+    return replicaJdbc.queryForObject(LAG_QUERY, Long.class);
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (replicaDataSource instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+package eu.xfsc.fc.core.dao.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.dao.SDOutboxDao;
+import eu.xfsc.fc.core.service.pubsub.SDEventRecord;
+import eu.xfsc.fc.core.service.pubsub.SDPublisher.SDEvent;
+
+@Component
+public class SDOutboxDaoImpl implements SDOutboxDao {
+	
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	@Override
+	public void insert(Collection<SDEventRecord> events) {
+		String sql = "insert into sdoutbox(sdhash, event, status, payload) values (:sdHash, :event, :status, :payload)";
+		MapSqlParameterSource[] batch = events.stream().map(e -> {
+			MapSqlParameterSource msps = new MapSqlParameterSource();
+		    msps.addValue("sdHash", e.sdHash());
+		    msps.addValue("event", e.event().name());
+		    msps.addValue("status", e.status() == null ? null : e.status().name());
+		    msps.addValue("payload", e.payload());
+		    return msps;
+		}).toArray(MapSqlParameterSource[]::new);
+		jdbc.batchUpdate(sql, batch);
+	}
+
+	@Override
+	public List<SDEventRecord> claimHeads(int limit, long lease) {
+		// only the oldest pending event per self-description is returned, so the next event
+		// for the same SD can not be sent before the previous one has been acknowledged.
+		// claimed events are leased by moving their nexttime, concurrent relays skip locked and
+		// leased rows, so every event is sent by one relay only unless its lease expires
+		String sql = """
+		  update sdoutbox set nexttime = now() + :lease * interval '1 millisecond'
+		  where id in (select id from sdoutbox
+		    where id in (select min(id) from sdoutbox group by sdhash) and nexttime <= now()
+		    order by id limit :limit for update skip locked)
+		  returning id, sdhash, event, status, payload""";
+		List<SDEventRecord> events = jdbc.query(sql, Map.of("limit", limit, "lease", lease), new SDEventMapper());
+		events.sort(Comparator.comparing(SDEventRecord::id));
+		return events;
+	}
+
+	@Override
+	public int delete(Collection<Long> ids) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		return jdbc.update("delete from sdoutbox where id in (:ids)", Map.of("ids", ids));
+	}
+
+	@Override
+	public int postpone(Collection<Long> ids, long retryDelay) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		// linear backoff, capped at 10 times the retry delay
+		String sql = """
+		  update sdoutbox set attempts = attempts + 1,
+		  nexttime = now() + least(attempts + 1, 10) * :delay * interval '1 millisecond'
+		  where id in (:ids)""";
+		return jdbc.update(sql, Map.of("ids", ids, "delay", retryDelay));
+	}
+	
+	private class SDEventMapper implements RowMapper<SDEventRecord> {
+
+		@Override
+		public SDEventRecord mapRow(ResultSet rs, int rowNum) throws SQLException {
+			String status = rs.getString("status");
+			return new SDEventRecord(rs.getLong("id"), rs.getString("sdhash"), SDEvent.valueOf(rs.getString("event")), 
+					status == null ? null : SelfDescriptionStatus.valueOf(status), rs.getBytes("payload"));
+		}
+	}
+
+}
@@ -9,6 +9,7 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import org.bouncycastle.util.Arrays;
@@ -28,9 +29,13 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Component
 public class SchemaDaoImpl implements SchemaDao {
+
+	public static final String SCHEMA_VERSIONS_CHANNEL = "fc_schema_versions";
 	
 	@Autowired
 	private JdbcTemplate jdbc;
+	@Autowired
+	private ReadReplicaRouter replicaRouter;
 	
 	@Override
 	public int getSchemaCount() {
@@ -41,11 +46,11 @@ public class SchemaDaoImpl implements SchemaDao {
 	@Override
 	public SchemaRecord select(String schemaId) {
 		String sql = "select schemaId, nameHash, type, uploadTime, updateTime, content from schemafiles where schemaid = ?";
-		return jdbc.queryForObject(sql, new Object[] {schemaId}, new int[] {VARCHAR}, new RowMapper<SchemaRecord>() {
+		return replicaRouter.readJdbc().queryForObject(sql, new Object[] {schemaId}, new int[] {VARCHAR}, new RowMapper<SchemaRecord>() {
 
 			@Override
 			public SchemaRecord mapRow(ResultSet rs, int rowNum) throws SQLException {
-				return new SchemaRecord(rs.getString(1), rs.getString(2), SchemaType.values()[rs.getInt(3)], rs.getTimestamp(4).toInstant(), rs.getTimestamp(5).toInstant(), rs.getString(6), null);
+				return new SchemaRecord(rs.getString(1), rs.getString(2), SchemaType.values()[rs.getInt(3)], rs.getTimestamp(4).toInstant(), rs.getTimestamp(5).toInstant(), rs.getString(6), null, null, null);
 			}
 		}); 
 	}
@@ -53,46 +58,98 @@ public class SchemaDaoImpl implements SchemaDao {
 	@Override
 	public Map<Integer, Collection<String>> selectSchemas() {
 	    String sql = "select s.type, s.schemaId from schemafiles s";
-	    return jdbc.query(sql, new SchemaAggregateExtractor());
+	    return replicaRouter.readJdbc().query(sql, new SchemaAggregateExtractor());
 	}
 	
 	@Override
 	public Map<Integer, Collection<String>> selectSchemasByTerm(String term) {
 	    String sql = "select s.type, s.schemaId from schemafiles s join schematerms t on t.schemaid = s.schemaid where t.term = ?";
-	    return jdbc.query(sql, new Object[] {term}, new int[] {VARCHAR}, new SchemaAggregateExtractor());
+	    return replicaRouter.readJdbc().query(sql, new Object[] {term}, new int[] {VARCHAR}, new SchemaAggregateExtractor());
+	}
+
+	@Override
+	public List<SchemaRecord> selectGraphs(int type) {
+	    // the text content is needed only for schemas stored before their binary graph was kept
+	    String sql = "select s.schemaId, s.nameHash, s.type, s.uploadTime, s.updateTime, case when s.graph is null then s.content end, s.format, s.graph from schemafiles s where s.type = ?";
+	    return jdbc.query(sql, new SchemaGraphMapper(), type);
+	}
+
+	@Override
+	public List<SchemaRecord> selectWithoutGraph() {
+	    String sql = "select s.schemaId, s.nameHash, s.type, s.uploadTime, s.updateTime, s.content, s.format, s.graph from schemafiles s where s.graph is null";
+	    return jdbc.query(sql, new SchemaGraphMapper());
+	}
+
+	@Override
+	public int updateGraph(String schemaId, String format, byte[] graph) {
+		String sql = "update schemafiles set format = ?, graph = ? where schemaid = ?";
+		replicaRouter.written();
+		return jdbc.update(sql, format, graph, schemaId);
+	}
+
+	@Override
+	public Integer selectType(String schemaId) {
+		String sql = "select type from schemafiles where schemaid = ?";
+		List<Integer> types = jdbc.queryForList(sql, Integer.class, schemaId);
+		return types.isEmpty() ? null : types.get(0);
+	}
+
+	@Override
+	public Map<Integer, Long> selectVersions() {
+		String sql = "select type, version from schemaversions";
+		Map<Integer, Long> result = new HashMap<>();
+		jdbc.query(sql, rs -> {
+			result.put(rs.getInt(1), rs.getLong(2));
+		});
+		return result;
+	}
+
+	@Override
+	public long incrementVersion(int type) {
+		// the notification is delivered to listeners when the transaction commits
+		String sql = """
+			with v as (insert into schemaversions(type, version) values(?, 1)
+			on conflict (type) do update set version = schemaversions.version + 1 returning type, version)
+			select v.version, pg_notify(?, v.type || ':' || v.version) from v""";
+		replicaRouter.written();
+		long version = jdbc.queryForObject(sql, (rs, rowNum) -> rs.getLong(1), type, SCHEMA_VERSIONS_CHANNEL);
+		log.debug("incrementVersion; type {} is at version {}", type, version);
+		return version;
 	}
 
 	@Override
 	public boolean insert(SchemaRecord sr) {
 		log.debug("insert.enter; got schema: {}", sr.getId());
 		String sql = """
-			with s as (insert into schemafiles(schemaId, nameHash, type, uploadTime, updateTime, content) values(?, ?, ?, ?, ?, ?) returning schemaid),
+			with s as (insert into schemafiles(schemaId, nameHash, type, uploadTime, updateTime, content, format, graph) values(?, ?, ?, ?, ?, ?, ?, ?) returning schemaid),
 			t as (insert into schematerms(term, schemaid) select * from unnest(?::varchar[], ?::varchar[]) returning schemaid)
 			select s.schemaid, count(t.schemaid) from s join t on t.schemaid = s.schemaid group by s.schemaid""";
 		String[] schemaIds = new String[sr.terms().size()];
 		Arrays.fill(schemaIds, sr.getId()); 
 		String[] terms = sr.terms().toArray(new String[0]);
+		replicaRouter.written();
 		Map<String, Integer> result = jdbc.queryForObject(sql, new Object[] {sr.getId(), sr.nameHash(), sr.type().ordinal(), Timestamp.from(sr.updateTime()), Timestamp.from(sr.updateTime()), 
-				sr.content(), terms, schemaIds},	new int[] {VARCHAR, VARCHAR, INTEGER, TIMESTAMP, TIMESTAMP, VARCHAR, ARRAY, ARRAY}, new SchemaAggregateMapper());
+				sr.content(), sr.format(), sr.graph(), terms, schemaIds},	new int[] {VARCHAR, VARCHAR, INTEGER, TIMESTAMP, TIMESTAMP, VARCHAR, VARCHAR, BINARY, ARRAY, ARRAY}, new SchemaAggregateMapper());
 		log.debug("insert.exit; inserted: {}", result);
 		return result.size() > 0;
 	}
 
 	@Override
-	public int update(String id, String content, Collection<String> terms) {
+	public int update(String id, String content, String format, byte[] graph, Collection<String> terms) {
 		log.debug("update.enter; got id: {}, content length: {}, terms: {}", id, content.length(), terms);
 		String sql = "delete from schematerms where schemaid = ?";
+		replicaRouter.written();
 		int cnt = jdbc.update(sql, id);
 		log.debug("update; deleted {} terms", cnt);
 		sql = """
-			with s as (update schemafiles set updateTime = ?, content = ? where schemaid = ? returning schemaid),
+			with s as (update schemafiles set updateTime = ?, content = ?, format = ?, graph = ? where schemaid = ? returning schemaid),
 			t as (insert into schematerms(term, schemaid) select * from unnest(?::varchar[], ?::varchar[]) returning schemaid) 
 			select s.schemaid, count(t.schemaid) from s join t on t.schemaid = s.schemaid group by s.schemaid""";
 		String[] schemaIds = new String[terms.size()];
 		Arrays.fill(schemaIds, id);
 		String[] termIds = terms.toArray(new String[0]);
-		Map<String, Integer> result = jdbc.queryForObject(sql, new Object[] {Timestamp.from(Instant.now()), content, id, termIds, schemaIds},
-				new int[] {TIMESTAMP, VARCHAR, VARCHAR, ARRAY, ARRAY}, new SchemaAggregateMapper());
+		Map<String, Integer> result = jdbc.queryForObject(sql, new Object[] {Timestamp.from(Instant.now()), content, format, graph, id, termIds, schemaIds},
+				new int[] {TIMESTAMP, VARCHAR, VARCHAR, BINARY, VARCHAR, ARRAY, ARRAY}, new SchemaAggregateMapper());
 		log.debug("update.exit; updated: {}", result);
 		return result.size();
 	}
@@ -100,6 +157,7 @@ public class SchemaDaoImpl implements SchemaDao {
 	@Override
 	public Integer delete(String schemaId) {
 		String sql = "delete from schemafiles where schemaid = ? returning type";
+		replicaRouter.written();
 		try {
 		  return jdbc.queryForObject(sql, new Object[] {schemaId}, new int[] {java.sql.Types.VARCHAR}, Integer.class);
 		} catch (EmptyResultDataAccessException ex) {
@@ -109,6 +167,7 @@ public class SchemaDaoImpl implements SchemaDao {
 
 	@Override
 	public int deleteAll() {
+		replicaRouter.written();
 		return jdbc.update("delete from schemafiles");
 	}
 	
@@ -125,6 +184,15 @@ public class SchemaDaoImpl implements SchemaDao {
 		}
 	}
 	
+	private class SchemaGraphMapper implements RowMapper<SchemaRecord> {
+
+		@Override
+		public SchemaRecord mapRow(ResultSet rs, int rowNum) throws SQLException {
+			return new SchemaRecord(rs.getString(1), rs.getString(2), SchemaType.values()[rs.getInt(3)], rs.getTimestamp(4).toInstant(), rs.getTimestamp(5).toInstant(),
+					rs.getString(6), rs.getString(7), rs.getBytes(8), null);
+		}
+	}
+
 	private class SchemaAggregateMapper implements RowMapper<Map<String, Integer>> {
 
 		@Override
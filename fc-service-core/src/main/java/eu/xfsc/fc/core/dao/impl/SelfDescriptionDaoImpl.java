@@ -28,24 +28,66 @@ import eu.xfsc.fc.core.pojo.SdFilter;
 import eu.xfsc.fc.core.service.sdstore.SdMetaRecord;
 import eu.xfsc.fc.core.service.sdstore.SubjectHashRecord;
 import eu.xfsc.fc.core.service.sdstore.SubjectStatusRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
 public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 	
+	// number of values of the hashbucket column
+	private static final int HASH_BUCKETS = 1024;
+	private static final String SD_COLUMNS = "sdhash, subjectid, issuer, uploadtime, statustime, expirationtime, status, content, validators";
+	// active self-descriptions are kept in sdfiles, all others in sdhistory
+	private static final String ACTIVE_SOURCE = "sdfiles";
+	private static final String HISTORY_SOURCE = "sdhistory";
+	private static final String ALL_SOURCE = "(select " + SD_COLUMNS + " from sdfiles union all select " + SD_COLUMNS + " from sdhistory) sd";
+	
 	@Autowired
 	private NamedParameterJdbcTemplate jdbc;
+	@Autowired
+	private ReadReplicaRouter replicaRouter;
+	// the no-op global registry is kept where no registry is configured
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+	private Timer timerSelect;
+	private Timer timerSelectFilter;
+	private Timer timerSelectHashes;
+	private Timer timerUpdateExpired;
+	private Timer timerInsert;
+	private Timer timerUpdate;
+	private Timer timerDelete;
 	
+	@PostConstruct
+	public void initMetrics() {
+		timerSelect = daoTimer("select");
+		timerSelectFilter = daoTimer("selectByFilter");
+		timerSelectHashes = daoTimer("selectHashes");
+		timerUpdateExpired = daoTimer("updateExpired");
+		timerInsert = daoTimer("insert");
+		timerUpdate = daoTimer("update");
+		timerDelete = daoTimer("delete");
+	}
+	
+	private Timer daoTimer(String op) {
+		return Timer.builder("fc.dao.sdfiles").tag("op", op)
+				.description("Time spent in self-description database calls")
+				.publishPercentileHistogram().register(meterRegistry);
+	}
 
 	@Override
 	public SdMetaRecord select(String hash) {
 	    FilterQueryBuilder queryBuilder = new FilterQueryBuilder(true, true);
+	    queryBuilder.setSource(ALL_SOURCE);
 	    queryBuilder.addClause("sdhash = ?", "hash", hash);
 	    String query = queryBuilder.buildQuery(0, 0);
 	    SdMetaRecord sdmr;
 	    try {
-	      sdmr = jdbc.queryForObject(query, new SDQueryParameterSource(queryBuilder), new SDMetaMapper());
+	      sdmr = timerSelect.record(() -> replicaRouter.readNamedJdbc().queryForObject(query, new SDQueryParameterSource(queryBuilder), new SDMetaMapper()));
 	    } catch (EmptyResultDataAccessException ex) {
 	      sdmr = null;	
 	    }
@@ -55,6 +97,38 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 	@Override
     public PaginatedResults<SdMetaRecord> selectByFilter(SdFilter filter, boolean withMeta, boolean withContent) {
 	    log.debug("selectByFilter.enter; got filter: {}, withMeta: {}, withContent: {}", filter, withMeta, withContent);
+	    final FilterQueryBuilder queryBuilder = getFilterQueryBuilder(filter, withMeta, withContent);
+
+        Timer.Sample sample = Timer.start();
+        NamedParameterJdbcTemplate readJdbc = replicaRouter.readNamedJdbc();
+        String query = queryBuilder.buildCountQuery();
+        SqlParameterSource sps = new SDQueryParameterSource(queryBuilder);
+        int count = readJdbc.queryForObject(query, sps, Integer.class);
+        
+	    query = queryBuilder.buildQuery(filter.getOffset(), filter.getLimit());
+	    final List<SdMetaRecord> sdList;
+	    try (Stream<SdMetaRecord> sdStream = readJdbc.queryForStream(query, sps, new SDMetaMapper())) {
+	      sdList = sdStream.collect(Collectors.toList());
+	    }
+	    sample.stop(timerSelectFilter);
+	    log.debug("selectByFilter.exit; returning records: {}, total: {}", sdList.size(), count);
+	    return new PaginatedResults<>(count, sdList);
+    }
+
+	/**
+	 * Returns the execution plan of the page query run by {@link #selectByFilter(SdFilter, boolean, boolean)},
+	 * to check which indexes serve a filter.
+	 *
+	 * @param filter the filter
+	 * @return lines of the plan, as returned by EXPLAIN
+	 */
+	List<String> explainByFilter(SdFilter filter) {
+	    FilterQueryBuilder queryBuilder = getFilterQueryBuilder(filter, true, false);
+	    String query = "explain " + queryBuilder.buildQuery(filter.getOffset(), filter.getLimit());
+	    return jdbc.queryForList(query, new SDQueryParameterSource(queryBuilder), String.class);
+	}
+
+	private FilterQueryBuilder getFilterQueryBuilder(SdFilter filter, boolean withMeta, boolean withContent) {
 	    final FilterQueryBuilder queryBuilder = new FilterQueryBuilder(withMeta, withContent);
 
 	    if (filter.getUploadTimeStart() != null) {
@@ -71,6 +145,12 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 	    if (filter.getValidators() != null) {
 	      queryBuilder.addClause("(validators && cast(? as varchar[]))", "validators", filter.getValidators().toArray(new String[0]));
 	    }
+	    if (filter.getStatuses() == null || filter.getStatuses().contains(SelfDescriptionStatus.ACTIVE)) {
+	      boolean activeOnly = filter.getStatuses() != null && filter.getStatuses().stream().allMatch(s -> s == SelfDescriptionStatus.ACTIVE);
+	      queryBuilder.setSource(activeOnly ? ACTIVE_SOURCE : ALL_SOURCE);
+	    } else {
+	      queryBuilder.setSource(HISTORY_SOURCE);
+	    }
 	    if (filter.getStatuses() != null) {
 	      List<Integer> ords = filter.getStatuses().stream().map(s -> s.ordinal()).collect(Collectors.toList());
 	      queryBuilder.addClause("status in (?)", "statuses", ords);
@@ -81,46 +161,78 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 	    if (filter.getHashes() != null) {
 	      queryBuilder.addClause("sdhash in (?)", "hashes", filter.getHashes());
 	    }
-
-        String query = queryBuilder.buildCountQuery();
-        SqlParameterSource sps = new SDQueryParameterSource(queryBuilder);
-        int count = jdbc.queryForObject(query, sps, Integer.class);
-        
-	    query = queryBuilder.buildQuery(filter.getOffset(), filter.getLimit());
-	    Stream<SdMetaRecord> sdStream = jdbc.queryForStream(query, sps, new SDMetaMapper());
-	    final List<SdMetaRecord> sdList = sdStream.collect(Collectors.toList());
-	    log.debug("selectByFilter.exit; returning records: {}, total: {}", sdList.size(), count);
-	    return new PaginatedResults<>(count, sdList);
-    }
+	    return queryBuilder;
+	}
 	
+	/**
+	 * Chunks are contiguous ranges of the stored hashbucket column, so every batch is read from the
+	 * (status, hashbucket, sdhash) index. With more than one chunk hashes come ordered by bucket, then by hash.
+	 */
 	@Override
 	public List<String> selectHashes(String startHash, int count, int chunks, int chunkId) {
 		String sql;
-		MapSqlParameterSource msps = new MapSqlParameterSource(Map.of("status", SelfDescriptionStatus.ACTIVE.ordinal(), "chunks", chunks, "chunkid", chunkId, "limit", count));
-	    if (startHash == null) {
-          sql = "select sdhash from sdfiles where status = :status and abs(hashtext(sdhash) % :chunks) = :chunkid order by sdhash asc limit :limit";
-	    } else {
-	      sql = "select sdhash from sdfiles where sdhash > :lastSdHash and status = :status and abs(hashtext(sdhash) % :chunks) = :chunkid order by sdhash asc limit :limit";
-	      msps.addValue("lastSdHash", startHash);
-	    }
-        return jdbc.queryForList(sql, msps, String.class);
+		MapSqlParameterSource msps = new MapSqlParameterSource(Map.of("status", SelfDescriptionStatus.ACTIVE.ordinal(), "limit", count));
+		if (chunks <= 1) {
+		  if (startHash == null) {
+		    sql = "select sdhash from sdfiles where status = :status order by sdhash asc limit :limit";
+		  } else {
+		    sql = "select sdhash from sdfiles where sdhash > :lastSdHash and status = :status order by sdhash asc limit :limit";
+		    msps.addValue("lastSdHash", startHash);
+		  }
+		} else {
+		  // buckets are split as evenly as possible, with more chunks than buckets some chunks stay empty
+		  msps.addValue("bucketFrom", chunkId * HASH_BUCKETS / chunks);
+		  msps.addValue("bucketTo", (chunkId + 1) * HASH_BUCKETS / chunks);
+		  if (startHash == null) {
+		    sql = """
+		      select sdhash from sdfiles where status = :status and hashbucket >= :bucketFrom and hashbucket < :bucketTo
+		      order by hashbucket, sdhash limit :limit""";
+		  } else {
+		    sql = """
+		      select sdhash from sdfiles where status = :status and hashbucket >= :bucketFrom and hashbucket < :bucketTo
+		      and (hashbucket, sdhash) > (hashtext(:lastSdHash) & %d, :lastSdHash)
+		      order by hashbucket, sdhash limit :limit""".formatted(HASH_BUCKETS - 1);
+		    msps.addValue("lastSdHash", startHash);
+		  }
+		}
+        final String query = sql;
+        return timerSelectHashes.record(() -> replicaRouter.readNamedJdbc().queryForList(query, msps, String.class));
 	}
 
 	@Override
-	public List<String> selectExpiredHashes() {
-        String sql = "select sdhash from sdfiles where status = :status and expirationTime < :expTime";
-        return jdbc.queryForList(sql, Map.of("status", SelfDescriptionStatus.ACTIVE.ordinal(), "expTime", Timestamp.from(Instant.now())), String.class);
+	public List<SubjectHashRecord> updateExpired(int status, int limit) {
+	    // rows locked by concurrent status changes are skipped, they will be picked up by the next run
+	    String sql = """
+	      with m as (delete from sdfiles where sdhash in (select sdhash from sdfiles where status = 0 and expirationtime < :expTime
+	          order by expirationtime limit :limit for update skip locked)
+	          returning *),
+	      h as (insert into sdhistory(%s)
+	          select sdhash, subjectid, issuer, uploadtime, :statusTime, expirationtime, :status, content, validators from m
+	          returning subjectid, sdhash)
+	      select subjectid, sdhash from h""".formatted(SD_COLUMNS);
+	    Timestamp now = Timestamp.from(Instant.now());
+	    MapSqlParameterSource msps = new MapSqlParameterSource();
+	    msps.addValue("status", status);
+	    msps.addValue("statusTime", now);
+	    msps.addValue("expTime", now);
+	    msps.addValue("limit", limit);
+	    replicaRouter.written();
+	    return timerUpdateExpired.record(() -> jdbc.query(sql, msps, new SDSubjectHashMapper()));
 	}
 	
 	@Override
 	public SubjectHashRecord insert(SdMetaRecord sd) {
+	    // hashes are unique across sdfiles and sdhistory by the sdhashes primary key
 	    String upsert = """
-   	      with u as (update sdfiles set status = :upStatus, statustime = :upStatusTime
-   	          where subjectid = :subjectId and status = 0 returning sdhash oldhash, :sdHash sdhash, subjectid),
-   	      i as (insert into sdfiles(sdhash, subjectid, issuer, uploadtime, statustime, expirationtime, status, content, validators)
+   	      with h as (insert into sdhashes(sdhash) values (:sdHash)),
+   	      d as (delete from sdfiles where subjectid = :subjectId and status = 0 returning *),
+   	      u as (insert into sdhistory(%s)
+   	          select sdhash, subjectid, issuer, uploadtime, :upStatusTime, expirationtime, :upStatus, content, validators from d
+   	          returning sdhash oldhash, :sdHash sdhash, subjectid),
+   	      i as (insert into sdfiles(%s)
    	          values (:sdHash, :subjectId, :issuer, :uploadTime, :statusTime, :expirationTime, :status, :content, :validators)
    	          returning sdhash)
-   	      select u.subjectid, u.oldhash from i full join u on u.sdhash = i.sdhash""";
+   	      select u.subjectid, u.oldhash from i full join u on u.sdhash = i.sdhash""".formatted(SD_COLUMNS, SD_COLUMNS);
 	    MapSqlParameterSource msps = new MapSqlParameterSource();
 	    msps.addValue("upStatus", SelfDescriptionStatus.DEPRECATED.ordinal());
 	    msps.addValue("upStatusTime", Timestamp.from(Instant.now()));
@@ -133,29 +245,38 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 	    msps.addValue("status", sd.getStatus().ordinal());
 	    msps.addValue("content", sd.getContent());
 	    msps.addValue("validators", sd.getValidators());
-	    SubjectHashRecord subHash = jdbc.queryForObject(upsert, msps, new SDSubjectHashMapper());
+	    replicaRouter.written();
+	    SubjectHashRecord subHash = timerInsert.record(() -> jdbc.queryForObject(upsert, msps, new SDSubjectHashMapper()));
 		return subHash;
 	}
 
 	@Override
 	public SubjectStatusRecord update(String hash, int status) {
 	    String sql = """
-	      with u as (update sdfiles set status = :status, statustime = :status_dt
-	      where sdhash = :hash and status = 0 returning sdhash, subjectid),
-	      o as (select sdhash, status from sdfiles where sdhash = :hash and status > 0)
-	      select u.subjectid, o.status from u full join o on o.sdhash = u.sdhash""";
+	      with m as (delete from sdfiles where sdhash = :hash and status = 0 returning *),
+	      u as (insert into sdhistory(%s)
+	          select sdhash, subjectid, issuer, uploadtime, :status_dt, expirationtime, :status, content, validators from m
+	          returning sdhash, subjectid),
+	      o as (select sdhash, status from sdhistory where sdhash = :hash)
+	      select u.subjectid, o.status from u full join o on o.sdhash = u.sdhash""".formatted(SD_COLUMNS);
 	    MapSqlParameterSource msps = new MapSqlParameterSource();
 	    msps.addValue("hash", hash);
 	    msps.addValue("status", status);
 	    msps.addValue("status_dt", Timestamp.from(Instant.now()));
-		return jdbc.queryForObject(sql, msps, new SDSubjectStatusMapper());
+		replicaRouter.written();
+		return timerUpdate.record(() -> jdbc.queryForObject(sql, msps, new SDSubjectStatusMapper()));
 	}
 
 	@Override
 	public SubjectStatusRecord delete(String hash) {
-		String sql = "delete from sdfiles where sdhash = :hash returning subjectid, status";
+		String sql = """
+		  with a as (delete from sdfiles where sdhash = :hash returning subjectid, status),
+		  h as (delete from sdhistory where sdhash = :hash returning subjectid, status),
+		  r as (delete from sdhashes where sdhash = :hash)
+		  select subjectid, status from a union all select subjectid, status from h""";
+		replicaRouter.written();
 		try {
-		  return jdbc.queryForObject(sql, Map.of("hash", hash), new SDSubjectStatusMapper());
+		  return timerDelete.record(() -> jdbc.queryForObject(sql, Map.of("hash", hash), new SDSubjectStatusMapper()));
 	    } catch (EmptyResultDataAccessException ex) {
 	      return null;	
 	    }
@@ -163,7 +284,24 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 
 	@Override
 	public int deleteAll() {
-		return jdbc.update("delete from sdfiles", Map.of());
+		replicaRouter.written();
+		int cnt = jdbc.update("delete from sdfiles", Map.of()) + jdbc.update("delete from sdhistory", Map.of());
+		jdbc.update("delete from sdhashes", Map.of());
+		return cnt;
+	}
+
+	@Override
+	public List<SdMetaRecord> selectHistoryToOffload(int minSize, int limit) {
+		String sql = """
+		  select sdhash, subjectid, status, issuer, uploadtime, statustime, expirationtime, validators, content from sdhistory
+		  where content is not null and octet_length(content) >= :minSize limit :limit""";
+		return jdbc.query(sql, Map.of("minSize", minSize, "limit", limit), new SDMetaMapper());
+	}
+
+	@Override
+	public int clearHistoryContent(String hash) {
+		replicaRouter.written();
+		return jdbc.update("update sdhistory set content = null where sdhash = :hash", Map.of("hash", hash));
 	}
 	
 	
@@ -172,6 +310,7 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 	    private final Map<String, Clause> clauses;
 	    private final boolean fullMeta;
 	    private final boolean returnContent;
+	    private String source = ACTIVE_SOURCE;
 
 	    private static class Clause {
 
@@ -201,6 +340,10 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 	      clauses = new LinkedHashMap<>();
 	    }
 
+	    private void setSource(final String source) {
+	      this.source = source;
+	    }
+
 	    private void addClause(final String template, final String formalParameterName, final Object actualParameter) {
 		  clauses.put(formalParameterName, new Clause(template, formalParameterName, actualParameter));
 		}
@@ -214,7 +357,7 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 		}
 
 	    private String buildCountQuery() {
-	      final StringBuilder query = new StringBuilder("select count(*) from sdfiles where 1=1");
+	      final StringBuilder query = new StringBuilder("select count(*) from ").append(source).append(" where 1=1");
 	      addQueryClauses(query);
 	      log.debug("buildCountQuery; Query: {}", query.toString());
 	      return query.toString();
@@ -232,7 +375,7 @@ public class SelfDescriptionDaoImpl implements SelfDescriptionDao {
 	      } else {
 	        query.append(", null as content");  
 	      }
-	      query.append(" from sdfiles");
+	      query.append(" from ").append(source);
 	      query.append(" where 1=1");
 	      addQueryClauses(query);
 	      query.append(" ").append("order by statustime desc, sdhash");
@@ -2,6 +2,7 @@ package eu.xfsc.fc.core.dao.impl;
 
 import eu.xfsc.fc.api.generated.model.User;
 import eu.xfsc.fc.api.generated.model.UserProfile;
+import eu.xfsc.fc.core.dao.IdentityCacheDao;
 import eu.xfsc.fc.core.dao.UserDao;
 import eu.xfsc.fc.core.exception.ClientException;
 import eu.xfsc.fc.core.exception.ConflictException;
@@ -9,6 +10,7 @@ import eu.xfsc.fc.core.pojo.PaginatedResults;
 
 import static eu.xfsc.fc.core.util.KeycloakUtils.getErrorMessage;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -47,8 +49,14 @@ public class UserDaoImpl implements UserDao {
   private String realm;
   @Value("${keycloak.resource}")
   private String resourceId;
+  @Value("${federated-catalogue.keycloak.read-model.enabled:false}")
+  private boolean readModel;
   @Autowired
   private Keycloak keycloak;
+  @Autowired
+  private IdentityCacheDao identityCache;
+  @Autowired
+  private IdentityCacheSynchronizer identitySynchronizer;
 
   /**
    * Implementation of add user to catalogue repository.
@@ -79,7 +87,7 @@ public class UserDaoImpl implements UserDao {
        userResource.remove();
       throw new ClientException("Please check that the sent roles are valid.");
     }
-    return toUserProfile(userRepo, roleRepresentations);
+    return cache(toUserProfile(userRepo, roleRepresentations));
   }
 
   /**
@@ -106,6 +114,9 @@ public class UserDaoImpl implements UserDao {
    */
   @Override
   public PaginatedResults<UserProfile> search(String participantId, Integer offset, Integer limit) {
+    if (identitySynchronizer.isReady()) {
+      return identityCache.searchUsers(participantId, ParticipantDaoImpl.toOffset(offset), ParticipantDaoImpl.toLimit(limit));
+    }
     UsersResource instance = keycloak.realm(realm).users();
     List<UserRepresentation> userRepos;
     int totalCount = instance.count();
@@ -140,6 +151,9 @@ public class UserDaoImpl implements UserDao {
       log.info("delete.error; status {}:{}, {}", response.getStatus(), response.getStatusInfo(), message);
       throw new ConflictException(message);
     }
+    if (readModel) {
+      identityCache.removeUser(userId, Instant.now());
+    }
     return toUserProfile(userRepo, roles);
   }
 
@@ -170,7 +184,7 @@ public class UserDaoImpl implements UserDao {
 
     userResource = instance.get(userId);
     userRepo = getUserRepresentation(userResource, userId);
-    return toUserProfile(userRepo, getUserRoles(instance, userId));
+    return cache(toUserProfile(userRepo, getUserRoles(instance, userId)));
   }
 
   /**
@@ -191,7 +205,7 @@ public class UserDaoImpl implements UserDao {
     // no Response ?
     userResource = instance.get(userId);
     UserRepresentation userRepo = getUserRepresentation(userResource, userId);
-    return toUserProfile(userRepo, getUserRoles(instance, userId));
+    return cache(toUserProfile(userRepo, getUserRoles(instance, userId)));
   }
 
   /**
@@ -280,6 +294,13 @@ public class UserDaoImpl implements UserDao {
     return roleRepresentations.stream().map(RoleRepresentation::getName).collect(Collectors.toList());
   }
 
+  private UserProfile cache(UserProfile profile) {
+    if (readModel) {
+      identityCache.storeUser(profile, Instant.now());
+    }
+    return profile;
+  }
+
   private List<RoleRepresentation> getUserRoles(UsersResource instance, String userId) {
     ClientRepresentation client = keycloak.realm(realm).clients().findByClientId(resourceId).get(0);
     return instance.get(userId).roles().clientLevel(client.getId()).listAll();
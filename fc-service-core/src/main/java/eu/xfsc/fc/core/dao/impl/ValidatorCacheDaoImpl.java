@@ -6,6 +6,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -44,6 +47,17 @@ public class ValidatorCacheDaoImpl implements ValidatorCacheDao {
 	}
   }
 
+  @Override
+  public Map<String, Validator> getFromCache(Collection<String> didURIs) {
+	String sql ="select diduri, publickey, expirationtime from validatorcache where diduri = any(cast(? as varchar[]))";
+	Map<String, Validator> validators = new HashMap<>();
+	jdbc.query(sql, rs -> {
+	  Validator validator = new Validator(rs.getString(1), rs.getString(2), rs.getTimestamp(3).toInstant());
+	  validators.put(validator.getDidURI(), validator);
+	}, (Object) didURIs.toArray(new String[0]));
+	return validators;
+  }
+
   @Override
   public void addToCache(Validator validator) {
 	String sql ="insert into validatorcache(diduri, publickey, expirationtime) values(?, ?, ?)";
@@ -0,0 +1,13 @@
+package eu.xfsc.fc.core.exception;
+
+/**
+ * This exception is thrown when a request is not admitted because the server works at its limit already,
+ * the client may retry it later.
+ */
+public class TooManyRequestsException extends ServiceException {
+
+  public TooManyRequestsException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,243 @@
+package eu.xfsc.fc.core.pojo;
+
+import java.io.Reader;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import com.apicatalog.rdf.RdfLiteral;
+import com.apicatalog.rdf.RdfTriple;
+import com.apicatalog.rdf.RdfValue;
+
+/**
+ * Compact, dictionary encoded list of claims. Every distinct IRI, blank node and literal is stored once
+ * in a term dictionary, claims are kept as subject, predicate, object term ids in a primitive int array.
+ * {@link SdClaim} instances returned by {@link #get(int)} are lightweight views sharing the dictionary terms,
+ * N-Triples are produced on demand only.
+ */
+public class ClaimSet extends AbstractList<SdClaim> implements RandomAccess {
+
+  private final ObjectIntHashMap<String> iris = new ObjectIntHashMap<>();
+  private final ObjectIntHashMap<String> blanks = new ObjectIntHashMap<>();
+  private final ObjectIntHashMap<String> literals = new ObjectIntHashMap<>();
+  private final List<String> terms = new ArrayList<>();
+  private final List<RdfValue> values = new ArrayList<>();
+  private int[] triples;
+  private int size;
+
+  public ClaimSet() {
+    this(16);
+  }
+
+  public ClaimSet(int capacity) {
+    this.triples = new int[Math.max(capacity, 1) * 3];
+  }
+
+  /**
+   * Returns the claims as ClaimSet, copies them into a new one if they are kept in some other list.
+   */
+  public static ClaimSet of(List<SdClaim> claims) {
+    if (claims instanceof ClaimSet) {
+      return (ClaimSet) claims;
+    }
+    ClaimSet set = new ClaimSet(claims.size());
+    set.addAll(claims);
+    return set;
+  }
+
+  public void addTriple(RdfTriple triple) {
+    append(intern(triple.getSubject()), intern(triple.getPredicate()), intern(triple.getObject()));
+  }
+
+  /**
+   * Adds a claim given as N-Triples terms, as produced by {@link SdClaim#getSubjectString()} and alike.
+   */
+  public void add(String subject, String predicate, String object) {
+    append(intern(subject), intern(predicate), intern(object));
+  }
+
+  @Override
+  public boolean add(SdClaim claim) {
+    if (claim.getSubject() == null) {
+      add(claim.getSubjectString(), claim.getPredicateString(), claim.getObjectString());
+    } else {
+      append(intern(claim.getSubject()), intern(claim.getPredicate()), intern(claim.getObject()));
+    }
+    return true;
+  }
+
+  @Override
+  public SdClaim get(int index) {
+    Objects.checkIndex(index, size);
+    int s = triples[index * 3];
+    int p = triples[index * 3 + 1];
+    int o = triples[index * 3 + 2];
+    return new SdClaim(values.get(s), values.get(p), values.get(o), terms.get(s), terms.get(p), terms.get(o));
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    iris.clear();
+    blanks.clear();
+    literals.clear();
+    terms.clear();
+    values.clear();
+    size = 0;
+    modCount++;
+  }
+
+  public int getTermCount() {
+    return terms.size();
+  }
+
+  /**
+   * @return term with the given id in N-Triples notation
+   */
+  public String getTerm(int id) {
+    return terms.get(id);
+  }
+
+  /**
+   * @return RDF value of the term with the given id, null when the term was added as plain string
+   */
+  public RdfValue getValue(int id) {
+    return values.get(id);
+  }
+
+  public int getSubjectId(int index) {
+    Objects.checkIndex(index, size);
+    return triples[index * 3];
+  }
+
+  public int getPredicateId(int index) {
+    Objects.checkIndex(index, size);
+    return triples[index * 3 + 1];
+  }
+
+  public int getObjectId(int index) {
+    Objects.checkIndex(index, size);
+    return triples[index * 3 + 2];
+  }
+
+  /**
+   * Appends the claim at the given position to the builder, in the same notation as {@link SdClaim#asTriple()}.
+   */
+  public StringBuilder appendTriple(StringBuilder sb, int index) {
+    Objects.checkIndex(index, size);
+    int base = index * 3;
+    return sb.append(terms.get(triples[base])).append(' ')
+        .append(terms.get(triples[base + 1])).append(' ')
+        .append(terms.get(triples[base + 2])).append(" . \n");
+  }
+
+  /**
+   * @return all claims serialized as N-Triples
+   */
+  public String toNTriples() {
+    StringBuilder sb = new StringBuilder(size * 96);
+    for (int i = 0; i < size; i++) {
+      appendTriple(sb, i);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return reader streaming all claims as N-Triples, one claim per line, without materializing the whole document
+   */
+  public Reader toNTriplesReader() {
+    return new Reader() {
+
+      private final StringBuilder line = new StringBuilder(128);
+      private int index;
+      private int pos;
+
+      @Override
+      public int read(char[] cbuf, int off, int len) {
+        Objects.checkFromIndexSize(off, len, cbuf.length);
+        if (len == 0) {
+          return 0;
+        }
+        int read = 0;
+        while (read < len) {
+          if (pos == line.length()) {
+            if (index == size) {
+              break;
+            }
+            line.setLength(0);
+            appendTriple(line, index++);
+            pos = 0;
+          }
+          int count = Math.min(len - read, line.length() - pos);
+          line.getChars(pos, pos + count, cbuf, off + read);
+          pos += count;
+          read += count;
+        }
+        return read == 0 ? -1 : read;
+      }
+
+      @Override
+      public void close() {
+        index = size;
+        pos = line.length();
+      }
+    };
+  }
+
+  private void append(int subject, int predicate, int object) {
+    int base = size * 3;
+    if (base + 3 > triples.length) {
+      triples = Arrays.copyOf(triples, triples.length * 2);
+    }
+    triples[base] = subject;
+    triples[base + 1] = predicate;
+    triples[base + 2] = object;
+    size++;
+    modCount++;
+  }
+
+  private int intern(RdfValue value) {
+    if (value.isIRI()) {
+      return intern(iris, value.getValue(), null, value);
+    }
+    if (value.isBlankNode()) {
+      return intern(blanks, value.getValue(), null, value);
+    }
+    RdfLiteral literal = value.asLiteral();
+    String key = literal.getValue() + '\u0000' + literal.getDatatype() + '\u0000' + literal.getLanguage().orElse("");
+    return intern(literals, key, null, value);
+  }
+
+  private int intern(String term) {
+    if (term.length() > 1 && term.charAt(0) == '<' && term.charAt(term.length() - 1) == '>') {
+      return intern(iris, term.substring(1, term.length() - 1), term, null);
+    }
+    if (term.startsWith("_:")) {
+      return intern(blanks, term, term, null);
+    }
+    return intern(literals, term, term, null);
+  }
+
+  private int intern(ObjectIntHashMap<String> dictionary, String key, String term, RdfValue value) {
+    int id = dictionary.getIfAbsent(key, -1);
+    if (id < 0) {
+      id = terms.size();
+      terms.add(term == null ? SdClaim.rdf2String(value) : term);
+      values.add(value);
+      dictionary.put(key, id);
+    } else if (value != null && values.get(id) == null) {
+      values.set(id, value);
+    }
+    return id;
+  }
+
+}
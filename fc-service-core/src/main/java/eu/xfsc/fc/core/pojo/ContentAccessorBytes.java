@@ -0,0 +1,113 @@
+package eu.xfsc.fc.core.pojo;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import eu.xfsc.fc.core.util.HashUtils;
+
+/**
+ * A ContentAccessor backed by UTF-8 encoded bytes, usually the body of a request. Streams are served from
+ * the bytes directly, the string form is decoded once on first use and the SHA-256 hash can be handed over
+ * by the code that read the bytes, so content is neither copied nor transcoded again while it is processed.
+ */
+public class ContentAccessorBytes implements ContentAccessor {
+
+    private final byte[] content;
+    private String hash;
+    private String text;
+
+    public ContentAccessorBytes(byte[] content) {
+        this(content, null);
+    }
+
+    /**
+     * @param content UTF-8 encoded content, not copied
+     * @param hash SHA-256 hash of the content as calculated by {@link HashUtils}, or null
+     */
+    public ContentAccessorBytes(byte[] content, String hash) {
+        this.content = content;
+        this.hash = hash;
+    }
+
+    private ContentAccessorBytes(byte[] content, String hash, String text) {
+        this(content, hash);
+        this.text = text;
+    }
+
+    /**
+     * Creates accessor for a string, which is encoded and hashed once.
+     */
+    public static ContentAccessorBytes of(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return new ContentAccessorBytes(bytes, HashUtils.calculateSha256AsHex(bytes), content);
+    }
+
+    /**
+     * Returns accessor for the same bytes which uses the given string as its already decoded form.
+     *
+     * @param decoded the content decoded from these bytes by some other component
+     */
+    public ContentAccessorBytes withDecoded(String decoded) {
+        return new ContentAccessorBytes(content, hash, decoded);
+    }
+
+    @Override
+    public String getContentAsString() {
+        String result = text;
+        if (result == null) {
+            result = new String(content, StandardCharsets.UTF_8);
+            text = result;
+        }
+        return result;
+    }
+
+    @Override
+    public InputStream getContentAsStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * @return the content bytes, must not be modified
+     */
+    public byte[] getContentAsBytes() {
+        return content;
+    }
+
+    public int getLength() {
+        return content.length;
+    }
+
+    /**
+     * @return SHA-256 hash of the content as Hex-String
+     */
+    public String getHash() {
+        String result = hash;
+        if (result == null) {
+            result = HashUtils.calculateSha256AsHex(content);
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof ContentAccessorBytes) {
+            ContentAccessorBytes cab = (ContentAccessorBytes) obj;
+            return Arrays.equals(content, cab.content);
+        }
+        if (obj instanceof ContentAccessor) {
+            ContentAccessor ca = (ContentAccessor) obj;
+            return getContentAsString().equals(ca.getContentAsString());
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        // consistent with ContentAccessorDirect, so both can be compared
+        return getContentAsString().hashCode();
+    }
+
+}
@@ -20,9 +20,14 @@ public class GraphQuery {
 	private QueryLanguage queryLanguage;
     private int timeout;
     private boolean withTotalCount;
+    private String client;
 
     public GraphQuery(String query, Map<String, Object> params) {
       this(query, params, QueryLanguage.OPENCYPHER, QUERY_TIMEOUT, true);  
     }
+
+    public GraphQuery(String query, Map<String, Object> params, QueryLanguage queryLanguage, int timeout, boolean withTotalCount) {
+      this(query, params, queryLanguage, timeout, withTotalCount, null);
+    }
     
 }
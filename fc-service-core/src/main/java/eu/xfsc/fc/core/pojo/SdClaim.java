@@ -2,6 +2,8 @@ package eu.xfsc.fc.core.pojo;
 
 import java.util.Objects;
 
+import com.apicatalog.rdf.Rdf;
+import com.apicatalog.rdf.RdfResource;
 import com.apicatalog.rdf.RdfTriple;
 import com.apicatalog.rdf.RdfValue;
 
@@ -10,30 +12,40 @@ import com.apicatalog.rdf.RdfValue;
  */
 public class SdClaim {
 
-  private RdfTriple triple;
+  private RdfValue subjectRdf;
+  private RdfValue predicateRdf;
+  private RdfValue objectRdf;
   private String subject;
   private String predicate;
   private String object;
   
   public SdClaim(RdfTriple triple) {
-	this.triple = triple;
-	this.subject = rdf2String(triple.getSubject());
-	this.predicate = rdf2String(triple.getPredicate());
-	this.object = rdf2String(triple.getObject());
+	this(triple.getSubject(), triple.getPredicate(), triple.getObject(), 
+			rdf2String(triple.getSubject()), rdf2String(triple.getPredicate()), rdf2String(triple.getObject()));
   }
   
   public SdClaim(String subject, String predicate, String object) {
+	this(null, null, null, subject, predicate, object);
+  }
+  
+  SdClaim(RdfValue subjectRdf, RdfValue predicateRdf, RdfValue objectRdf, String subject, String predicate, String object) {
+	this.subjectRdf = subjectRdf;
+	this.predicateRdf = predicateRdf;
+	this.objectRdf = objectRdf;
 	this.subject = subject;
 	this.predicate = predicate;
 	this.object = object;	  
   }
   
   public RdfTriple getTriple() {
-	return triple;
+	if (subjectRdf == null || predicateRdf == null || objectRdf == null) {
+	  return null;
+	}
+	return Rdf.createTriple((RdfResource) subjectRdf, (RdfResource) predicateRdf, objectRdf);
   }
   
   public RdfValue getSubject() {
-	return triple == null ? null : triple.getSubject();
+	return subjectRdf;
   }
 
   public String getSubjectString() {
@@ -41,11 +53,11 @@ public class SdClaim {
   }
 
   public String getSubjectValue() {
-    return triple == null ? subject.substring(1, subject.length() - 1) : triple.getSubject().getValue(); 
+    return subjectRdf == null ? termValue(subject) : subjectRdf.getValue(); 
   }
     
   public RdfValue getPredicate() {
-	return triple == null ? null : triple.getPredicate();
+	return predicateRdf;
   }
   
   public String getPredicateString() {
@@ -53,11 +65,11 @@ public class SdClaim {
   }
   
   public String getPredicateValue() {
-	return triple == null ? predicate.substring(1, predicate.length() - 1) : triple.getPredicate().getValue(); 
+	return predicateRdf == null ? termValue(predicate) : predicateRdf.getValue(); 
   }
 	    
   public RdfValue getObject() {
-	return triple == null ? null : triple.getObject();
+	return objectRdf;
   }
   
   public String getObjectString() {
@@ -65,11 +77,11 @@ public class SdClaim {
   }
 
   public String getObjectValue() {
-	return triple == null ? object.substring(1, object.length() - 1) : triple.getObject().getValue(); 
+	return objectRdf == null ? termValue(object) : objectRdf.getValue(); 
   }
 	    
   public String asTriple() {
-    return String.format("%s %s %s . \n", getSubjectString(), getPredicateString(), getObjectString());
+    return subject + " " + predicate + " " + object + " . \n";
   }
   
   @Override
@@ -95,11 +107,16 @@ public class SdClaim {
 	return "SdClaim[" + subject + " " + predicate + " " + object + "]";  
   }
   
-  private String rdf2String(RdfValue rdf) {
+  static String rdf2String(RdfValue rdf) {
     if (rdf.isBlankNode()) return rdf.getValue();
     if (rdf.isLiteral()) return "\"" + rdf.getValue() + "\"";
     // rdf is IRI. here we could try to make it absolute..
     return "<" + rdf.getValue() + ">";
   }
   
+  private static String termValue(String term) {
+    // blank nodes are kept as is, IRIs and literals are enclosed
+    return term.startsWith("_:") ? term : term.substring(1, term.length() - 1);
+  }
+  
 }
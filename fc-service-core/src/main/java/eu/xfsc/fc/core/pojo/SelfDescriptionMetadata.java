@@ -30,13 +30,13 @@ public class SelfDescriptionMetadata extends SelfDescription {
   private ContentAccessor selfDescription;
 
   public SelfDescriptionMetadata(String id, String issuer, List<Validator> validators, ContentAccessor contentAccessor) {
-    super(calculateSha256AsHex(contentAccessor.getContentAsString()), id, SelfDescriptionStatus.ACTIVE, issuer, 
+    super(calculateSha256AsHex(contentAccessor), id, SelfDescriptionStatus.ACTIVE, issuer, 
             validators.stream().map(Validator::getDidURI).collect(Collectors.toList()), Instant.now(), Instant.now());
     this.selfDescription = contentAccessor;
   }
 
   public SelfDescriptionMetadata(ContentAccessor contentAccessor, VerificationResult verificationResult) {
-    super(calculateSha256AsHex(contentAccessor.getContentAsString()), verificationResult.getId(), SelfDescriptionStatus.ACTIVE,
+    super(calculateSha256AsHex(contentAccessor), verificationResult.getId(), SelfDescriptionStatus.ACTIVE,
             verificationResult.getIssuer(), verificationResult.getValidatorDids(), verificationResult.getIssuedDateTime(), 
             verificationResult.getVerificationTimestamp()); //upload, status
     this.selfDescription = contentAccessor;
@@ -19,9 +19,9 @@ public class CacheFileStore implements FileStore {
 
     private Cache<String, String> dataCache;
 	
-    public CacheFileStore(int cacheSize) {
+    public CacheFileStore(String name, int cacheSize) {
         dataCache = Caffeine.newBuilder().initialCapacity(cacheSize).build();
-        log.info("<init>. initialized cached store with size: {}", cacheSize);
+        log.info("<init>. initialized cached store {} with size: {}", name, cacheSize);
     }
     
 	@Override
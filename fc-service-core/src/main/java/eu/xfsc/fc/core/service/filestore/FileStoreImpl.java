@@ -9,10 +9,15 @@ import static eu.xfsc.fc.core.util.HashUtils.HASH_PATTERN;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Value;
@@ -52,10 +57,20 @@ public class FileStoreImpl implements FileStore {
   private int directoryNameLength;
 
   private final String storeName;
+  private final boolean durable;
 
   public FileStoreImpl(String storeName) {
+    this(storeName, false);
+  }
+
+  /**
+   * @param storeName name of the store directory
+   * @param durable if true, files are written to disk before store methods return, and replaced atomically
+   */
+  public FileStoreImpl(String storeName, boolean durable) {
     this.storeName = storeName;
-    log.info("<init>; initialized file store with name: {}", storeName);
+    this.durable = durable;
+    log.info("<init>; initialized file store with name: {}, durable: {}", storeName, durable);
   }
 
   private final Map<String, Path> storePaths = new HashMap<>();
@@ -107,11 +122,32 @@ public class FileStoreImpl implements FileStore {
     if (file.exists() && !overwrite) {
       throw new FileExistsException("A file for the hash " + hash + " already exists.");
     }
+    if (durable) {
+      saveDurable(file, content);
+      return;
+    }
     try ( FileOutputStream os = FileUtils.openOutputStream(file)) {
       IOUtils.copy(content.getContentAsStream(), os);
     }
   }
 
+  private void saveDurable(File file, ContentAccessor content) throws IOException {
+    // written to a temporary file first, so that readers and concurrent writers never see a partial file
+    File temp = new File(file.getParentFile(), file.getName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      try ( FileOutputStream os = FileUtils.openOutputStream(temp)) {
+        IOUtils.copy(content.getContentAsStream(), os);
+        os.getFD().sync();
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+    try ( FileChannel dir = FileChannel.open(file.getParentFile().toPath(), StandardOpenOption.READ)) {
+      dir.force(true);
+    }
+  }
+
   @Override
   public ContentAccessor readFile(String hash) throws IOException {
     File file = getFileForStoreHash(validateFileName(hash));
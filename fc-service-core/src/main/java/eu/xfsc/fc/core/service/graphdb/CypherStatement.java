@@ -0,0 +1,315 @@
+package eu.xfsc.fc.core.service.graphdb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import eu.xfsc.fc.core.util.CacheMetrics;
+
+/**
+ * Clause structure of an openCypher statement, as far as needed to rewrite it for the query API: the position of the
+ * final RETURN clause, its LIMIT and whether the statement orders its results. The statement is scanned once,
+ * keywords in string literals, comments, escaped names, property keys, labels, parameters and nested expressions or
+ * subqueries are not taken as clauses. Scanned statements and their rewritten forms are cached by their normalized
+ * form, so repeated queries are not scanned again, even if their layout differs.
+ */
+public final class CypherStatement {
+
+    private static final String COUNT_CLAUSE = "WITH count(*) AS totalCount ";
+    private static final String COUNT_COLUMN = " totalCount,";
+
+    private static final Cache<String, CypherStatement> STATEMENTS = Caffeine.newBuilder().maximumSize(1000).build();
+    private static final CacheMetrics METRICS = new CacheMetrics("cypher-statement");
+
+    private final String statement;
+    private final int returnStart;
+    private final int returnEnd;
+    private final int returnItems;
+    private final boolean returnAll;
+    private final boolean limited;
+    private final boolean ordered;
+    private final boolean union;
+    private volatile String countStatement;
+
+    /**
+     * Returns the scanned statement, from cache if it was scanned before. The statement is normalized first, the
+     * scanned statement and its rewritten forms are based on the normalized statement.
+     *
+     * @param statement the openCypher statement
+     * @return the scanned statement
+     */
+    public static CypherStatement of(String statement) {
+        String key = normalize(statement);
+        CypherStatement cypher = STATEMENTS.getIfPresent(key);
+        if (cypher == null) {
+            METRICS.miss();
+            cypher = STATEMENTS.get(key, CypherStatement::new);
+        } else {
+            METRICS.hit();
+        }
+        return cypher;
+    }
+
+    /**
+     * Sets the number of scanned statements to cache.
+     *
+     * @param size maximum number of cached statements
+     */
+    static void setCacheSize(long size) {
+        STATEMENTS.policy().eviction().ifPresent(eviction -> eviction.setMaximum(size));
+    }
+
+    private CypherStatement(String statement) {
+        this.statement = statement;
+        List<Token> tokens = new ArrayList<>();
+        int end = scan(statement, tokens);
+        Token lastReturn = null;
+        int returnIndex = -1;
+        boolean union = false;
+        boolean ordered = false;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.depth == 0 && token.is("RETURN")) {
+                lastReturn = token;
+                returnIndex = i;
+            } else if (token.depth == 0 && token.is("UNION")) {
+                union = true;
+            } else if (token.is("ORDER") && i + 1 < tokens.size() && tokens.get(i + 1).is("BY")) {
+                ordered = true;
+            }
+        }
+        this.union = union;
+        this.ordered = ordered;
+        if (lastReturn == null) {
+            this.returnStart = -1;
+            this.returnEnd = -1;
+            this.returnItems = -1;
+            this.returnAll = false;
+            this.limited = false;
+            return;
+        }
+        this.returnStart = lastReturn.start;
+        // the final RETURN clause ends the statement, up to trailing comments and semicolon
+        this.returnEnd = end;
+        int items = lastReturn.end;
+        if (returnIndex + 1 < tokens.size() && tokens.get(returnIndex + 1).is("DISTINCT")) {
+            items = tokens.get(returnIndex + 1).end;
+        }
+        this.returnItems = items;
+        this.returnAll = statement.substring(items).stripLeading().startsWith("*");
+        boolean limited = false;
+        for (int i = returnIndex + 1; i < tokens.size(); i++) {
+            if (tokens.get(i).depth == 0 && tokens.get(i).is("LIMIT")) {
+                limited = true;
+                break;
+            }
+        }
+        this.limited = limited;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return true if the statement returns results, but does not limit them
+     */
+    public boolean isLimitAbsent() {
+        return returnStart >= 0 && !limited;
+    }
+
+    /**
+     * @return true if the statement orders its results somewhere
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Returns the statement limited by a parameter.
+     *
+     * @param parameter name of the parameter holding the limit
+     * @return the statement with a LIMIT clause after its final RETURN clause, or the statement itself if it has no
+     * final RETURN
+     */
+    public String withLimit(String parameter) {
+        if (returnStart < 0) {
+            return statement;
+        }
+        return statement.substring(0, returnEnd) + " limit $" + parameter + statement.substring(returnEnd);
+    }
+
+    /**
+     * Returns the statement which returns the number of all result rows as totalCount column in every row. The rows
+     * reaching the final RETURN clause are counted first, then the statement is run as given.
+     *
+     * @return the counting statement, or the statement itself if it has no final RETURN or is a UNION
+     */
+    public String withTotalCount() {
+        if (returnStart < 0 || union) {
+            return statement;
+        }
+        String count = countStatement;
+        if (count == null) {
+            int capacity = 2 * statement.length() + COUNT_CLAUSE.length() + COUNT_COLUMN.length();
+            StringBuilder sb = new StringBuilder(capacity);
+            sb.append(statement, 0, returnStart).append(COUNT_CLAUSE);
+            if (returnAll) {
+                // totalCount is in scope, RETURN * projects it already
+                sb.append(statement);
+            } else {
+                sb.append(statement, 0, returnItems).append(COUNT_COLUMN)
+                        .append(statement, returnItems, statement.length());
+            }
+            count = sb.toString();
+            countStatement = count;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the statement with leading and trailing whitespace removed and every other run of whitespace collapsed
+     * to a single space. Whitespace in string literals, escaped names and comments is kept, as is the line break
+     * ending a line comment, so statements differing in layout only have the same normalized form.
+     *
+     * @param statement the openCypher statement
+     * @return the normalized statement
+     */
+    static String normalize(String statement) {
+        int length = statement.length();
+        StringBuilder sb = new StringBuilder(length);
+        int i = 0;
+        while (i < length) {
+            char c = statement.charAt(i);
+            int end;
+            if (Character.isWhitespace(c)) {
+                end = i + 1;
+                while (end < length && Character.isWhitespace(statement.charAt(end))) {
+                    end++;
+                }
+                if (sb.length() > 0 && end < length && sb.charAt(sb.length() - 1) != '\n') {
+                    sb.append(' ');
+                }
+                i = end;
+                continue;
+            }
+            if (c == '\'' || c == '"') {
+                end = skipString(statement, i, c);
+            } else if (c == '`') {
+                end = skipEscapedName(statement, i);
+            } else if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '/') {
+                end = statement.indexOf('\n', i);
+                end = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '*') {
+                end = statement.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+            } else {
+                end = i + 1;
+            }
+            sb.append(statement, i, end);
+            i = end;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Scans the statement for keywords.
+     *
+     * @param statement the openCypher statement
+     * @param tokens the list to add the keywords to
+     * @return the end of the statement without trailing whitespace, comments and semicolon
+     */
+    private static int scan(String statement, List<Token> tokens) {
+        int depth = 0;
+        int length = statement.length();
+        int contentEnd = 0;
+        int i = 0;
+        while (i < length) {
+            char c = statement.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = skipString(statement, i, c);
+                contentEnd = i;
+            } else if (c == '`') {
+                i = skipEscapedName(statement, i);
+                contentEnd = i;
+            } else if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '/') {
+                int end = statement.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '*') {
+                int end = statement.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '(' || c == '[' || c == '{') {
+                depth++;
+                contentEnd = ++i;
+            } else if (c == ')' || c == ']' || c == '}') {
+                depth = Math.max(depth - 1, 0);
+                contentEnd = ++i;
+            } else if (Character.isJavaIdentifierStart(c) || Character.isDigit(c)) {
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(statement.charAt(end))) {
+                    end++;
+                }
+                // property keys, labels and parameters are names, not keywords
+                if (!Character.isDigit(c) && !isNamePrefix(statement, i)) {
+                    tokens.add(new Token(statement.substring(i, end), i, end, depth));
+                }
+                i = end;
+                contentEnd = i;
+            } else {
+                i++;
+                if (c != ';' && !Character.isWhitespace(c)) {
+                    contentEnd = i;
+                }
+            }
+        }
+        return contentEnd;
+    }
+
+    private static boolean isNamePrefix(String statement, int start) {
+        int i = start - 1;
+        while (i >= 0 && Character.isWhitespace(statement.charAt(i))) {
+            i--;
+        }
+        return i >= 0 && (statement.charAt(i) == '.' || statement.charAt(i) == ':' || statement.charAt(i) == '$');
+    }
+
+    private static int skipString(String statement, int start, char quote) {
+        int i = start + 1;
+        while (i < statement.length()) {
+            char c = statement.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return statement.length();
+    }
+
+    private static int skipEscapedName(String statement, int start) {
+        int i = start + 1;
+        while (i < statement.length()) {
+            if (statement.charAt(i) == '`') {
+                if (i + 1 < statement.length() && statement.charAt(i + 1) == '`') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return statement.length();
+    }
+
+    private record Token(String text, int start, int end, int depth) {
+
+        boolean is(String keyword) {
+            return text.equalsIgnoreCase(keyword);
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package eu.xfsc.fc.core.service.graphdb;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +31,12 @@ public interface GraphStore {
      */
     void deleteClaims(String credentialSubject);
 
+    /**
+     * Deletes all claims in the Graph DB of the given self-descriptions in one go
+     * @param credentialSubjects contains self-description unique identifiers
+     */
+    void deleteClaims(Collection<String> credentialSubjects);
+
     /**
      * Query the graph when Cypher query is passed in query object and this
      * returns list of Maps with key value pairs as a result.
@@ -9,8 +9,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.driver.Driver;
@@ -21,6 +19,7 @@ import org.neo4j.driver.TransactionContext;
 import org.neo4j.driver.internal.InternalNode;
 import org.neo4j.driver.internal.InternalRelationship;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +30,10 @@ import eu.xfsc.fc.core.pojo.GraphQuery;
 import eu.xfsc.fc.core.pojo.PaginatedResults;
 import eu.xfsc.fc.core.pojo.SdClaim;
 import eu.xfsc.fc.core.util.ClaimValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -43,20 +46,71 @@ public class Neo4jGraphStore implements GraphStore {
                                               "DETACH DELETE n;";
     private static final String queryUpdate = "MATCH (n) WHERE $uri IN n.claimsGraphUri\n" +
                                               "SET n.claimsGraphUri = [g IN n.claimsGraphUri WHERE g <> $uri];";
-    
+    private static final String queryDeleteAll = "MATCH (n) WHERE size(n.claimsGraphUri) > 0 AND all(g IN n.claimsGraphUri WHERE g IN $uris)\n" +
+                                                 "DETACH DELETE n;";
+    private static final String queryUpdateAll = "MATCH (n) WHERE any(g IN n.claimsGraphUri WHERE g IN $uris)\n" +
+                                                 "SET n.claimsGraphUri = [g IN n.claimsGraphUri WHERE NOT g IN $uris];";
+
     @Autowired
     private Driver driver;
+    // the no-op global registry is kept where no registry is configured
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
     private final ClaimValidator claimValidator;
+    private QueryAdmission admission;
+    private Timer timerAdd;
+    private Timer timerDelete;
+    private Timer timerDeleteBatch;
+    private Timer timerQuery;
+    private Timer timerQueryError;
 
-    /* Any appearances of ORDER BY (each word surrounded by any whitespace)
-     * which is not enclosed by quotes
-     */
-    protected final Pattern orderByRegex = Pattern.compile("ORDER\\sBY(?=(?:[^'\"`]*(['\"`])[^'\"`]*\1)*[^'\"`]*$)", Pattern.CASE_INSENSITIVE);
+    @Value("${graphstore.admission.enabled:true}")
+    private boolean admissionEnabled;
+    @Value("${graphstore.admission.max-concurrent:16}")
+    private int maxConcurrent;
+    @Value("${graphstore.admission.max-concurrent-per-client:4}")
+    private int maxConcurrentPerClient;
+    @Value("${graphstore.admission.queue-timeout:2000}")
+    private long queueTimeout;
+    @Value("${graphstore.admission.downgrade-cost:1000000}")
+    private double downgradeCost;
+    @Value("${graphstore.admission.downgrade-timeout:2}")
+    private int downgradeTimeout;
+    @Value("${graphstore.admission.reject-cost:100000000}")
+    private double rejectCost;
+    @Value("${graphstore.admission.cost-cache-size:1000}")
+    private int costCacheSize;
+    @Value("${graphstore.statement-cache-size:1000}")
+    private int statementCacheSize;
 
     public Neo4jGraphStore() {
         super();
         this.claimValidator = new ClaimValidator();
     }
+
+    @PostConstruct
+    public void initMetrics() {
+        timerAdd = graphTimer("add", "success");
+        timerDelete = graphTimer("delete", "success");
+        timerDeleteBatch = graphTimer("deleteBatch", "success");
+        timerQuery = graphTimer("query", "success");
+        timerQueryError = graphTimer("query", "error");
+    }
+
+    private Timer graphTimer(String op, String outcome) {
+        return Timer.builder("fc.graph.operation").tag("op", op).tag("outcome", outcome)
+                .description("Time spent in graph store operations")
+                .publishPercentileHistogram().register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initAdmission() {
+        CypherStatement.setCacheSize(statementCacheSize);
+        if (admissionEnabled) {
+            admission = new QueryAdmission(driver, meterRegistry, maxConcurrent, maxConcurrentPerClient, queueTimeout,
+                    downgradeCost, downgradeTimeout, rejectCost, costCacheSize);
+        }
+    }
     
     /**
      * {@inheritDoc}
@@ -65,6 +119,7 @@ public class Neo4jGraphStore implements GraphStore {
     public void addClaims(List<SdClaim> sdClaimList, String credentialSubject) {
         log.debug("addClaims.enter; got claims: {}, subject: {}", sdClaimList, credentialSubject);
         if (!sdClaimList.isEmpty()) {
+            Timer.Sample sample = Timer.start();
             try (Session session = driver.session()) { 
                 Pair<String, Set<String>> props = claimValidator.resolveClaims(sdClaimList, credentialSubject);
                 if (!props.getRight().isEmpty()) {
@@ -72,6 +127,8 @@ public class Neo4jGraphStore implements GraphStore {
                 }
                 Result rs = session.run(queryInsert, Map.of("payload", props.getLeft()));
                 log.debug("addClaims; inserted: {}", rs.consume());
+            } finally {
+                sample.stop(timerAdd);
             }
         }
         log.debug("addClaims.exit");
@@ -84,11 +141,35 @@ public class Neo4jGraphStore implements GraphStore {
     public void deleteClaims(String credentialSubject) {
         log.debug("deleteClaims.enter; got subject: {}", credentialSubject);
         Map<String, Object> params = Map.of("uri", credentialSubject);
+        Timer.Sample sample = Timer.start();
         try (Session session = driver.session()) {
             Result rsDelelte = session.run(queryDelete, params);
             log.debug("deleteClaims; deleted: {}", rsDelelte.consume());
             Result rsUpdate = session.run(queryUpdate, params);
             log.debug("deleteClaims; updated: {}", rsUpdate.consume());
+        } finally {
+            sample.stop(timerDelete);
+        }
+        log.debug("deleteClaims.exit");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteClaims(Collection<String> credentialSubjects) {
+        log.debug("deleteClaims.enter; got subjects: {}", credentialSubjects.size());
+        if (!credentialSubjects.isEmpty()) {
+            Map<String, Object> params = Map.of("uris", List.copyOf(credentialSubjects));
+            Timer.Sample sample = Timer.start();
+            try (Session session = driver.session()) {
+                Result rsDelete = session.run(queryDeleteAll, params);
+                log.debug("deleteClaims; deleted: {}", rsDelete.consume());
+                Result rsUpdate = session.run(queryUpdateAll, params);
+                log.debug("deleteClaims; updated: {}", rsUpdate.consume());
+            } finally {
+                sample.stop(timerDeleteBatch);
+            }
         }
         log.debug("deleteClaims.exit");
     }
@@ -103,17 +184,27 @@ public class Neo4jGraphStore implements GraphStore {
         if (sdQuery.getQueryLanguage() != QueryLanguage.OPENCYPHER) {
             throw new UnsupportedOperationException(sdQuery.getQueryLanguage() + " query language is not supported yet");
         }
+        if (admission == null) {
+            return runQuery(sdQuery);
+        }
+        try (QueryAdmission.Permit permit = admission.acquire(sdQuery.getClient())) {
+            return runQuery(admission.checkCost(sdQuery, this::getQueryStatement));
+        }
+    }
 
+    private PaginatedResults<Map<String, Object>> runQuery(GraphQuery sdQuery) {
         TransactionConfig transactionConfig = TransactionConfig.builder()
                 .withTimeout(Duration.ofSeconds(sdQuery.getTimeout()))
                 .build();
 
-        long stamp = System.currentTimeMillis();
+        Timer.Sample sample = Timer.start();
         try (Session session = driver.session()) {
             //In this method we use read transaction to avoid any Cypher query that modifies data
-            return session.executeRead(tx -> doQuery(tx, sdQuery), transactionConfig);
+            PaginatedResults<Map<String, Object>> results = session.executeRead(tx -> doQuery(tx, sdQuery), transactionConfig);
+            sample.stop(timerQuery);
+            return results;
         } catch (Exception ex) {
-            stamp = System.currentTimeMillis() - stamp;
+            long stamp = sample.stop(timerQueryError) / 1_000_000;
             log.error("queryData.error: {}", ex.getMessage());
             if (ex.getMessage() != null && ex.getMessage().contains("db.transaction.timeout")) {
                 if (stamp > sdQuery.getTimeout() * 1000) {
@@ -126,7 +217,7 @@ public class Neo4jGraphStore implements GraphStore {
     
     private PaginatedResults<Map<String, Object>> doQuery(TransactionContext tx, GraphQuery query) {
         List<Map<String, Object>> resultList = new ArrayList<>();
-        String finalString = getDynamicallyAddedCountClauseQuery(query);
+        String finalString = getQueryStatement(query);
         Result result = tx.run(finalString, query.getParams());
         log.debug("doQuery; got result: {}", result.keys());
         Long totalCount = 0L;
@@ -158,9 +249,7 @@ public class Neo4jGraphStore implements GraphStore {
         // Shuffle list to guarantee results won't appear in a deterministic order thus giving certain results
         // an advantage over others as they would always be in the top n result entries.
         // However, the shuffling should only be performed if the query does not, by itself, return an ordered result.
-        Matcher matcher = orderByRegex.matcher(query.getQuery());
-        boolean queryProvidesOrderedResult = matcher.find();
-        if (!queryProvidesOrderedResult) {
+        if (!CypherStatement.of(query.getQuery()).isOrdered()) {
             Collections.shuffle(resultList);
         }
 
@@ -193,38 +282,13 @@ public class Neo4jGraphStore implements GraphStore {
         }
     }
 
-    private String getDynamicallyAddedCountClauseQuery(GraphQuery sdQuery) {
+    private String getQueryStatement(GraphQuery sdQuery) {
         if (sdQuery.isWithTotalCount()) {
-            log.debug("getDynamicallyAddedCountClauseQuery.enter; actual query: {}", sdQuery.getQuery());
-            /*get string before statements and append count clause*/
-            String statement = "return";
-
-            String queryStatementLowerCase = sdQuery.getQuery().toLowerCase();
-            int indexOf = queryStatementLowerCase.lastIndexOf(statement);
-
-            if (indexOf == -1) {
-                // no need for count if no return
-                return sdQuery.getQuery();
-            }
-
-            /*add totalCount to query to get count*/
-            StringBuffer subStringOfCount = new StringBuffer(sdQuery.getQuery().substring(0, indexOf));
-            subStringOfCount.append("WITH count(*) as totalCount ");
-
-            /*append totalCount to return statements*/
-            StringBuffer actualQuery = new StringBuffer(sdQuery.getQuery());
-            int indexOfAfter = actualQuery.toString().toLowerCase().lastIndexOf(statement) + statement.length();
-
-            if (queryStatementLowerCase.lastIndexOf("return *") == -1) {
-                actualQuery.insert(indexOfAfter + 1, "totalCount, ");
-            }
-            /*finally combine both string */
-            String finalString = subStringOfCount.append(actualQuery).toString();
-            log.debug("getDynamicallyAddedCountClauseQuery.exit; count query appended : {}", finalString);
-            return finalString;
+            String statement = CypherStatement.of(sdQuery.getQuery()).withTotalCount();
+            log.debug("getQueryStatement; count query appended: {}", statement);
+            return statement;
         }
         return sdQuery.getQuery();
     }
 
-
 }
@@ -0,0 +1,231 @@
+package eu.xfsc.fc.core.service.graphdb;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.summary.Plan;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import eu.xfsc.fc.core.exception.ClientException;
+import eu.xfsc.fc.core.exception.TooManyRequestsException;
+import eu.xfsc.fc.core.pojo.GraphQuery;
+import eu.xfsc.fc.core.util.CacheMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for graph queries. The cost of a query is estimated with EXPLAIN as the largest number of rows
+ * an operator of its plan is expected to produce, estimations are cached per normalized statement. Queries above the
+ * downgrade cost run without total count and with a shortened timeout, queries still above the reject cost are
+ * refused. Admitted queries wait in a fair queue for one of the global slots, and every client can hold or wait for
+ * a few slots only, so that some clients running heavy queries can not starve the others. The cost is checked in the
+ * slot of the query, so the EXPLAINs of statements not in the cost cache are limited the same way.
+ */
+@Slf4j
+public class QueryAdmission {
+
+    private static final String ESTIMATED_ROWS = "EstimatedRows";
+
+    private final Driver driver;
+    private final Semaphore globalSlots;
+    private final int clientSlots;
+    private final long queueTimeout;
+    private final double downgradeCost;
+    private final int downgradeTimeout;
+    private final double rejectCost;
+    private final Cache<String, Double> costs;
+    private final Cache<String, Semaphore> clients;
+    private final CacheMetrics costMetrics;
+    private final Timer timerAdmitted;
+    private final Timer timerRejected;
+    private final Counter rejectedQueue;
+    private final Counter rejectedCost;
+    private final Counter downgraded;
+
+    /**
+     * @param driver driver to explain queries with
+     * @param meterRegistry registry to register the admission meters on
+     * @param maxConcurrent number of queries running at once
+     * @param maxConcurrentPerClient number of queries one client can run or wait for at once
+     * @param queueTimeout ms a query waits for admission before it is rejected
+     * @param downgradeCost estimated rows from which on queries are downgraded
+     * @param downgradeTimeout timeout in seconds of downgraded queries
+     * @param rejectCost estimated rows from which on queries are rejected
+     * @param costCacheSize number of statements to keep the estimated cost of
+     */
+    public QueryAdmission(Driver driver, MeterRegistry meterRegistry, int maxConcurrent, int maxConcurrentPerClient,
+            long queueTimeout, double downgradeCost, int downgradeTimeout, double rejectCost, int costCacheSize) {
+        this.driver = driver;
+        this.globalSlots = new Semaphore(maxConcurrent, true);
+        this.clientSlots = maxConcurrentPerClient;
+        this.queueTimeout = queueTimeout;
+        this.downgradeCost = downgradeCost;
+        this.downgradeTimeout = downgradeTimeout;
+        this.rejectCost = rejectCost;
+        this.costs = Caffeine.newBuilder().maximumSize(costCacheSize).build();
+        // a slot is held for the query timeout at most, so idle clients can be dropped long before
+        this.clients = Caffeine.newBuilder().expireAfterAccess(Duration.ofMinutes(10)).build();
+        this.costMetrics = new CacheMetrics(meterRegistry, "cypher-cost");
+        this.timerAdmitted = queueTimer(meterRegistry, "admitted");
+        this.timerRejected = queueTimer(meterRegistry, "rejected");
+        this.rejectedQueue = rejectedCounter(meterRegistry, "queue");
+        this.rejectedCost = rejectedCounter(meterRegistry, "cost");
+        this.downgraded = Counter.builder("fc.graph.admission.downgraded")
+                .description("Queries run without total count or with shortened timeout because of their cost")
+                .register(meterRegistry);
+        Gauge.builder("fc.graph.admission.waiting", globalSlots, Semaphore::getQueueLength)
+                .description("Queries waiting for a global slot").register(meterRegistry);
+        log.info("<init>; admitting {} queries, {} per client, downgrade cost: {}, reject cost: {}",
+                maxConcurrent, maxConcurrentPerClient, downgradeCost, rejectCost);
+    }
+
+    private static Timer queueTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("fc.graph.admission.queue").tag("outcome", outcome)
+                .description("Time queries wait for admission")
+                .publishPercentileHistogram().register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("fc.graph.admission.rejected").tag("reason", reason)
+                .description("Queries not admitted").register(meterRegistry);
+    }
+
+    /**
+     * Checks the estimated cost of the query. Statements not in the cost cache are explained on the database, so the
+     * check is done with the permit of the query held.
+     *
+     * @param query the query to check
+     * @param statement creates the statement the query is run with
+     * @return the query itself, or the downgraded query if it is too expensive to run as requested
+     * @throws ClientException if the query is too expensive to run at all
+     */
+    public GraphQuery checkCost(GraphQuery query, Function<GraphQuery, String> statement) {
+        double cost = estimateCost(statement.apply(query), query.getParams());
+        if (cost <= downgradeCost) {
+            return query;
+        }
+        if (query.isWithTotalCount()) {
+            // counting evaluates the full match, the page alone may be cheap
+            cost = estimateCost(statement.apply(new GraphQuery(query.getQuery(), query.getParams(), query.getQueryLanguage(),
+                    query.getTimeout(), false, query.getClient())), query.getParams());
+            if (cost <= downgradeCost) {
+                return downgrade(query, cost, query.getTimeout());
+            }
+        }
+        if (cost > rejectCost) {
+            rejectedCost.increment();
+            log.info("checkCost; rejecting query of client {} with estimated cost: {}", query.getClient(), cost);
+            throw new ClientException("Query is too expensive, estimated " + (long) cost + " rows exceed the limit of "
+                    + (long) rejectCost + ". Please narrow the pattern or add a limit.");
+        }
+        return downgrade(query, cost, Math.min(query.getTimeout(), downgradeTimeout));
+    }
+
+    private GraphQuery downgrade(GraphQuery query, double cost, int timeout) {
+        downgraded.increment();
+        log.debug("checkCost; downgrading query with estimated cost: {}, timeout: {}", cost, timeout);
+        return new GraphQuery(query.getQuery(), query.getParams(), query.getQueryLanguage(), timeout, false,
+                query.getClient());
+    }
+
+    /**
+     * Waits for a slot to run a query in.
+     *
+     * @param client the client running the query, not limited per client if null
+     * @return the permit to close when the query is done
+     * @throws TooManyRequestsException if no slot got free in time
+     */
+    public Permit acquire(String client) {
+        long start = System.nanoTime();
+        Semaphore clientSlot = client == null ? null : clients.get(client, c -> new Semaphore(clientSlots, true));
+        boolean clientAcquired = false;
+        try {
+            clientAcquired = clientSlot == null || clientSlot.tryAcquire(queueTimeout, TimeUnit.MILLISECONDS);
+            if (clientAcquired) {
+                long left = queueTimeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (globalSlots.tryAcquire(Math.max(left, 0), TimeUnit.MILLISECONDS)) {
+                    timerAdmitted.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return new Permit(clientSlot);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (clientAcquired && clientSlot != null) {
+            clientSlot.release();
+        }
+        timerRejected.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        rejectedQueue.increment();
+        log.info("acquire; rejecting query of client {}, {} queries waiting", client, globalSlots.getQueueLength());
+        throw new TooManyRequestsException("Too many queries running, please retry later.");
+    }
+
+    double estimateCost(String statement, Map<String, Object> params) {
+        String key = CypherStatement.normalize(statement);
+        Double cost = costs.getIfPresent(key);
+        if (cost != null) {
+            costMetrics.hit();
+            return cost;
+        }
+        costMetrics.miss();
+        try (Session session = driver.session()) {
+            Plan plan = session.executeRead(tx -> tx.run("EXPLAIN " + statement, params == null ? Map.of() : params).consume().plan());
+            cost = maxEstimatedRows(plan);
+        } catch (RuntimeException ex) {
+            // the query fails with the same error when it is run, the error is reported to the client then
+            log.debug("estimateCost; cannot explain statement: {}", ex.getMessage());
+            return 0;
+        }
+        log.debug("estimateCost; estimated {} rows for statement: {}", cost, key);
+        costs.put(key, cost);
+        return cost;
+    }
+
+    private static double maxEstimatedRows(Plan plan) {
+        double rows = 0;
+        Value value = plan.arguments().get(ESTIMATED_ROWS);
+        if (value != null && !value.isNull()) {
+            rows = value.asDouble();
+        }
+        for (Plan child: plan.children()) {
+            rows = Math.max(rows, maxEstimatedRows(child));
+        }
+        return rows;
+    }
+
+    /**
+     * Slot of an admitted query.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final Semaphore clientSlot;
+        private boolean released;
+
+        private Permit(Semaphore clientSlot) {
+            this.clientSlot = clientSlot;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                globalSlots.release();
+                if (clientSlot != null) {
+                    clientSlot.release();
+                }
+            }
+        }
+    }
+
+}
@@ -1,18 +1,43 @@
 package eu.xfsc.fc.core.service.pubsub;
 
+import java.io.IOException;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.keycloak.OAuth2Constants;
+import org.keycloak.admin.client.KeycloakBuilder;
+import org.keycloak.admin.client.token.TokenManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import eu.xfsc.fc.api.generated.model.SelfDescription;
+import eu.xfsc.fc.api.generated.model.SelfDescriptionExport;
 import eu.xfsc.fc.api.generated.model.SelfDescriptionResult;
 import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
 import eu.xfsc.fc.client.SelfDescriptionClient;
+import eu.xfsc.fc.core.exception.ClientException;
+import eu.xfsc.fc.core.exception.ConflictException;
 import eu.xfsc.fc.core.pojo.ContentAccessor;
 import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
 import eu.xfsc.fc.core.pojo.SelfDescriptionMetadata;
@@ -20,13 +45,24 @@ import eu.xfsc.fc.core.pojo.VerificationResult;
 import eu.xfsc.fc.core.service.pubsub.SDPublisher.SDEvent;
 import eu.xfsc.fc.core.service.sdstore.SelfDescriptionStore;
 import eu.xfsc.fc.core.service.verification.VerificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
+/**
+ * Applies SD events received from peer instances to the local store. A subscriber may load a snapshot of the
+ * peer's SDs before it subscribes; this is done in the background, and as an {@link ApplicationRunner} the
+ * subscriber waits for it, so the instance is live while the snapshot loads, but reported ready only afterwards.
+ */
 @Slf4j
-public abstract class BaseSDSubscriber implements SDSubscriber {
+public abstract class BaseSDSubscriber implements SDSubscriber, ApplicationRunner {
 
 	private static final TypeReference<HashMap<String, Object>> mapTypeRef = new TypeReference<HashMap<String, Object>>() {};
+	private static final SDPayloadCodec codec = new SDPayloadCodec(-1);
+	private static final String SNAPSHOT_THREAD_NAME = "sdSnapshotLoader";
 		
     @Value("${subscriber.instance}")
     protected String instance;
@@ -37,47 +73,133 @@ public abstract class BaseSDSubscriber implements SDSubscriber {
     @Autowired 
 	protected ObjectMapper jsonMapper;
 
-	protected Map<String, SelfDescriptionClient> sdClients = new HashMap<>();
+	/**
+	 * Verify schema and signatures of SDs loaded from a peer snapshot; claims are extracted always.
+	 */
+    @Value("${subscriber.bootstrap.verify:true}")
+    protected boolean verifySnapshot;
+    @Value("${subscriber.bootstrap.batch-size:1000}")
+    protected int snapshotBatchSize;
+    @Value("${subscriber.bootstrap.worker-count:8}")
+    protected int snapshotWorkerCount;
+    @Value("${subscriber.bootstrap.timeout:3600000}")
+    protected long snapshotTimeout;
+	/**
+	 * The number of snapshot SDs which may fail verification or storing, the snapshot is incomplete when more fail.
+	 */
+    @Value("${subscriber.bootstrap.max-failures:0}")
+    protected int snapshotMaxFailures;
+
+	/**
+	 * Client credentials to read SDs from peer instances with, the own Keycloak client by default.
+	 */
+    @Value("${subscriber.auth.server-url:${keycloak.auth-server-url:}}")
+    private String authServerUrl;
+    @Value("${subscriber.auth.realm:${keycloak.realm:}}")
+    private String authRealm;
+    @Value("${subscriber.auth.client-id:${keycloak.resource:}}")
+    private String authClientId;
+    @Value("${subscriber.auth.client-secret:${keycloak.credentials.secret:}}")
+    private String authClientSecret;
+
+	protected Map<String, SelfDescriptionClient> sdClients = new ConcurrentHashMap<>();
+	/**
+	 * Completed when the subscription is started, after the snapshot is loaded if there is one to load.
+	 */
+	protected final CompletableFuture<Void> subscribed = new CompletableFuture<>();
+	private TokenManager tokenManager;
+	// the no-op global registry is kept where no registry is configured
+    @Autowired(required = false)
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+	private final Map<SDEvent, Timer> consumeTimers = new EnumMap<>(SDEvent.class);
     
     @PostConstruct
     public void init() throws Exception {
+    	initMetrics();
+    	if (authServerUrl.isBlank()) {
+    		log.warn("init; no client credentials configured, peer instances will be called without token");
+    	} else {
+    		tokenManager = KeycloakBuilder.builder().serverUrl(authServerUrl).realm(authRealm)
+    				.grantType(OAuth2Constants.CLIENT_CREDENTIALS).clientId(authClientId).clientSecret(authClientSecret)
+    				.build().tokenManager();
+    	}
     	subscribe();
     }
+
+	private void initMetrics() {
+		for (SDEvent event: SDEvent.values()) {
+			consumeTimers.put(event, Timer.builder("fc.pubsub.consume").tag("event", event.name())
+					.description("Time spent processing a received SD event")
+					.publishPercentileHistogram().register(meterRegistry));
+		}
+	}
+
+	/**
+	 * Waits for the subscription to start. Application runners complete before Spring Boot reports the readiness
+	 * state as ACCEPTING_TRAFFIC, so the readiness probe stays down until the snapshot is loaded.
+	 */
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		try {
+			subscribed.get();
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException("subscription to SD events failed", ex.getCause());
+		}
+	}
 	
+	/**
+	 * Applies the event to the local store.
+	 *
+	 * @param params headers, hash and payload of the event
+	 * @throws ClientException if the event can not be read, it will not become readable when delivered again
+	 */
 	@Override
 	public void onMessage(Map<String, Object> params) {
 		log.debug("onMessage.enter; got params: {}", params);
-		SDEvent event = SDEvent.valueOf((String) params.get("event"));
-		String hash = (String) params.get("hash");
+		SDEvent event = getEnum(SDEvent.class, params, "event");
+		Timer.Sample sample = Timer.start();
+		try {
+			processMessage(event, (String) params.get("hash"), params);
+		} finally {
+			sample.stop(consumeTimers.get(event));
+		}
+	}
+	
+	private void processMessage(SDEvent event, String hash, Map<String, Object> params) {
 		switch (event) {
 			case ADD:
 				try {
 					VerificationResult vr;
 					SelfDescriptionMetadata sdMeta;
-					String dataStr = (String) params.get("data");
-					if (dataStr == null) {
+					byte[] data = (byte[]) params.get("data");
+					if (data == null) {
 						// get it by hash from other instance, then register locally.. may be do it in separate working queue?
 						String source = (String) params.get("source");
-						SelfDescriptionClient sdClient = sdClients.computeIfAbsent(source, src -> new SelfDescriptionClient(src, (String) null));
-						SelfDescriptionResult sd = sdClient.getSelfDescriptionByHash(hash, false, true);
+						SelfDescriptionResult sd = getSDClient(source).getSelfDescriptionByHash(hash, false, true);
 						ContentAccessor content = new ContentAccessorDirect(sd.getContent());
 						// how to get proper VR class?
 				        vr = verificationService.verifyOfferingSelfDescription(content);
 					    sdMeta = new SelfDescriptionMetadata(vr.getId(), vr.getIssuer(), vr.getValidators(), content);
+					} else if (SDPayloadCodec.isBinary(data)) {
+						// claims were extracted and verified by the source instance already
+						SDReplicationPayload payload = codec.decode(data);
+						vr = payload.toVerificationResult();
+					    sdMeta = new SelfDescriptionMetadata(new ContentAccessorDirect(payload.getContent()), vr); 
 					} else {
-						Map<String, Object> data = jsonMapper.readValue((String) params.get("data"), mapTypeRef);
-					    String vrs = (String) data.get("verificationResult");;
+						Map<String, Object> dataMap = jsonMapper.readValue(data, mapTypeRef);
+					    String vrs = (String) dataMap.get("verificationResult");;
 					    vr = jsonMapper.readValue(vrs, VerificationResult.class);
-					    String content = (String) data.get("content");
+					    String content = (String) dataMap.get("content");
 					    sdMeta = new SelfDescriptionMetadata(new ContentAccessorDirect(content), vr); 
 					}
 					sdStore.storeSelfDescription(sdMeta, vr);
-			    } catch (JsonProcessingException ex) {
-			    	log.warn("onMessage.error", ex);
+			    } catch (IOException ex) {
+			    	// the payload is malformed, redelivery will not help
+			    	throw new ClientException("can not read SD " + hash + ": " + ex.getMessage(), ex);
 			    }
 				break;
 			case UPDATE:
-				sdStore.changeLifeCycleStatus(hash, SelfDescriptionStatus.valueOf((String) params.get("status")));
+				sdStore.changeLifeCycleStatus(hash, getEnum(SelfDescriptionStatus.class, params, "status"));
 				break;
 			case DELETE:
 				sdStore.deleteSelfDescription(hash);
@@ -85,6 +207,111 @@ public abstract class BaseSDSubscriber implements SDSubscriber {
 		}
 	}
 	
+	private static <E extends Enum<E>> E getEnum(Class<E> type, Map<String, Object> params, String header) {
+		Object value = params.get(header);
+		if (value == null) {
+			throw new ClientException("SD event without " + header + " header");
+		}
+		try {
+			return Enum.valueOf(type, value.toString());
+		} catch (IllegalArgumentException ex) {
+			throw new ClientException("unknown SD event " + header + ": " + value);
+		}
+	}
+	
+	/**
+	 * Loads all active SDs from the given peer instance, page by page. SDs of every page are verified
+	 * and stored in parallel, the next page is requested when the current one is submitted. SDs stored
+	 * already are counted as loaded, so an interrupted snapshot can be loaded again.
+	 *
+	 * @param source URL of the peer instance
+	 * @return number of loaded SDs
+	 * @throws IllegalStateException if the snapshot was not loaded in time or more SDs than allowed failed
+	 */
+	protected int loadSnapshot(String source) throws InterruptedException {
+		log.info("loadSnapshot.enter; loading SDs from {}", source);
+		SelfDescriptionClient sdClient = getSDClient(source);
+		ThreadFactory factory = new BasicThreadFactory.Builder().namingPattern(SNAPSHOT_THREAD_NAME + "-%d").build();
+		// bounded queue with caller-runs policy throttles page fetching to ingest speed
+		ExecutorService executor = new ThreadPoolExecutor(snapshotWorkerCount, snapshotWorkerCount, 0L, TimeUnit.MILLISECONDS, 
+				new ArrayBlockingQueue<>(snapshotBatchSize), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+		AtomicInteger count = new AtomicInteger();
+		Queue<String> failed = new ConcurrentLinkedQueue<>();
+		String afterHash = null;
+		boolean terminated = false;
+		try {
+			do {
+				SelfDescriptionExport page = sdClient.exportSelfDescriptions(afterHash, snapshotBatchSize);
+				for (SelfDescriptionResult sd: page.getItems()) {
+					executor.execute(() -> {
+						if (storeSnapshotSD(sd)) {
+							count.incrementAndGet();
+						} else {
+							failed.add(sd.getMeta().getSdHash());
+						}
+					});
+				}
+				afterHash = page.getLastHash();
+				log.debug("loadSnapshot; submitted {} SDs, last hash: {}", page.getItems().size(), afterHash);
+			} while (afterHash != null);
+		} finally {
+			executor.shutdown();
+			terminated = executor.awaitTermination(snapshotTimeout, TimeUnit.MILLISECONDS);
+			if (!terminated) {
+				executor.shutdownNow();
+			}
+		}
+		if (!terminated) {
+			throw new IllegalStateException("snapshot from " + source + " not loaded within " + snapshotTimeout + " ms, "
+					+ count.get() + " SDs loaded");
+		}
+		if (!failed.isEmpty()) {
+			log.error("loadSnapshot; {} SDs from {} not stored: {}", failed.size(), source, failed);
+			if (failed.size() > snapshotMaxFailures) {
+				throw new IllegalStateException("snapshot from " + source + " is incomplete, " + failed.size() 
+						+ " SDs not stored, " + count.get() + " SDs loaded");
+			}
+		}
+		log.info("loadSnapshot.exit; loaded {} SDs from {}", count.get(), source);
+		return count.get();
+	}
+	
+	private boolean storeSnapshotSD(SelfDescriptionResult sd) {
+		SelfDescription meta = sd.getMeta();
+		try {
+			ContentAccessor content = new ContentAccessorDirect(sd.getContent());
+			VerificationResult vr = verificationService.verifySelfDescription(content, true, verifySnapshot, verifySnapshot);
+			SelfDescriptionMetadata sdMeta = new SelfDescriptionMetadata(meta.getSdHash(), meta.getId(), SelfDescriptionStatus.ACTIVE, 
+					meta.getIssuer(), meta.getValidatorDids(), meta.getUploadDatetime(), meta.getStatusDatetime(), content);
+			sdStore.storeSelfDescription(sdMeta, vr);
+			return true;
+		} catch (ConflictException ex) {
+			log.debug("storeSnapshotSD; SD {} is stored already", meta.getSdHash());
+			return true;
+		} catch (Exception ex) {
+			log.warn("storeSnapshotSD; can not store SD {}: {}", meta.getSdHash(), ex.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the client for the peer instance, its requests carry a token of the configured client.
+	 *
+	 * @param source URL of the peer instance
+	 * @return the client
+	 */
+	protected SelfDescriptionClient getSDClient(String source) {
+		return sdClients.computeIfAbsent(source, src -> {
+			WebClient.Builder builder = WebClient.builder().baseUrl(src);
+			if (tokenManager != null) {
+				// the token manager refreshes expired tokens, a snapshot may take longer than one token is valid
+				builder.filter(ExchangeFilterFunction.ofRequestProcessor(request -> Mono.fromCallable(() -> 
+						ClientRequest.from(request).headers(h -> h.setBearerAuth(tokenManager.getAccessTokenString())).build())));
+			}
+			return new SelfDescriptionClient(src, builder.build());
+		});
+	}
+	
     protected abstract void subscribe() throws Exception;
 	
 }
@@ -0,0 +1,87 @@
+package eu.xfsc.fc.core.service.pubsub;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.dao.SDOutboxDao;
+import eu.xfsc.fc.core.exception.ServerException;
+import eu.xfsc.fc.core.pojo.SelfDescriptionMetadata;
+import eu.xfsc.fc.core.pojo.VerificationResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores SD events in the outbox table, in the same transaction as the related
+ * self-description change. Events are sent to the messaging system asynchronously, by the outbox relay.
+ */
+@Slf4j
+public class OutboxSDPublisherImpl implements SDPublisher {
+
+    @Value("${publisher.send-content}")
+    private boolean sendContent;
+    /**
+     * json: legacy JSON content, cbor: binary {@link SDPayloadCodec} format, carrying extracted claims as well.
+     * Subscribers of older versions can read json only, so switch to cbor once all subscribing instances are updated.
+     */
+    @Value("${publisher.payload-format:json}")
+    private String payloadFormat;
+    @Value("${publisher.compress-threshold:4096}")
+    private int compressThreshold;
+    
+    private SDPayloadCodec codec;
+
+	@Autowired
+	private SDOutboxDao dao;
+	@Autowired
+	private ObjectMapper jsonMapper;
+
+	@PostConstruct
+	public void init() {
+		codec = new SDPayloadCodec(compressThreshold);
+	}
+
+	@Override
+	public boolean publish(SelfDescriptionMetadata sd, VerificationResult verificationResult) {
+		log.debug("publish. sd: {}", sd);
+		byte[] payload = null;
+		if (sendContent) {
+			try {
+				if ("json".equals(payloadFormat)) {
+				    Map<String, Object> data = Map.of("content", sd.getSelfDescription().getContentAsString(), 
+					    "verificationResult", jsonMapper.writeValueAsString(verificationResult));
+				    payload = jsonMapper.writeValueAsBytes(data);
+				} else {
+					payload = codec.encode(new SDReplicationPayload(sd.getSelfDescription().getContentAsString(), verificationResult));
+				}
+			} catch (IOException ex) {
+				log.error("publish.error", ex);
+				throw new ServerException(ex);
+			}
+		}
+		dao.insert(List.of(new SDEventRecord(null, sd.getSdHash(), SDEvent.ADD, sd.getStatus(), payload)));
+		return true;
+	}
+
+	@Override
+	public boolean publish(String hash, SDEvent event, SelfDescriptionStatus status) {
+		log.debug("publish. hash: {}, event: {}, status: {}", hash, event, status);
+		dao.insert(List.of(new SDEventRecord(null, hash, event, status, null)));
+		return true;
+	}
+
+	@Override
+	public boolean publish(Collection<String> hashes, SDEvent event, SelfDescriptionStatus status) {
+		log.debug("publish. hashes: {}, event: {}, status: {}", hashes.size(), event, status);
+		dao.insert(hashes.stream().map(hash -> new SDEventRecord(null, hash, event, status, null)).toList());
+		return true;
+	}
+
+}
@@ -0,0 +1,8 @@
+package eu.xfsc.fc.core.service.pubsub;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.service.pubsub.SDPublisher.SDEvent;
+
+public record SDEventRecord(Long id, String sdHash, SDEvent event, SelfDescriptionStatus status, byte[] payload) {
+
+}
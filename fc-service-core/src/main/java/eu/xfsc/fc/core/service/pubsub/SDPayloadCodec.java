@@ -0,0 +1,74 @@
+package eu.xfsc.fc.core.service.pubsub;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Binary format of replicated self-descriptions. Every message starts with a three bytes header:
+ * <pre>0xFC, format version, flags</pre>
+ * followed by the CBOR encoded {@link SDReplicationPayload}, deflated when the {@link #FLAG_DEFLATE} flag is set.
+ * Messages not starting with the marker byte are considered to be in the legacy JSON format.
+ */
+public class SDPayloadCodec {
+	
+	public static final byte MARKER = (byte) 0xFC;
+	public static final byte VERSION = 1;
+	public static final byte FLAG_DEFLATE = 1;
+	private static final int HEADER_SIZE = 3;
+	
+	private final ObjectMapper cborMapper = CBORMapper.builder().addModule(new JavaTimeModule()).build();
+	private final int compressThreshold;
+	
+	/**
+	 * @param compressThreshold encoded payloads bigger than this number of bytes are compressed, negative value disables compression
+	 */
+	public SDPayloadCodec(int compressThreshold) {
+		this.compressThreshold = compressThreshold;
+	}
+	
+	public byte[] encode(SDReplicationPayload payload) throws IOException {
+		byte[] data = cborMapper.writeValueAsBytes(payload);
+		boolean deflate = compressThreshold >= 0 && data.length > compressThreshold;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(deflate ? data.length / 2 : data.length + HEADER_SIZE);
+		out.write(MARKER);
+		out.write(VERSION);
+		out.write(deflate ? FLAG_DEFLATE : 0);
+		if (deflate) {
+			try (DeflaterOutputStream dos = new DeflaterOutputStream(out)) {
+				dos.write(data);
+			}
+		} else {
+			out.write(data);
+		}
+		return out.toByteArray();
+	}
+	
+	public static boolean isBinary(byte[] data) {
+		return data != null && data.length > HEADER_SIZE && data[0] == MARKER;
+	}
+	
+	public SDReplicationPayload decode(byte[] data) throws IOException {
+		if (!isBinary(data)) {
+			throw new IOException("not a binary SD payload");
+		}
+		if (data[1] > VERSION) {
+			throw new IOException("unsupported SD payload version: " + data[1]);
+		}
+		InputStream in = new ByteArrayInputStream(data, HEADER_SIZE, data.length - HEADER_SIZE);
+		if ((data[2] & FLAG_DEFLATE) != 0) {
+			in = new InflaterInputStream(in);
+		}
+		try (InputStream is = in) {
+			return cborMapper.readValue(is, SDReplicationPayload.class);
+		}
+	}
+
+}
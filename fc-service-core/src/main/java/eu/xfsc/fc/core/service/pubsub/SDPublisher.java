@@ -1,5 +1,7 @@
 package eu.xfsc.fc.core.service.pubsub;
 
+import java.util.Collection;
+
 import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
 import eu.xfsc.fc.core.pojo.SelfDescriptionMetadata;
 import eu.xfsc.fc.core.pojo.VerificationResult;
@@ -10,5 +12,6 @@ public interface SDPublisher {
 	
 	boolean publish(SelfDescriptionMetadata sd, VerificationResult verificationResult);
 	boolean publish(String hash, SDEvent event, SelfDescriptionStatus status);
+	boolean publish(Collection<String> hashes, SDEvent event, SelfDescriptionStatus status);
 
 }
@@ -0,0 +1,67 @@
+package eu.xfsc.fc.core.service.pubsub;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.xfsc.fc.core.pojo.ClaimSet;
+import eu.xfsc.fc.core.pojo.SdClaim;
+import eu.xfsc.fc.core.pojo.Validator;
+import eu.xfsc.fc.core.pojo.VerificationResult;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Content of a replicated self-description together with the results of its verification,
+ * including extracted claims, so it can be stored by peers without repeating the verification.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SDReplicationPayload {
+
+	private String content;
+	private String id;
+	private String issuer;
+	private String lifecycleStatus;
+	private Instant verificationTimestamp;
+	private Instant issuedDateTime;
+	private List<Validator> validators;
+	/**
+	 * claims flattened to subject, predicate, object triples of N-Triples terms.
+	 */
+	private List<String> claims;
+	
+	public SDReplicationPayload(String content, VerificationResult verificationResult) {
+		this.content = content;
+		this.id = verificationResult.getId();
+		this.issuer = verificationResult.getIssuer();
+		this.lifecycleStatus = verificationResult.getLifecycleStatus();
+		this.verificationTimestamp = verificationResult.getVerificationTimestamp();
+		this.issuedDateTime = verificationResult.getIssuedDateTime();
+		this.validators = verificationResult.getValidators();
+		List<SdClaim> sdClaims = verificationResult.getClaims();
+		if (sdClaims != null) {
+			ClaimSet claimSet = ClaimSet.of(sdClaims);
+			this.claims = new ArrayList<>(claimSet.size() * 3);
+			for (int i = 0; i < claimSet.size(); i++) {
+				claims.add(claimSet.getTerm(claimSet.getSubjectId(i)));
+				claims.add(claimSet.getTerm(claimSet.getPredicateId(i)));
+				claims.add(claimSet.getTerm(claimSet.getObjectId(i)));
+			}
+		}
+	}
+	
+	public VerificationResult toVerificationResult() {
+		ClaimSet sdClaims = null;
+		if (claims != null) {
+			sdClaims = new ClaimSet(claims.size() / 3);
+			for (int i = 0; i + 2 < claims.size(); i += 3) {
+				sdClaims.add(claims.get(i), claims.get(i + 1), claims.get(i + 2));
+			}
+		}
+		return new VerificationResult(verificationTimestamp, lifecycleStatus, issuer, issuedDateTime, id, sdClaims, validators);
+	}
+
+}
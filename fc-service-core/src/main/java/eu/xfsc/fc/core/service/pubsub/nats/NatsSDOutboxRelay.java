@@ -0,0 +1,164 @@
+package eu.xfsc.fc.core.service.pubsub.nats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import eu.xfsc.fc.core.dao.SDOutboxDao;
+import eu.xfsc.fc.core.service.pubsub.SDEventRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.nats.client.Connection;
+import io.nats.client.JetStream;
+import io.nats.client.PublishOptions;
+import io.nats.client.api.PublishAck;
+import io.nats.client.impl.Headers;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains the SD events outbox to NATS JetStream. Events are published in batches without waiting for
+ * every single ack, acknowledged events are removed from the outbox, failed ones are retried later.
+ * Only the oldest pending event of a self-description is sent per batch, so the order of events is
+ * kept per subject. Events are claimed for a lease of twice the batch timeout before they are sent,
+ * so several instances can relay the same outbox without publishing an event more than once.
+ */
+@Slf4j
+public class NatsSDOutboxRelay {
+
+	private static final String RELAY_THREAD_NAME = "sdOutboxRelay";
+	
+    @Value("${publisher.instance}")
+    private String instance;
+    @Value("${publisher.subject}")
+    private String subject;
+    @Value("${publisher.batch-size:100}")
+    private int batchSize;
+    @Value("${publisher.batch-timeout:30000}")
+    private long batchTimeout;
+    @Value("${publisher.sleeptime:100}")
+    private long sleepTime;
+    @Value("${publisher.retry-delay:1000}")
+    private long retryDelay;
+	
+	@Autowired
+	private Connection pubConnection;
+	@Autowired
+	private SDOutboxDao dao;
+	// the no-op global registry is kept where no registry is configured
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+	
+	private Thread relayThread;
+	private final AtomicBoolean shutdown = new AtomicBoolean(false);
+	private Timer timerPublish;
+	private Counter counterAcked;
+	private Counter counterFailed;
+
+	@PostConstruct
+	public void start() {
+		initMetrics();
+		relayThread = new Thread(this::relay, RELAY_THREAD_NAME);
+		relayThread.setDaemon(true);
+		relayThread.start();
+	}
+
+	void initMetrics() {
+		timerPublish = Timer.builder("fc.pubsub.publish.batch")
+				.description("Time spent publishing an outbox batch including acks")
+				.publishPercentileHistogram().register(meterRegistry);
+		counterAcked = Counter.builder("fc.pubsub.published").tag("outcome", "acked")
+				.description("SD events published from the outbox").register(meterRegistry);
+		counterFailed = Counter.builder("fc.pubsub.published").tag("outcome", "failed")
+				.description("SD events published from the outbox").register(meterRegistry);
+	}
+
+	@PreDestroy
+	public void stop() {
+		shutdown.set(true);
+		relayThread.interrupt();
+	}
+	
+	private void relay() {
+		log.info("relay; outbox relay starting");
+		while (!shutdown.get()) {
+			int sent = 0;
+			try {
+				sent = relayBatch();
+			} catch (Exception ex) {
+				log.error("relay.error", ex);
+			}
+			if (sent < batchSize) {
+				try {
+					Thread.sleep(sleepTime);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		log.info("relay; outbox relay exiting");
+	}
+
+	/**
+	 * Publishes the next batch of pending events.
+	 *
+	 * @return number of events taken from the outbox.
+	 * @throws IOException if JetStream context can not be created
+	 * @throws InterruptedException if the relay was interrupted while waiting for acks
+	 */
+	int relayBatch() throws IOException, InterruptedException {
+		// acks are awaited for batchTimeout at most, the lease covers that and the outbox updates
+		List<SDEventRecord> events = dao.claimHeads(batchSize, 2 * batchTimeout);
+		if (events.isEmpty()) {
+			return 0;
+		}
+		Timer.Sample sample = Timer.start();
+		JetStream jetStream = pubConnection.jetStream();
+		List<CompletableFuture<PublishAck>> acks = new ArrayList<>(events.size());
+		for (SDEventRecord event: events) {
+			Headers headers = new Headers();
+			headers.put("source", instance);
+			headers.put("event", event.event().name());
+			if (event.status() != null) {
+				headers.put("status", event.status().name());
+			}
+			// message id lets JetStream drop duplicates when an event is re-sent after a lost ack
+			PublishOptions options = PublishOptions.builder().messageId(instance + ":" + event.id()).build();
+			acks.add(jetStream.publishAsync(subject + "." + event.sdHash(), headers, event.payload(), options));
+		}
+
+		List<Long> done = new ArrayList<>(events.size());
+		List<Long> failed = new ArrayList<>();
+		long deadline = System.currentTimeMillis() + batchTimeout;
+		for (int i = 0; i < events.size(); i++) {
+			Long id = events.get(i).id();
+			try {
+				acks.get(i).get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+				done.add(id);
+			} catch (ExecutionException | TimeoutException ex) {
+				log.info("relayBatch; event {} for SD {} not acknowledged: {}", id, events.get(i).sdHash(), ex.getMessage());
+				failed.add(id);
+			}
+		}
+		sample.stop(timerPublish);
+		counterAcked.increment(done.size());
+		counterFailed.increment(failed.size());
+		dao.delete(done);
+		dao.postpone(failed, retryDelay);
+		log.debug("relayBatch.exit; sent: {}, failed: {}", done.size(), failed.size());
+		return events.size();
+	}
+	
+}
@@ -1,23 +1,52 @@
 package eu.xfsc.fc.core.service.pubsub.nats;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 import eu.xfsc.fc.core.config.NatsConfig;
+import eu.xfsc.fc.core.exception.ClientException;
+import eu.xfsc.fc.core.exception.ConflictException;
+import eu.xfsc.fc.core.exception.NotFoundException;
+import eu.xfsc.fc.core.exception.VerificationException;
 import eu.xfsc.fc.core.service.pubsub.BaseSDSubscriber;
+import eu.xfsc.fc.core.util.ProcessorUtils;
 import io.nats.client.Connection;
+import io.nats.client.JetStreamApiException;
+import io.nats.client.JetStreamManagement;
+import io.nats.client.JetStreamSubscription;
+import io.nats.client.Message;
+import io.nats.client.PullSubscribeOptions;
 import io.nats.client.PushSubscribeOptions;
+import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
 import io.nats.client.api.DeliverPolicy;
+import io.nats.client.api.StreamInfo;
 import io.nats.client.impl.Headers;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class NatsSDSubscriberImpl extends BaseSDSubscriber {
 	
+	private static final String FETCHER_THREAD_NAME = "sdFetcher";
+	private static final String WORKER_THREAD_NAME = "sdWorker";
+	private static final String BOOTSTRAP_THREAD_NAME = "sdBootstrap";
+	// JetStream API error code of a missing consumer
+	private static final int CONSUMER_NOT_FOUND = 10014;
+	
 	@Value("${subscriber.subject}")	
     private String subject;
 	@Value("${subscriber.stream}")
@@ -26,23 +55,141 @@ public class NatsSDSubscriberImpl extends BaseSDSubscriber {
     private String queue;
 	@Value("${subscriber.group}")
     private String group;
+	/**
+	 * push: messages are processed one by one on the dispatcher thread, acked automatically;
+	 * pull: messages are fetched in batches and processed in parallel, acked after processing.
+	 */
+	@Value("${subscriber.mode:push}")
+    private String mode;
+	/**
+	 * The number of worker threads in pull mode. Messages for the same SD hash are always
+	 * processed by the same worker, so their order is kept.
+	 */
+	@Value("${subscriber.worker-count:4}")
+    private int workerCount;
+	@Value("${subscriber.batch-size:50}")
+    private int batchSize;
+	/**
+	 * The maximum number of fetched, but not yet acknowledged messages in pull mode.
+	 */
+	@Value("${subscriber.max-in-flight:200}")
+    private int maxInFlight;
+	@Value("${subscriber.max-deliver:10}")
+    private int maxDeliver;
+	@Value("${subscriber.retry-delay:5000}")
+    private long retryDelay;
+	/**
+	 * URL of a peer instance to load the existing SDs from, when this instance starts with an empty store or its
+	 * previous snapshot was not completed. The stream is kept in this mode and the subscription continues from the
+	 * stream position taken before the snapshot.
+	 */
+	@Value("${subscriber.bootstrap.source:}")
+    private String bootstrapSource;
 	
     @Autowired 
 	private Connection subConnection;
+    
+    private Semaphore inFlight;
+    private List<BlockingQueue<Message>> taskQueues;
+    private List<ExecutorService> workers;
+    private Thread fetcherThread;
+    private Thread bootstrapThread;
+	private final AtomicBoolean shutdown = new AtomicBoolean(false);
+	private DeliverPolicy deliverPolicy = DeliverPolicy.New;
+	private long startSequence;
 	
 	@Override
 	protected void subscribe() throws Exception {
-		log.debug("subscribe; connect: {}, store: {}", subConnection, sdStore);
+		log.debug("subscribe; connect: {}, store: {}, mode: {}", subConnection, sdStore, mode);
+	    if (bootstrapSource.isBlank()) {
+	    	NatsConfig.createOrReplaceStream(subConnection.jetStreamManagement(), stream, subject);
+	    	startSubscription();
+	    	subscribed.complete(null);
+	    } else {
+	    	// the snapshot can take long, the context is started meanwhile and readiness waits for it
+	    	bootstrapThread = new Thread(() -> {
+	    		try {
+	    			bootstrap();
+	    			startSubscription();
+	    			subscribed.complete(null);
+	    		} catch (Exception ex) {
+	    			log.error("subscribe.error; bootstrap from {} failed", bootstrapSource, ex);
+	    			subscribed.completeExceptionally(ex);
+	    		}
+	    	}, BOOTSTRAP_THREAD_NAME);
+	    	bootstrapThread.start();
+	    }
+	}
+	
+	private void startSubscription() throws Exception {
+	    if ("pull".equals(mode)) {
+	    	subscribePull();
+	    } else {
+	    	subscribePush();
+	    }
+	}
+	
+	private void bootstrap() throws Exception {
+		JetStreamManagement jsm = subConnection.jetStreamManagement();
+		StreamInfo si = NatsConfig.createStreamIfAbsent(jsm, stream, subject);
+		// the durable consumer is created after a complete snapshot only, a store without it was loaded partially 
+		if (!sdStore.getActiveSdHashes(null, 1, 1, 0).isEmpty() && hasConsumer(jsm)) {
+			// store is loaded already, the durable consumer continues from its current position
+			log.info("bootstrap; store is not empty, skipping snapshot");
+			deliverPolicy = null;
+			return;
+		}
+		// events published while the snapshot is loaded are delivered afterwards
+		long lastSequence = si.getStreamState().getLastSequence();
+		// a consumer left by an incomplete snapshot would continue from its old position
+		deleteConsumer(jsm);
+		loadSnapshot(bootstrapSource);
+		deliverPolicy = DeliverPolicy.ByStartSequence;
+		startSequence = lastSequence + 1;
+		log.info("bootstrap; subscribing from stream sequence {}", startSequence);
+	}
+	
+	private boolean hasConsumer(JetStreamManagement jsm) throws IOException, JetStreamApiException {
+		try {
+			jsm.getConsumerInfo(stream, queue);
+			return true;
+		} catch (JetStreamApiException ex) {
+			if (ex.getApiErrorCode() == CONSUMER_NOT_FOUND) {
+				return false;
+			}
+			throw ex;
+		}
+	}
+	
+	private void deleteConsumer(JetStreamManagement jsm) throws IOException, JetStreamApiException {
+		try {
+			jsm.deleteConsumer(stream, queue);
+			log.info("deleteConsumer; deleted consumer {} of stream {}", queue, stream);
+		} catch (JetStreamApiException ex) {
+			if (ex.getApiErrorCode() != CONSUMER_NOT_FOUND) {
+				throw ex;
+			}
+		}
+	}
+	
+	private ConsumerConfiguration.Builder configureDelivery(ConsumerConfiguration.Builder builder) {
 	    //Choosing delivery policy is analogous to setting the current offset
 	    //in a partition for a consumer or consumer group in Kafka.
-	    DeliverPolicy deliverPolicy = DeliverPolicy.New;
-	    PushSubscribeOptions subscribeOptions = ConsumerConfiguration.builder()
+		if (deliverPolicy != null) {
+			builder.deliverPolicy(deliverPolicy);
+			if (deliverPolicy == DeliverPolicy.ByStartSequence) {
+				builder.startSequence(startSequence);
+			}
+		}
+		return builder;
+	}
+	
+	private void subscribePush() throws Exception {
+	    PushSubscribeOptions subscribeOptions = configureDelivery(ConsumerConfiguration.builder())
 	            .durable(queue)
 	            .deliverGroup(group)
-	            .deliverPolicy(deliverPolicy)
 	            .buildPushSubscribeOptions();
 	    /*Subscription subscription =*/
-	    NatsConfig.createOrReplaceStream(subConnection.jetStreamManagement(), stream, subject);
 	    subConnection.jetStream().subscribe(
 	            subject,
 	            group,
@@ -54,18 +201,8 @@ public class NatsSDSubscriberImpl extends BaseSDSubscriber {
 	                //used to call this callback.
 	            	log.debug("onMessage; got message: {}", natsMsg);
 	            	try {
-	            		Headers headers = natsMsg.getHeaders();
-	            		String source = headers.getFirst("source");
-	            		if (!instance.equals(source)) {
-		            		Map<String, Object> params = new HashMap<>();
-		            		headers.entrySet().forEach(e -> {
-		            			params.put(e.getKey(), e.getValue().get(0));
-		            		});
-		            		String payload = new String(natsMsg.getData());
-		            		if (payload.length() > 10) {
-		            			params.put("data", payload);
-		            		}
-		            		params.put("hash", natsMsg.getSubject().substring(6));
+	            		Map<String, Object> params = getParams(natsMsg);
+	            		if (params != null) {
 		            		this.onMessage(params);
 	            		}
 	            	} catch (Exception ex) {
@@ -77,4 +214,112 @@ public class NatsSDSubscriberImpl extends BaseSDSubscriber {
 	                   //natsMessage.ack() manually in the above callback function
 	            subscribeOptions);
 	}
+	
+	private void subscribePull() throws Exception {
+		ConsumerConfiguration consumerConfig = configureDelivery(ConsumerConfiguration.builder())
+				.durable(queue)
+				.ackPolicy(AckPolicy.Explicit)
+				.maxAckPending(maxInFlight)
+				.maxDeliver(maxDeliver)
+				.build();
+		PullSubscribeOptions subscribeOptions = PullSubscribeOptions.builder()
+				.durable(queue)
+				.configuration(consumerConfig)
+				.build();
+		JetStreamSubscription subscription = subConnection.jetStream().subscribe(subject, subscribeOptions);
+		
+		inFlight = new Semaphore(maxInFlight);
+		taskQueues = new ArrayList<>(workerCount);
+		workers = new ArrayList<>(workerCount);
+		for (int i = 0; i < workerCount; i++) {
+			BlockingQueue<Message> taskQueue = new LinkedBlockingQueue<>();
+			taskQueues.add(taskQueue);
+			workers.add(ProcessorUtils.createProcessors(1, taskQueue, this::handleMessage, WORKER_THREAD_NAME + i));
+		}
+		fetcherThread = new Thread(() -> fetch(subscription), FETCHER_THREAD_NAME);
+		fetcherThread.start();
+	}
+	
+	private void fetch(JetStreamSubscription subscription) {
+		log.info("fetch; pull subscriber starting");
+		while (!shutdown.get()) {
+			try {
+				// wait for free in-flight slots before pulling more messages from the stream
+				int permits = Math.min(batchSize, maxInFlight);
+				inFlight.acquire(permits);
+				List<Message> messages = subscription.fetch(permits, Duration.ofSeconds(1));
+				inFlight.release(permits - messages.size());
+				log.debug("fetch; got {} messages", messages.size());
+				for (Message msg: messages) {
+					taskQueues.get(Math.floorMod(getHash(msg).hashCode(), workerCount)).add(msg);
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (Exception ex) {
+				log.error("fetch.error", ex);
+			}
+		}
+		log.info("fetch; pull subscriber exiting");
+	}
+	
+	private void handleMessage(Message natsMsg) {
+		log.debug("handleMessage; got message: {}", natsMsg);
+		try {
+			Map<String, Object> params = getParams(natsMsg);
+			if (params != null) {
+				this.onMessage(params);
+			}
+			natsMsg.ack();
+		} catch (ConflictException | NotFoundException | VerificationException | ClientException ex) {
+			// the message can not be read or applied, redelivery will not help
+			log.warn("handleMessage; dropping message {}: {}", natsMsg, ex.getMessage());
+			natsMsg.term();
+		} catch (Exception ex) {
+			log.error("handleMessage.error", ex);
+			natsMsg.nakWithDelay(Duration.ofMillis(retryDelay));
+		} finally {
+			inFlight.release();
+		}
+	}
+	
+	private Map<String, Object> getParams(Message natsMsg) {
+		Headers headers = natsMsg.getHeaders();
+		if (headers == null) {
+			throw new ClientException("SD event without headers");
+		}
+		String source = headers.getFirst("source");
+		if (instance.equals(source)) {
+			return null;
+		}
+		Map<String, Object> params = new HashMap<>();
+		headers.entrySet().forEach(e -> {
+			params.put(e.getKey(), e.getValue().get(0));
+		});
+		byte[] payload = natsMsg.getData();
+		if (payload != null && payload.length > 10) {
+			params.put("data", payload);
+		}
+		params.put("hash", getHash(natsMsg));
+		return params;
+	}
+	
+	private String getHash(Message natsMsg) {
+		return natsMsg.getSubject().substring(6);
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		shutdown.set(true);
+		if (bootstrapThread != null) {
+			bootstrapThread.interrupt();
+		}
+		if (fetcherThread != null) {
+			fetcherThread.interrupt();
+			for (int i = 0; i < workers.size(); i++) {
+				ProcessorUtils.shutdownProcessors(workers.get(i), taskQueues.get(i), 10, TimeUnit.SECONDS);
+			}
+		}
+	}
+	
 }
@@ -0,0 +1,166 @@
+package eu.xfsc.fc.core.service.schemastore;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.graph.GraphReadOnly;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import eu.xfsc.fc.core.pojo.ContentAccessor;
+import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
+
+/**
+ * Union of all schemas of one type. The parsed graph of every schema is kept, so the union can be changed
+ * schema by schema: triples are reference counted and leave the union when the last schema containing them is
+ * removed. Readers get a read-only snapshot of the union and its Turtle form, both are created on first request
+ * after a change only.
+ */
+class CompositeSchema {
+
+  private final Map<String, Graph> schemas = new HashMap<>();
+  private final ObjectIntHashMap<Triple> counts = new ObjectIntHashMap<>();
+  private final Graph union = GraphFactory.createDefaultGraph();
+  private long version;
+  private volatile Model model;
+  private volatile ContentAccessor content;
+
+  CompositeSchema(long version) {
+    this.version = version;
+  }
+
+  /**
+   * @return the schema version this composite reflects
+   */
+  synchronized long getVersion() {
+    return version;
+  }
+
+  /**
+   * Applies the change of a schema version, if it is the version following the one of this composite.
+   *
+   * @param next the version created by the change
+   * @param change the change to apply
+   * @return true if the change was applied, false if some previous change is missing
+   */
+  synchronized boolean update(long next, Consumer<CompositeSchema> change) {
+    if (next != version + 1) {
+      return false;
+    }
+    change.accept(this);
+    version = next;
+    return true;
+  }
+
+  /**
+   * Adds the schema to the composite, replacing its previous version.
+   *
+   * @param id schema identifier
+   * @param graph parsed schema, must not be changed afterwards
+   */
+  synchronized void put(String id, Graph graph) {
+    Graph old = schemas.put(id, graph);
+    if (old != null) {
+      old.find().forEachRemaining(this::release);
+    }
+    graph.find().forEachRemaining(this::retain);
+    union.getPrefixMapping().setNsPrefixes(graph.getPrefixMapping());
+    changed();
+  }
+
+  /**
+   * Removes the schema from the composite.
+   *
+   * @param id schema identifier
+   * @return true if the schema was part of the composite
+   */
+  synchronized boolean remove(String id) {
+    Graph old = schemas.remove(id);
+    if (old == null) {
+      return false;
+    }
+    old.find().forEachRemaining(this::release);
+    changed();
+    return true;
+  }
+
+  synchronized int size() {
+    return schemas.size();
+  }
+
+  /**
+   * @return read-only snapshot of the composite schema, not affected by later changes
+   */
+  Model getModel() {
+    Model result = model;
+    if (result == null) {
+      synchronized (this) {
+        result = model;
+        if (result == null) {
+          Graph copy = GraphFactory.createGraphMem();
+          GraphUtil.addInto(copy, union);
+          copy.getPrefixMapping().setNsPrefixes(union.getPrefixMapping());
+          result = ModelFactory.createModelForGraph(new GraphReadOnly(copy));
+          model = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the composite schema serialized as Turtle
+   */
+  ContentAccessor getContent() {
+    ContentAccessor result = content;
+    if (result == null) {
+      synchronized (this) {
+        result = content;
+        if (result == null) {
+          if (schemas.isEmpty()) {
+            result = new ContentAccessorDirect("");
+          } else {
+            StringWriter out = new StringWriter();
+            RDFDataMgr.write(out, getModel(), Lang.TURTLE);
+            result = new ContentAccessorDirect(out.toString());
+          }
+          content = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private void changed() {
+    model = null;
+    content = null;
+  }
+
+  private void retain(Triple triple) {
+    int count = counts.getIfAbsent(triple, 0);
+    if (count == 0) {
+      union.add(triple);
+    }
+    counts.put(triple, count + 1);
+  }
+
+  private void release(Triple triple) {
+    int count = counts.getIfAbsent(triple, 0);
+    if (count <= 1) {
+      union.delete(triple);
+      counts.remove(triple);
+    } else {
+      counts.put(triple, count - 1);
+    }
+  }
+
+}
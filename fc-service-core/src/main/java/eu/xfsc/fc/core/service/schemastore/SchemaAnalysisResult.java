@@ -2,6 +2,8 @@ package eu.xfsc.fc.core.service.schemastore;
 
 import java.util.Set;
 
+import org.apache.jena.rdf.model.Model;
+
 import eu.xfsc.fc.core.service.schemastore.SchemaStore.SchemaType;
 
 /**
@@ -35,5 +37,13 @@ public class SchemaAnalysisResult {
    * The error message if validation failed.
    */
   private String errorMessage;
+  /**
+   * The RDF syntax the schema could be read with.
+   */
+  private String format;
+  /**
+   * The parsed schema if it is valid. Null otherwise.
+   */
+  private Model model;
 
 }
@@ -5,10 +5,15 @@ import java.util.Set;
 
 import eu.xfsc.fc.core.service.schemastore.SchemaStore.SchemaType;
 
-public record SchemaRecord(String schemaId, String nameHash, SchemaType type, Instant uploadTime, Instant updateTime, String content, Set<String> terms) {
+/**
+ * A stored schema. The format is the RDF syntax the content was read with, the graph is the parsed content
+ * in RDF Thrift encoding, used for all internal loads.
+ */
+public record SchemaRecord(String schemaId, String nameHash, SchemaType type, Instant uploadTime, Instant updateTime, String content,
+    String format, byte[] graph, Set<String> terms) {
 
-  public SchemaRecord(String schemaId, String nameHash, SchemaType type, String content, Set<String> terms) {
-    this(schemaId, nameHash, type, Instant.now(), Instant.now(), content, terms);
+  public SchemaRecord(String schemaId, String nameHash, SchemaType type, String content, String format, byte[] graph, Set<String> terms) {
+    this(schemaId, nameHash, type, Instant.now(), Instant.now(), content, format, graph, terms);
   }
 
   public String getId() {
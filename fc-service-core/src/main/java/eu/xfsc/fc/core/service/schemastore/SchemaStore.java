@@ -3,6 +3,8 @@ package eu.xfsc.fc.core.service.schemastore;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.jena.rdf.model.Model;
+
 import eu.xfsc.fc.core.pojo.ContentAccessor;
 
 public interface SchemaStore {
@@ -91,6 +93,24 @@ public interface SchemaStore {
    */
   ContentAccessor getCompositeSchema(SchemaType schemaType);
 
+  /**
+   * Get the union schema as parsed RDF model.
+   *
+   * @param schemaType The schema type, for which the composite schema should be
+   * returned.
+   * @return Read-only union RDF model, not affected by later schema changes.
+   */
+  Model getCompositeModel(SchemaType schemaType);
+
+  /**
+   * Get the version of the union schema. The version changes with every change of a schema of the type, so it
+   * identifies the content returned by {@link #getCompositeSchema(SchemaType)}.
+   *
+   * @param schemaType The schema type, for which the version should be returned.
+   * @return The version of the union schema.
+   */
+  long getCompositeVersion(SchemaType schemaType);
+
   /**
    * Remove all Schemas from the SchemaStore.
    */
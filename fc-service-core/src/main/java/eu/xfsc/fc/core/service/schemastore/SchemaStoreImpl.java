@@ -1,19 +1,21 @@
 package eu.xfsc.fc.core.service.schemastore;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+import org.apache.jena.graph.Graph;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.RDFNode;
@@ -21,7 +23,9 @@ import org.apache.jena.rdf.model.ResIterator;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFParser;
 import org.apache.jena.shacl.vocabulary.SHACLM;
+import org.apache.jena.sparql.graph.GraphFactory;
 import org.apache.jena.vocabulary.OWL;
 import org.apache.jena.vocabulary.OWL2;
 import org.apache.jena.vocabulary.RDF;
@@ -32,7 +36,10 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.google.common.base.Strings;
 
@@ -63,7 +70,12 @@ public class SchemaStoreImpl implements SchemaStore {
   @Autowired
   private SchemaDao dao;
 
-  private static final Map<SchemaType, ContentAccessor> COMPOSITE_SCHEMAS = new ConcurrentHashMap<>();
+  private static final String JSONLD = "JSON-LD";
+  private static final String RDFXML = "RDF/XML";
+  private static final String TURTLE = "TTL";
+  private static final Map<SchemaType, CompositeSchema> COMPOSITE_SCHEMAS = new ConcurrentHashMap<>();
+  private static final Map<SchemaType, Long> COMMITTED_VERSIONS = new ConcurrentHashMap<>();
+  private static final String CHANGED_COMPOSITES = SchemaStoreImpl.class.getName() + ".changedComposites";
 
 
   @Override
@@ -82,10 +94,30 @@ public class SchemaStoreImpl implements SchemaStore {
     	throw new ServerException(ex);
       }
     }
+    storeMissingGraphs();
     log.info("initializeDefaultSchemas.exit; {} schemas found in Schema DB", found);
     return count;
   }  
   
+  /**
+   * Stores the binary graph of schemas which were stored before it was kept.
+   */
+  private void storeMissingGraphs() {
+    int cnt = 0;
+    for (SchemaRecord record: dao.selectWithoutGraph()) {
+      SchemaAnalysisResult result = new SchemaAnalysisResult();
+      Model model = readSchema(new ContentAccessorDirect(record.content()), record.format(), result);
+      if (result.isValid()) {
+        cnt += dao.updateGraph(record.getId(), result.getFormat(), toBinary(model.getGraph()));
+      } else {
+        log.warn("storeMissingGraphs; can not read schema {}: {}", record.getId(), result.getErrorMessage());
+      }
+    }
+    if (cnt > 0) {
+      log.info("storeMissingGraphs; stored graphs of {} schemas", cnt);
+    }
+  }
+
   private int addSchemasFromDirectory(String path) throws IOException {
     PathMatchingResourcePatternResolver scanner = new PathMatchingResourcePatternResolver();
     org.springframework.core.io.Resource[] resources = scanner.getResources(path + "/*");
@@ -108,19 +140,7 @@ public class SchemaStoreImpl implements SchemaStore {
   public SchemaAnalysisResult analyzeSchema(ContentAccessor schema) {
     SchemaAnalysisResult result = new SchemaAnalysisResult();
     Set<String> extractedUrlsSet = new HashSet<>();
-    Model model = ModelFactory.createDefaultModel();
-
-    List<String> schemaType = Arrays.asList("JSON-LD", "RDF/XML", "TTL");
-    for (String type : schemaType) {
-      try {
-        model.read(schema.getContentAsStream(), null, type);
-        result.setValid(true);
-        break;
-      } catch (Exception exc) {
-        result.setValid(false);
-        result.setErrorMessage(exc.getMessage());
-      }
-    }
+    Model model = readSchema(schema, null, result);
     if (model.contains(null, RDF.type, SHACLM.NodeShape)
         || model.contains(null, RDF.type, SHACLM.PropertyShape)) {
       result.setSchemaType(SchemaType.SHAPE);
@@ -177,9 +197,62 @@ public class SchemaStoreImpl implements SchemaStore {
       }
     }
     result.setExtractedUrls(extractedUrlsSet);
+    if (result.isValid()) {
+      result.setModel(model);
+    }
     return result;
   }
 
+  private Model readSchema(ContentAccessor schema, String format, SchemaAnalysisResult result) {
+    Model model = ModelFactory.createDefaultModel();
+    for (String type : getFormats(schema, format)) {
+      model = ModelFactory.createDefaultModel();
+      try {
+        model.read(schema.getContentAsStream(), null, type);
+        result.setValid(true);
+        result.setFormat(type);
+        break;
+      } catch (Exception exc) {
+        result.setValid(false);
+        result.setErrorMessage(exc.getMessage());
+      }
+    }
+    return model;
+  }
+
+  /**
+   * Returns the formats to try for the schema, the known or most likely one first.
+   */
+  private static List<String> getFormats(ContentAccessor schema, String format) {
+    if (format != null) {
+      return List.of(format);
+    }
+    String content = schema.getContentAsString();
+    int pos = 0;
+    while (pos < content.length() && Character.isWhitespace(content.charAt(pos))) {
+      pos++;
+    }
+    if (content.startsWith("<?xml", pos) || content.startsWith("<rdf:RDF", pos)) {
+      return List.of(RDFXML, JSONLD, TURTLE);
+    }
+    if (content.startsWith("{", pos) || content.startsWith("[", pos)) {
+      return List.of(JSONLD, RDFXML, TURTLE);
+    }
+    return List.of(TURTLE, JSONLD, RDFXML);
+  }
+
+  private static byte[] toBinary(Graph graph) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    RDFDataMgr.write(out, graph, Lang.RDFTHRIFT);
+    return out.toByteArray();
+  }
+
+  private static Graph fromBinary(byte[] binary) {
+    Graph graph = GraphFactory.createDefaultGraph();
+    RDFParser.source(new ByteArrayInputStream(binary)).lang(Lang.RDFTHRIFT).parse(graph);
+    return graph;
+  }
+
   public void addExtractedUrls(Model model, RDFNode node, Set<String> extractedSet) {
     ResIterator resIteratorNode = model.listResourcesWithProperty(RDF.type, node);
     while (resIteratorNode.hasNext()) {
@@ -193,43 +266,151 @@ public class SchemaStoreImpl implements SchemaStore {
     return result.getSchemaType().equals(type);
   }
 
-  private ContentAccessor createCompositeSchema(SchemaType type) {
+  private CompositeSchema createCompositeSchema(SchemaType type) {
     log.debug("createCompositeSchema.enter; got type: {}", type);
+    // the version is taken first, so the composite is never older than its version
+    long version = dao.selectVersions().getOrDefault(type.ordinal(), 0L);
+    CompositeSchema composite = new CompositeSchema(version);
+    for (SchemaRecord record: dao.selectGraphs(type.ordinal())) {
+      if (record.graph() != null) {
+        composite.put(record.getId(), fromBinary(record.graph()));
+        continue;
+      }
+      SchemaAnalysisResult result = new SchemaAnalysisResult();
+      Model model = readSchema(new ContentAccessorDirect(record.content()), record.format(), result);
+      if (result.isValid()) {
+        composite.put(record.getId(), model.getGraph());
+      } else {
+        log.warn("createCompositeSchema; skipping schema {}: {}", record.getId(), result.getErrorMessage());
+      }
+    }
+    log.debug("createCompositeSchema.exit; composed {} schemas, version: {}", composite.size(), version);
+    return composite;
+  }
 
-    StringWriter out = new StringWriter();
-    Map<SchemaType, List<String>> schemaList = getSchemaList();
+  /**
+   * Returns the composite schema of the type, loads it if it is not loaded yet. A transaction which changed schemas
+   * of the type gets its own composite, so that it reads its changes while others do not see them before commit.
+   */
+  private CompositeSchema getComposite(SchemaType type) {
+    Map<SchemaType, CompositeSchema> changed = getChangedComposites(false);
+    if (changed != null && changed.containsKey(type)) {
+      CompositeSchema composite = changed.get(type);
+      if (composite == null) {
+        composite = createCompositeSchema(type);
+        changed.put(type, composite);
+      }
+      return composite;
+    }
+    CompositeSchema composite = COMPOSITE_SCHEMAS.get(type);
+    if (composite == null) {
+      // loaded outside of the map, so that the database is not read while other map updates are blocked
+      composite = createCompositeSchema(type);
+      CompositeSchema loaded = COMPOSITE_SCHEMAS.putIfAbsent(type, composite);
+      if (loaded != null) {
+        return loaded;
+      }
+      if (composite.getVersion() < COMMITTED_VERSIONS.getOrDefault(type, 0L)) {
+        // a change was committed while the composite was loaded, it is used this time only
+        COMPOSITE_SCHEMAS.remove(type, composite);
+      }
+    }
+    return composite;
+  }
 
-    List<String> schemaListForType = schemaList.get(type);
-    if (schemaListForType == null) {
-      log.debug("createCompositeSchema.exit; returning empty content for unknown type");
-      return new ContentAccessorDirect("");
+  /**
+   * Increments the schema version of the type and applies the change to its composite schema after commit, if it
+   * is loaded already. Otherwise the composite picks up the stored schema when it is loaded. A composite which
+   * missed a previous version is dropped and loaded from the database again on next access.
+   *
+   * @param change the change to apply, null to drop the composite
+   */
+  private void updateComposite(SchemaType type, Consumer<CompositeSchema> change) {
+    long version = dao.incrementVersion(type.ordinal());
+    Map<SchemaType, CompositeSchema> changed = getChangedComposites(true);
+    if (changed == null) {
+      applyChange(type, version, change);
+      return;
     }
-    
-    Model model = ModelFactory.createDefaultModel();
-    Model unionModel = ModelFactory.createDefaultModel();
-    for (String schemaId : schemaListForType) {
-      ContentAccessor schemaContent = getSchema(schemaId);
-      StringReader schemaContentReader = new StringReader(schemaContent.getContentAsString());
-      model.read(schemaContentReader, null, "TURTLE");
-      unionModel.add(model);
+    CompositeSchema composite = changed.get(type);
+    if (composite != null && (change == null || !composite.update(version, change))) {
+      composite = null;
     }
-    RDFDataMgr.write(out, unionModel, Lang.TURTLE);
-    ContentAccessor content = new ContentAccessorDirect(out.toString());
+    changed.put(type, composite);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
 
-    log.debug("createCompositeSchema.exit; returning: {}", content.getContentAsString().length());
-    try {
-      final String compositeSchemaName = "CompositeSchema" + type.name();
-      fileStore.replaceFile(compositeSchemaName, content);
-      // the ContentAccessor returned from this function is cached until this instance gets a schema change. 
-      // That's why it is important that the file-based ContentAccessor is returned, and not the String-based one. 
-      // Otherwise, if another instance changes the file because that other instance received a schema change, this instance will 
-      // never serve the new content, since it cached the String-based content.
-      // By returning the file-based ContentAccessor, a change of the file will automatically update the content that all instances serve.
-      content = fileStore.readFile(compositeSchemaName);
-    } catch (IOException ex) {
-      log.error("createCompositeSchema.error: Failed to store composite schema", ex);
+      @Override
+      public void afterCommit() {
+        applyChange(type, version, change);
+      }
+    });
+  }
+
+  private static void applyChange(SchemaType type, long version, Consumer<CompositeSchema> change) {
+    // the committed version is published first, composites loaded concurrently check it after they are kept
+    COMMITTED_VERSIONS.merge(type, version, Math::max);
+    CompositeSchema composite = COMPOSITE_SCHEMAS.get(type);
+    if (composite != null && (change == null || !composite.update(version, change))) {
+      log.debug("applyChange; {} composite is at version {}, dropping it", type, composite.getVersion());
+      COMPOSITE_SCHEMAS.remove(type, composite);
+    }
+  }
+
+  /**
+   * @param create create the changed composites of the current transaction if there are none yet
+   * @return composites of the types changed by the current transaction, null if there is no transaction
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<SchemaType, CompositeSchema> getChangedComposites(boolean create) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return null;
+    }
+    Map<SchemaType, CompositeSchema> changed =
+        (Map<SchemaType, CompositeSchema>) TransactionSynchronizationManager.getResource(CHANGED_COMPOSITES);
+    if (changed == null && create) {
+      changed = new EnumMap<>(SchemaType.class);
+      TransactionSynchronizationManager.bindResource(CHANGED_COMPOSITES, changed);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+        @Override
+        public void afterCompletion(int status) {
+          TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_COMPOSITES);
+        }
+      });
+    }
+    return changed;
+  }
+
+  /**
+   * Drops the composite schema of the type if it is older than the given version, so that changes made by
+   * other instances are loaded on next access.
+   */
+  public void onSchemaVersion(SchemaType type, long version) {
+    Map<SchemaType, CompositeSchema> changed = getChangedComposites(false);
+    if (changed != null && changed.containsKey(type)) {
+      // the version read by a transaction which changed the type may not be committed yet
+      CompositeSchema composite = changed.get(type);
+      if (composite != null && composite.getVersion() < version) {
+        changed.put(type, null);
+      }
+      return;
+    }
+    COMMITTED_VERSIONS.merge(type, version, Math::max);
+    CompositeSchema composite = COMPOSITE_SCHEMAS.get(type);
+    if (composite != null && composite.getVersion() < version) {
+      log.debug("onSchemaVersion; {} composite is at version {}, got version {}", type, composite.getVersion(), version);
+      COMPOSITE_SCHEMAS.remove(type, composite);
+    }
+  }
+
+  /**
+   * Compares the loaded composite schemas with the stored schema versions.
+   */
+  public void checkVersions() {
+    Map<Integer, Long> versions = dao.selectVersions();
+    for (SchemaType type: SchemaType.values()) {
+      onSchemaVersion(type, versions.getOrDefault(type.ordinal(), 0L));
     }
-    return content;
   }
 
   @Override
@@ -238,8 +419,7 @@ public class SchemaStoreImpl implements SchemaStore {
     return result.isValid();
   }
 
-  private SchemaRecord analyzeSchemaRecord(ContentAccessor schema) {
-    SchemaAnalysisResult result = analyzeSchema(schema);
+  private SchemaRecord analyzeSchemaRecord(ContentAccessor schema, SchemaAnalysisResult result) {
 	if (!result.isValid()) {
 	  throw new VerificationException("Schema is not valid: " + result.getErrorMessage());
 	}
@@ -251,12 +431,14 @@ public class SchemaStoreImpl implements SchemaStore {
 	} else {
 	  nameHash = HashUtils.calculateSha256AsHex(schemaId);
 	}
-    return new SchemaRecord(schemaId, nameHash, result.getSchemaType(), schema.getContentAsString(), result.getExtractedUrls());  
+    return new SchemaRecord(schemaId, nameHash, result.getSchemaType(), schema.getContentAsString(), result.getFormat(),
+        toBinary(result.getModel().getGraph()), result.getExtractedUrls());  
   }
 
   @Override
   public String addSchema(ContentAccessor schema) {
-    SchemaRecord newRecord = analyzeSchemaRecord(schema);
+    SchemaAnalysisResult result = analyzeSchema(schema);
+    SchemaRecord newRecord = analyzeSchemaRecord(schema, result);
     try {
       if (!dao.insert(newRecord)) {
         throw new ServerException("DB error, schema not inserted");
@@ -272,19 +454,24 @@ public class SchemaStoreImpl implements SchemaStore {
       throw new ServerException(ex);
     }
     
-    COMPOSITE_SCHEMAS.remove(newRecord.type());
+    updateComposite(newRecord.type(), c -> c.put(newRecord.getId(), result.getModel().getGraph()));
     return newRecord.getId();
   }
   
   @Override
   public void updateSchema(String identifier, ContentAccessor schema) {
-    SchemaRecord newRecord = analyzeSchemaRecord(schema);
+    SchemaAnalysisResult result = analyzeSchema(schema);
+    SchemaRecord newRecord = analyzeSchemaRecord(schema, result);
     if (newRecord.schemaId() != null && !identifier.equals(newRecord.schemaId())) {
       throw new ClientException("Given schema does not have the same Identifier as the old schema: " + identifier + " <> " + newRecord.schemaId());
     }
     
+    Integer oldType = dao.selectType(identifier);
+    if (oldType == null) {
+      throw new NotFoundException("Schema with id " + identifier + " was not found");
+    }
     try {
-      if (dao.update(identifier, newRecord.content(), newRecord.terms()) == 0) {
+      if (dao.update(identifier, newRecord.content(), newRecord.format(), newRecord.graph(), newRecord.terms()) == 0) {
         throw new NotFoundException("Schema with id " + identifier + " was not found");
       }
     } catch (DuplicateKeyException ex) {
@@ -300,7 +487,10 @@ public class SchemaStoreImpl implements SchemaStore {
       throw new ServerException(ex);
     }
 
-    COMPOSITE_SCHEMAS.remove(newRecord.type());
+    if (oldType != newRecord.type().ordinal()) {
+      updateComposite(SchemaType.values()[oldType], c -> c.remove(identifier));
+    }
+    updateComposite(newRecord.type(), c -> c.put(identifier, result.getModel().getGraph()));
     // SDs will be revalidated in a separate thread.
   }
 
@@ -311,10 +501,11 @@ public class SchemaStoreImpl implements SchemaStore {
     if (type == null) {
       throw new NotFoundException("Schema with id " + identifier + " was not found");
     }
-    COMPOSITE_SCHEMAS.remove(SchemaType.values()[type]);
+    updateComposite(SchemaType.values()[type], c -> c.remove(identifier));
   }
 
   @Override
+  @Transactional(propagation = Propagation.SUPPORTS)
   public Map<SchemaType, List<String>> getSchemaList() {
     Map<Integer, Collection<String>> res = dao.selectSchemas();
     //return res.entrySet().stream().map(e -> Pair.of(SchemaType.values()[e.getKey()], e.getValue()).collect(Collectors.toMap(p.getLeft(), p.getRight())));
@@ -326,6 +517,7 @@ public class SchemaStoreImpl implements SchemaStore {
   }
 
   @Override
+  @Transactional(propagation = Propagation.SUPPORTS)
   public ContentAccessor getSchema(String identifier) {
 	SchemaRecord existing = dao.select(identifier);  
     if (existing == null) {
@@ -335,6 +527,7 @@ public class SchemaStoreImpl implements SchemaStore {
   }
 
   @Override
+  @Transactional(propagation = Propagation.SUPPORTS)
   public Map<SchemaType, List<String>> getSchemasForTerm(String entity) {
     Map<Integer, Collection<String>> res = dao.selectSchemasByTerm(entity);
     //return result.entrySet().stream().map(e -> SchemaType.values()[e.getKey()]).collect(Collectors.toMap(e.null, null))
@@ -347,7 +540,17 @@ public class SchemaStoreImpl implements SchemaStore {
 
   @Override
   public ContentAccessor getCompositeSchema(SchemaType type) {
-    return COMPOSITE_SCHEMAS.computeIfAbsent(type, t -> createCompositeSchema(t));
+    return getComposite(type).getContent();
+  }
+
+  @Override
+  public Model getCompositeModel(SchemaType type) {
+    return getComposite(type).getModel();
+  }
+
+  @Override
+  public long getCompositeVersion(SchemaType type) {
+    return getComposite(type).getVersion();
   }
 
   @Override
@@ -359,7 +562,9 @@ public class SchemaStoreImpl implements SchemaStore {
     } catch (IOException ex) {
       log.error("SchemaStoreImpl: Exception while clearing FileStore: {}.", ex.getMessage());
     }
-    COMPOSITE_SCHEMAS.clear();
+    for (SchemaType type: SchemaType.values()) {
+      updateComposite(type, null);
+    }
   }
 
 }
@@ -0,0 +1,120 @@
+package eu.xfsc.fc.core.service.schemastore;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import eu.xfsc.fc.core.dao.impl.SchemaDaoImpl;
+import eu.xfsc.fc.core.service.schemastore.SchemaStore.SchemaType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Listens for schema version notifications sent by all instances on schema changes, so that composite schemas
+ * cached by this instance are reloaded only when some schema of their type has actually changed. Stored versions
+ * are checked once on every (re)connect and whenever no notification arrived within the listen timeout, in case
+ * notifications were missed or the database does not support them.
+ */
+@Slf4j
+@Component
+public class SchemaVersionListener {
+
+  private static final String LISTENER_THREAD_NAME = "schemaVersionListener";
+
+  @Value("${federated-catalogue.schema-store.listen-timeout:10000}")
+  private int listenTimeout;
+  @Value("${federated-catalogue.schema-store.retry-delay:5000}")
+  private long retryDelay;
+
+  @Autowired
+  private DataSource dataSource;
+  @Autowired
+  private SchemaStoreImpl schemaStore;
+
+  private Thread listenerThread;
+  private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+  @PostConstruct
+  public void start() {
+    listenerThread = new Thread(this::listen, LISTENER_THREAD_NAME);
+    listenerThread.setDaemon(true);
+    listenerThread.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    shutdown.set(true);
+    listenerThread.interrupt();
+  }
+
+  private void listen() {
+    log.info("listen; schema version listener starting");
+    while (!shutdown.get()) {
+      try (Connection conn = dataSource.getConnection()) {
+        PGConnection pgConn = null;
+        if (conn.isWrapperFor(PGConnection.class)) {
+          pgConn = conn.unwrap(PGConnection.class);
+          conn.setAutoCommit(true);
+          try (Statement stmt = conn.createStatement()) {
+            stmt.execute("LISTEN " + SchemaDaoImpl.SCHEMA_VERSIONS_CHANNEL);
+          }
+        } else {
+          log.info("listen; notifications not supported, polling schema versions");
+        }
+        schemaStore.checkVersions();
+        while (!shutdown.get()) {
+          if (pgConn == null) {
+            Thread.sleep(listenTimeout);
+            schemaStore.checkVersions();
+            continue;
+          }
+          PGNotification[] notifications = pgConn.getNotifications(listenTimeout);
+          if (notifications == null || notifications.length == 0) {
+            schemaStore.checkVersions();
+          } else {
+            for (PGNotification notification: notifications) {
+              onNotification(notification.getParameter());
+            }
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (Exception ex) {
+        if (shutdown.get()) {
+          break;
+        }
+        log.warn("listen.error; retrying in {} ms: {}", retryDelay, ex.getMessage());
+        try {
+          Thread.sleep(retryDelay);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+    log.info("listen; schema version listener exiting");
+  }
+
+  private void onNotification(String payload) {
+    log.debug("onNotification; got version: {}", payload);
+    int pos = payload.indexOf(':');
+    try {
+      int type = Integer.parseInt(payload.substring(0, pos));
+      long version = Long.parseLong(payload.substring(pos + 1));
+      schemaStore.onSchemaVersion(SchemaType.values()[type], version);
+    } catch (RuntimeException ex) {
+      log.info("onNotification; ignoring wrong version {}: {}", payload, ex.getMessage());
+    }
+  }
+
+}
@@ -1,5 +1,7 @@
 package eu.xfsc.fc.core.service.sdstore;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 
 import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
@@ -33,5 +35,14 @@ public class PublishingSelfDescriptionStoreImpl extends SelfDescriptionStoreImpl
         super.deleteSelfDescription(hash);
 	    sdPublisher.publish(hash, SDEvent.DELETE, null);
 	  }
+
+	  @Override
+	  protected List<SubjectHashRecord> expireSelfDescriptions(final int limit) {
+		List<SubjectHashRecord> expired = super.expireSelfDescriptions(limit);
+		if (!expired.isEmpty()) {
+		  sdPublisher.publish(expired.stream().map(SubjectHashRecord::sdHash).toList(), SDEvent.UPDATE, SelfDescriptionStatus.EOL);
+		}
+		return expired;
+	  }
 	  
 }
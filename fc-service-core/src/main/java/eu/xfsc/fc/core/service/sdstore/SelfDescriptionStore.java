@@ -74,17 +74,26 @@ public interface SelfDescriptionStore {
    */
   int invalidateSelfDescriptions();
 
+  /**
+   * Move the content of large historical (not active) Self-descriptions from the
+   * database to the history file store. They can still be read by hash.
+   *
+   * @return Number of Self-descriptions whose content was moved, -1 if offloading is disabled.
+   */
+  int offloadHistory();
+
   /**
    * Get "count" hashes of active self-descriptions, ordered by sdhash, after
-   * the given hash. Chunking is done using:
-   * <pre>hashtext(sdhash) % chunks = chunkId</pre>
+   * the given hash. Chunking is done on the stored hash bucket:
+   * <pre>hashtext(sdhash) &amp; 1023</pre>
+   * every chunk covering a contiguous range of the 1024 buckets. With more than
+   * one chunk, hashes are ordered by bucket first.
    *
    * @param afterHash The last hash of the previous batch.
    * @param count the number of hashes to retrieve.
    * @param chunks the number of chunks to subdivide hashes into.
    * @param chunkId the 0-based id of the chunk to get.
-   * @return the list of hashes coming after the hash "afterHash", ordered by
-   * hash.
+   * @return the list of hashes coming after the hash "afterHash" in the chunk.
    */
   List<String> getActiveSdHashes(String afterHash, int count, int chunks, int chunkId);
 
@@ -1,13 +1,22 @@
 package eu.xfsc.fc.core.service.sdstore;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
 
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
 import eu.xfsc.fc.core.dao.SelfDescriptionDao;
@@ -20,6 +29,7 @@ import eu.xfsc.fc.core.pojo.SdFilter;
 import eu.xfsc.fc.core.pojo.SelfDescriptionMetadata;
 import eu.xfsc.fc.core.pojo.Validator;
 import eu.xfsc.fc.core.pojo.VerificationResult;
+import eu.xfsc.fc.core.service.filestore.FileStore;
 import eu.xfsc.fc.core.service.graphdb.GraphStore;
 import lombok.extern.slf4j.Slf4j;
 
@@ -40,25 +50,48 @@ public class SelfDescriptionStoreImpl implements SelfDescriptionStore {
   @Autowired
   private GraphStore graphDb;
 
+  @Autowired
+  private PlatformTransactionManager txManager;
+
+  @Autowired
+  @Qualifier("historyFileStore")
+  private FileStore historyFileStore;
+
+  @Value("${federated-catalogue.sd-store.expiration-batch-size:500}")
+  private int expirationBatchSize;
+
+  @Value("${federated-catalogue.sd-store.history.offload-size:0}")
+  private int offloadSize;
+
+  @Value("${federated-catalogue.sd-store.history.offload-batch-size:100}")
+  private int offloadBatchSize;
+
   @Override
+  @Transactional(propagation = Propagation.SUPPORTS)
   public ContentAccessor getSDFileByHash(final String hash) {
     SdMetaRecord meta = (SdMetaRecord) getByHash(hash);
     return meta.getSelfDescription();
   }
 
   @Override
+  @Transactional(propagation = Propagation.SUPPORTS)
   public SelfDescriptionMetadata getByHash(final String hash) {
     SdMetaRecord sdmRecord = dao.select(hash);
     if (sdmRecord == null) {
       throw new NotFoundException(String.format("no self-description found for hash %s", hash));
     }
+    loadHistoryContent(sdmRecord);
     return sdmRecord;
   }
 
   @Override
+  @Transactional(propagation = Propagation.SUPPORTS)
   public PaginatedResults<SelfDescriptionMetadata> getByFilter(final SdFilter filter, final boolean withMeta, final boolean withContent) {
     log.debug("getByFilter.enter; got filter: {}, withMeta: {}, withContent: {}", filter, withMeta, withContent);
     PaginatedResults<SdMetaRecord> page = dao.selectByFilter(filter, withMeta, withContent);
+    if (withContent) {
+      page.getResults().forEach(this::loadHistoryContent);
+    }
     List sds = page.getResults();
     return new PaginatedResults<>(page.getTotalCount(), (List<SelfDescriptionMetadata>) sds);
   }
@@ -87,7 +120,7 @@ public class SelfDescriptionStoreImpl implements SelfDescriptionStore {
     try {
       subjectHash = dao.insert(sd);
     } catch (DuplicateKeyException ex) {
-      if (ex.getMessage().contains("sdfiles_pkey")) {
+      if (ex.getMessage().contains("sdhashes_pkey") || ex.getMessage().contains("sdfiles_pkey")) {
         throw new ConflictException(String.format("self-description with hash %s already exists", sdMetadata.getSdHash()));
       }
       if (ex.getMessage().contains("idx_sd_file_is_active")) {
@@ -128,28 +161,100 @@ public class SelfDescriptionStoreImpl implements SelfDescriptionStore {
     
     if (ssr.getSdStatus() == SelfDescriptionStatus.ACTIVE) {
       graphDb.deleteClaims(ssr.subjectId());
+    } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      // the offloaded content is needed as long as the deletion can be rolled back
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+        @Override
+        public void afterCommit() {
+          deleteHistoryContent(hash);
+        }
+      });
+    } else {
+      deleteHistoryContent(hash);
+    }
+  }
+
+  private void deleteHistoryContent(String hash) {
+    try {
+      historyFileStore.deleteFile(hash);
+    } catch (FileNotFoundException ex) {
+      // content was not offloaded
+    } catch (IOException ex) {
+      log.warn("deleteHistoryContent; failed to delete offloaded content of {}: {}", hash, ex.getMessage());
     }
   }
 
   @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public int invalidateSelfDescriptions() {
-    // A possible Performance optimisation may be required here to limit the number
-    // of SDs that are expired in one run, to limit the size of the Transaction.
-    List<String> expiredSds = dao.selectExpiredHashes();
-    final MutableInt count = new MutableInt();
-    // we could also expire/update all SDs from batch in one batchUpdate..
-    expiredSds.forEach(sdHash -> {
+    // expired SDs are processed in chunks of limited size, every chunk in its own
+    // transaction, so the transaction size does not depend on the number of expired SDs
+    TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+    txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    int count = 0;
+    int expired;
+    do {
+      List<SubjectHashRecord> chunk = txTemplate.execute(status -> expireSelfDescriptions(expirationBatchSize));
+      expired = chunk == null ? 0 : chunk.size();
+      count += expired;
+      log.debug("invalidateSelfDescriptions; expired {} self-descriptions in chunk", expired);
+    } while (expired >= expirationBatchSize);
+    return count;
+  }
+
+  /**
+   * Set up to "limit" expired active self-descriptions to EOL status and remove their claims from graph DB.
+   *
+   * @param limit The maximum number of self-descriptions to expire.
+   * @return subjects and hashes of the expired self-descriptions.
+   */
+  protected List<SubjectHashRecord> expireSelfDescriptions(final int limit) {
+    List<SubjectHashRecord> expired = dao.updateExpired(SelfDescriptionStatus.EOL.ordinal(), limit);
+    if (!expired.isEmpty()) {
+      graphDb.deleteClaims(expired.stream().map(SubjectHashRecord::subjectId).distinct().toList());
+    }
+    return expired;
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int offloadHistory() {
+    if (offloadSize <= 0) {
+      return -1;
+    }
+    // content is written to disk before it is removed from the database, an interrupted run leaves the content
+    // in both places and is repeated by the next run. Files are replaced atomically, so runs of several
+    // instances on the shared file store write the same content and do not conflict
+    int count = 0;
+    List<SdMetaRecord> batch;
+    do {
+      batch = dao.selectHistoryToOffload(offloadSize, offloadBatchSize);
+      for (SdMetaRecord sd: batch) {
+        try {
+          historyFileStore.replaceFile(sd.getSdHash(), sd.getSelfDescription());
+        } catch (IOException ex) {
+          throw new ServerException("failed to offload content of self-description " + sd.getSdHash(), ex);
+        }
+        count += dao.clearHistoryContent(sd.getSdHash());
+      }
+      log.debug("offloadHistory; offloaded {} self-descriptions in batch", batch.size());
+    } while (batch.size() >= offloadBatchSize);
+    return count;
+  }
+
+  private void loadHistoryContent(SdMetaRecord sd) {
+    if (sd.getSelfDescription() == null && sd.getStatus() != SelfDescriptionStatus.ACTIVE) {
       try {
-        changeLifeCycleStatus(sdHash, SelfDescriptionStatus.EOL);
-        count.increment();
-      } catch (ConflictException exc) {
-        log.info("invalidateSelfDescriptions; SD was set non-active before we could expire it. Hash: {}", sdHash);
+        sd.setSelfDescription(historyFileStore.readFile(sd.getSdHash()));
+      } catch (IOException ex) {
+        throw new ServerException("failed to read offloaded content of self-description " + sd.getSdHash(), ex);
       }
-    });
-    return count.intValue();
+    }
   }
 
   @Override
+  @Transactional(propagation = Propagation.SUPPORTS)
   public List<String> getActiveSdHashes(String afterHash, int count, int chunks, int chunkId) {
     return dao.selectHashes(afterHash, count, chunks, chunkId);
   }
@@ -158,6 +263,11 @@ public class SelfDescriptionStoreImpl implements SelfDescriptionStore {
   public void clear() {
 	int cnt = dao.deleteAll();
     log.debug("clear; deleted {} self-descriptions", cnt);
+    try {
+      historyFileStore.clearStorage();
+    } catch (IOException ex) {
+      log.warn("clear; failed to clear history file store: {}", ex.getMessage());
+    }
   }
 
 }
@@ -37,10 +37,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 
 /**
- * A com.​apicatalog.​jsonld DocumentLoader that caches fetched documents.
+ * A com.​apicatalog.​jsonld DocumentLoader that caches fetched documents. Contexts of the context bundle are served
+ * from the bundle without any network access.
  */
 @Slf4j
-class CachingHttpLoader implements DocumentLoader {
+public class CachingHttpLoader implements DocumentLoader {
 
   public static final int MAX_REDIRECTIONS = 10;
 
@@ -48,16 +49,47 @@ class CachingHttpLoader implements DocumentLoader {
 
   private final HttpClient httpClient;
   private final HttpDocumentCache httpCache;
+  private final ContextBundle contextBundle;
 
   public CachingHttpLoader(final FileStore fileStore) {
-    this(fileStore, DefaultHttpClient.defaultInstance());
+    this(fileStore, new ContextBundle(ContextBundle.DEFAULT_LOCATION));
+  }
+
+  public CachingHttpLoader(final FileStore fileStore, ContextBundle contextBundle) {
+    this(fileStore, contextBundle, DefaultHttpClient.defaultInstance());
   }
 
   public CachingHttpLoader(final FileStore fileStore, HttpClient httpClient) {
+    this(fileStore, new ContextBundle(ContextBundle.DEFAULT_LOCATION), httpClient);
+  }
+
+  public CachingHttpLoader(final FileStore fileStore, ContextBundle contextBundle, HttpClient httpClient) {
     this.httpCache = new HttpDocumentCache(fileStore);
+    this.contextBundle = contextBundle;
     this.httpClient = httpClient;
   }
 
+  /**
+   * Downloads the current versions of all bundled contexts and replaces the bundled copies with them. Contexts that
+   * cannot be downloaded keep their bundled version.
+   *
+   * @return number of refreshed contexts
+   */
+  public int refreshBundle() {
+    int refreshed = 0;
+    for (String uri: contextBundle.getUris()) {
+      try {
+        HttpDocument remote = fetchRemoteDocument(URI.create(uri), new DocumentLoaderOptions());
+        contextBundle.refresh(uri, remote);
+        refreshed++;
+      } catch (JsonLdError | RuntimeException ex) {
+        log.info("refreshBundle; keeping bundled version of {}: {}", uri, ex.getMessage());
+      }
+    }
+    log.debug("refreshBundle.exit; refreshed {} of {} contexts", refreshed, contextBundle.getUris().size());
+    return refreshed;
+  }
+
   private HttpDocument fetchRemoteDocument(final URI uri, final DocumentLoaderOptions options) throws JsonLdError {
     try {
       URI targetUri = uri;
@@ -148,6 +180,10 @@ class CachingHttpLoader implements DocumentLoader {
   }
 
   private HttpDocument getAndCache(URI uri, DocumentLoaderOptions options) throws JsonLdError {
+    HttpDocument bundled = contextBundle.get(uri.toString());
+    if (bundled != null) {
+      return bundled;
+    }
     final String hash = HashUtils.calculateSha256AsHex(uri.toString());
     HttpDocument httpDocument = httpCache.fetchFromCache(uri.toString(), hash);
     if (httpDocument != null) {
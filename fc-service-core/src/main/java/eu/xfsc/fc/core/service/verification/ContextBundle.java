@@ -0,0 +1,98 @@
+package eu.xfsc.fc.core.service.verification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.xfsc.fc.core.service.verification.CachingHttpLoader.HttpDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Well-known JSON-LD contexts shipped on the classpath, so that they are never downloaded on the verification path.
+ * Every bundle location holds a bundle.json index with the bundle version and the context files by context URL,
+ * later locations override contexts of earlier ones. Bundled contexts can be replaced by refreshed remote copies.
+ */
+@Slf4j
+public class ContextBundle {
+
+  public static final String DEFAULT_LOCATION = "contexts";
+  public static final String CONTEXT_TYPE = "application/ld+json";
+
+  private static final String INDEX_FILE = "bundle.json";
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final Map<String, HttpDocument> contexts = new ConcurrentHashMap<>();
+  private final List<String> versions = new ArrayList<>();
+
+  public ContextBundle(String... locations) {
+    for (String location: locations) {
+      load(location.trim());
+    }
+    log.info("<init>; loaded {} contexts from bundles {}", contexts.size(), versions);
+  }
+
+  private void load(String location) {
+    ClassLoader classLoader = ContextBundle.class.getClassLoader();
+    try (InputStream index = classLoader.getResourceAsStream(location + "/" + INDEX_FILE)) {
+      if (index == null) {
+        log.warn("load; no context bundle found at {}", location);
+        return;
+      }
+      JsonNode bundle = OBJECT_MAPPER.readTree(index);
+      versions.add(location + ":" + bundle.path("version").asText());
+      Iterator<Map.Entry<String, JsonNode>> entries = bundle.path("contexts").fields();
+      while (entries.hasNext()) {
+        Map.Entry<String, JsonNode> entry = entries.next();
+        String file = location + "/" + entry.getValue().asText();
+        try (InputStream is = classLoader.getResourceAsStream(file)) {
+          if (is == null) {
+            log.warn("load; context file {} for {} not found", file, entry.getKey());
+            continue;
+          }
+          String body = IOUtils.toString(is, StandardCharsets.UTF_8);
+          contexts.put(entry.getKey(), new HttpDocument(CONTEXT_TYPE, entry.getKey(), null, body));
+        }
+      }
+    } catch (IOException ex) {
+      log.error("load.error; failed to load context bundle from {}", location, ex);
+    }
+  }
+
+  /**
+   * @param uri context URL
+   * @return the bundled context or null if the context is not bundled
+   */
+  public HttpDocument get(String uri) {
+    return contexts.get(uri);
+  }
+
+  /**
+   * Replaces a bundled context with a refreshed copy.
+   *
+   * @param uri context URL, must be a bundled one
+   * @param document the refreshed context
+   */
+  public void refresh(String uri, HttpDocument document) {
+    contexts.replace(uri, document);
+  }
+
+  public Set<String> getUris() {
+    return Collections.unmodifiableSet(contexts.keySet());
+  }
+
+  public List<String> getVersions() {
+    return Collections.unmodifiableList(versions);
+  }
+
+}
@@ -2,7 +2,6 @@ package eu.xfsc.fc.core.service.verification;
 
 import static com.danubetech.verifiablecredentials.jsonld.VerifiableCredentialKeywords.*;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -10,6 +9,7 @@ import com.apicatalog.rdf.RdfNQuad;
 import com.danubetech.verifiablecredentials.CredentialSubject;
 import com.danubetech.verifiablecredentials.VerifiablePresentation;
 
+import eu.xfsc.fc.core.pojo.ClaimSet;
 import eu.xfsc.fc.core.pojo.ContentAccessor;
 import eu.xfsc.fc.core.pojo.SdClaim;
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +21,7 @@ public class DanubeTechClaimExtractor implements ClaimExtractor {
     @SuppressWarnings("unchecked")
     public List<SdClaim> extractClaims(ContentAccessor content) throws Exception {
         log.debug("extractClaims.enter; got content: {}", content);
-        List<SdClaim> claims = new ArrayList<>();
+        ClaimSet claims = new ClaimSet();
         VerifiablePresentation vp = VerifiablePresentation.fromJson(content.getContentAsString());
         Map<String, Object> vpm = vp.getJsonObject();
         List<Map<String, Object>> vcms;
@@ -54,8 +54,7 @@ public class DanubeTechClaimExtractor implements ClaimExtractor {
                 log.debug("extractClaims; CS claims: {}", cs.getClaims());
                 for (RdfNQuad nquad: cs.toDataset().toList()) {
                     log.debug("extractClaims; got NQuad: {}", nquad);
-                    SdClaim claim = new SdClaim(nquad);
-                    claims.add(claim);
+                    claims.addTriple(nquad);
                 }
             }
         }
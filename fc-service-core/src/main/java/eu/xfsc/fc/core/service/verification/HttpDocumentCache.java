@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.xfsc.fc.core.pojo.ContentAccessor;
 import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
 import eu.xfsc.fc.core.service.filestore.FileStore;
+import eu.xfsc.fc.core.util.CacheMetrics;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -17,6 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 public class HttpDocumentCache {
 
   private final static ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private final static CacheMetrics METRICS = new CacheMetrics("httpDocument");
   private final FileStore fileStore;
 
   public HttpDocumentCache(FileStore fileStore) {
@@ -27,9 +29,11 @@ public class HttpDocumentCache {
     try {
       final ContentAccessor cachedContent = fileStore.readFile(hash);
       log.debug("fetchFromCache; Read cached version of {}", uri);
+      METRICS.hit();
       return OBJECT_MAPPER.readValue(cachedContent.getContentAsStream(), CachingHttpLoader.HttpDocument.class);
     } catch (FileNotFoundException ex) {
       log.debug("fetchFromCache.error 1; No cached version found of {}", uri);
+      METRICS.miss();
     } catch (IOException ex) {
       log.debug("fetchFromCache.error 2; Error reading cached version found of {}", uri, ex);
     }
@@ -14,19 +14,29 @@ import org.apache.jena.riot.system.stream.Locator;
 import org.apache.jena.riot.system.stream.LocatorHTTP;
 
 /**
- * A Jena Locator that caches http downloads.
+ * A Jena Locator that caches http downloads. Contexts of the context bundle are served from the bundle.
  */
 @Slf4j
-class LocatorCaching implements Locator {
+public class LocatorCaching implements Locator {
 
   private final HttpDocumentCache httpCache;
+  private final ContextBundle contextBundle;
   private final LocatorHTTP locatorHttp = new LocatorHTTP();
 
   public LocatorCaching(FileStore fileStore) {
+    this(fileStore, new ContextBundle(ContextBundle.DEFAULT_LOCATION));
+  }
+
+  public LocatorCaching(FileStore fileStore, ContextBundle contextBundle) {
     this.httpCache = new HttpDocumentCache(fileStore);
+    this.contextBundle = contextBundle;
   }
 
   private HttpDocument getAndCache(String uri) {
+    HttpDocument bundled = contextBundle.get(uri);
+    if (bundled != null) {
+      return bundled;
+    }
     String hash = HashUtils.calculateSha256AsHex(uri);
 
     HttpDocument cached = httpCache.fetchFromCache(uri, hash);
@@ -7,6 +7,9 @@ import eu.xfsc.fc.core.pojo.ContentAccessor;
 import eu.xfsc.fc.core.service.schemastore.SchemaStore;
 import eu.xfsc.fc.core.service.sdstore.SelfDescriptionStore;
 import eu.xfsc.fc.core.util.ProcessorUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -60,6 +63,10 @@ public class RevalidationServiceImpl implements RevalidationService {
   @Autowired
   private VerificationService verificationService;
 
+  // the no-op global registry is kept where no registry is configured
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
   private BlockingQueue<String> taskQueue;
   private ExecutorService executorService;
   private Thread managementThread;
@@ -179,6 +186,11 @@ public class RevalidationServiceImpl implements RevalidationService {
     }
   }
 
+  private double getQueueSize() {
+    BlockingQueue<String> queue = taskQueue;
+    return queue == null ? 0 : queue.size();
+  }
+
   /**
    * Sets up the RevalidationService so it is ready for work. This does not actually start the revalidation process yet.
    */
@@ -191,6 +203,8 @@ public class RevalidationServiceImpl implements RevalidationService {
     dao.checkChunkTable(instanceCount);
     taskQueue = new ArrayBlockingQueue<>(batchSize * 2);
     executorService = ProcessorUtils.createProcessors(workerCount, taskQueue, this::handleTask, REVALIDATOR_THREAD_NAME);
+    Gauge.builder("fc.revalidation.queue.size", this, RevalidationServiceImpl::getQueueSize)
+        .description("Self-descriptions waiting for revalidation").register(meterRegistry);
     managementThread = new Thread(this::manage, MANAGER_THREAD_NAME);
     managementThread.start();
   }
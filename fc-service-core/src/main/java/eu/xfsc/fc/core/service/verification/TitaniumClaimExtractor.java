@@ -2,14 +2,18 @@ package eu.xfsc.fc.core.service.verification;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import com.apicatalog.jsonld.JsonLd;
+import com.apicatalog.jsonld.JsonLdError;
 import com.apicatalog.jsonld.document.Document;
 import com.apicatalog.jsonld.document.JsonDocument;
 import com.apicatalog.rdf.RdfDataset;
-import com.apicatalog.rdf.RdfGraph;
 import com.apicatalog.rdf.RdfTriple;
 
+import eu.xfsc.fc.core.pojo.ClaimSet;
 import eu.xfsc.fc.core.pojo.ContentAccessor;
 import eu.xfsc.fc.core.pojo.SdClaim;
 import jakarta.json.JsonArray;
@@ -17,41 +21,117 @@ import jakarta.json.JsonObject;
 import jakarta.json.JsonValue;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Extracts claims from an expanded Verifiable Presentation. Credential subjects are converted to RDF independently,
+ * with an executor they are split into at most parallelism contiguous slices converted concurrently. Claims are
+ * added in subject order, so the result does not depend on the parallelism.
+ */
 @Slf4j
 public class TitaniumClaimExtractor implements ClaimExtractor {
 
+    private static final String VERIFIABLE_CREDENTIAL = "https://www.w3.org/2018/credentials#verifiableCredential";
+    private static final String CREDENTIAL_SUBJECT = "https://www.w3.org/2018/credentials#credentialSubject";
+
+    private final Executor executor;
+    private final int parallelism;
+
+    public TitaniumClaimExtractor() {
+        this(null, 1);
+    }
+
+    /**
+     * @param executor shared executor to convert credential subjects on
+     * @param parallelism maximum number of concurrent tasks per presentation
+     */
+    public TitaniumClaimExtractor(Executor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = executor == null ? 1 : Math.max(parallelism, 1);
+    }
+
     @Override
     public List<SdClaim> extractClaims(ContentAccessor content) throws Exception {
         log.debug("extractClaims.enter; got content: {}", content);
-        List<SdClaim> claims = new ArrayList<>();
-        Document document = JsonDocument.of(content.getContentAsStream());
+        return extractClaims(JsonDocument.of(content.getContentAsStream()));
+    }
+
+    /**
+     * Extracts claims from an already parsed presentation.
+     *
+     * @param document the presentation as JSON document
+     * @return the claims of all credential subjects
+     */
+    public List<SdClaim> extractClaims(Document document) throws JsonLdError {
         JsonArray arr = JsonLd.expand(document).get();
         log.debug("extractClaims; expanded: {}", arr);
-        JsonObject vp = arr.get(0).asJsonObject();
-        JsonArray vcs = vp.get("https://www.w3.org/2018/credentials#verifiableCredential").asJsonArray();
+        List<JsonObject> subjects = getCredentialSubjects(arr.get(0).asJsonObject());
+        ClaimSet claims = new ClaimSet();
+        int slices = Math.min(parallelism, subjects.size());
+        if (slices <= 1) {
+            addTriples(claims, toTriples(subjects));
+        } else {
+            List<CompletableFuture<List<RdfTriple>>> futures = new ArrayList<>(slices);
+            for (int i = 0; i < slices; i++) {
+                List<JsonObject> slice = subjects.subList(subjects.size() * i / slices, subjects.size() * (i + 1) / slices);
+                futures.add(CompletableFuture.supplyAsync(() -> toTriplesUnchecked(slice), executor));
+            }
+            try {
+                for (CompletableFuture<List<RdfTriple>> future: futures) {
+                    addTriples(claims, future.join());
+                }
+            } catch (CompletionException ex) {
+                futures.forEach(f -> f.cancel(false));
+                if (ex.getCause() instanceof JsonLdError) {
+                    throw (JsonLdError) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+        log.debug("extractClaims.exit; returning {} claims from {} subjects in {} slices", claims.size(), subjects.size(), slices);
+        return claims;
+    }
+
+    private List<JsonObject> getCredentialSubjects(JsonObject vp) {
+        List<JsonObject> subjects = new ArrayList<>();
+        JsonArray vcs = vp.getJsonArray(VERIFIABLE_CREDENTIAL);
+        if (vcs == null) {
+            return subjects;
+        }
         for (JsonValue vcv: vcs) {
             JsonObject vc = vcv.asJsonObject();
-            JsonArray graph = vc.get("@graph").asJsonArray();
-            for (JsonValue val: graph) {
-                JsonObject obj = val.asJsonObject();
-                JsonArray css = obj.getJsonArray("https://www.w3.org/2018/credentials#credentialSubject");
-                for (JsonValue cs: css) {
-                    Document csDoc = JsonDocument.of(cs.asJsonObject());
-                    RdfDataset rdf = JsonLd.toRdf(csDoc).produceGeneralizedRdf(true).get();
-                    RdfGraph rdfGraph = rdf.getDefaultGraph();
-                    List<RdfTriple> triples = rdfGraph.toList();
-                    for (RdfTriple triple: triples) {
-                        log.debug("extractClaims; got triple: {}", triple);
-                        SdClaim claim = new SdClaim(triple);
-                        claims.add(claim);
-                    }
+            JsonArray graph = vc.getJsonArray("@graph");
+            for (JsonValue val: graph == null ? List.<JsonValue>of(vc) : graph) {
+                JsonArray css = val.asJsonObject().getJsonArray(CREDENTIAL_SUBJECT);
+                if (css != null) {
+                    css.forEach(cs -> subjects.add(cs.asJsonObject()));
                 }
             }
         }
-        log.debug("extractClaims.exit; returning claims: {}", claims);
-        return claims;
+        return subjects;
+    }
+
+    private List<RdfTriple> toTriplesUnchecked(List<JsonObject> subjects) {
+        try {
+            return toTriples(subjects);
+        } catch (JsonLdError ex) {
+            throw new CompletionException(ex);
+        }
     }
-    
-    
-}
 
+    private List<RdfTriple> toTriples(List<JsonObject> subjects) throws JsonLdError {
+        List<RdfTriple> triples = new ArrayList<>();
+        for (JsonObject cs: subjects) {
+            Document csDoc = JsonDocument.of(cs);
+            RdfDataset rdf = JsonLd.toRdf(csDoc).produceGeneralizedRdf(true).get();
+            triples.addAll(rdf.getDefaultGraph().toList());
+        }
+        return triples;
+    }
+
+    private void addTriples(ClaimSet claims, List<RdfTriple> triples) {
+        for (RdfTriple triple: triples) {
+            log.debug("extractClaims; got triple: {}", triple);
+            claims.addTriple(triple);
+        }
+    }
+
+}
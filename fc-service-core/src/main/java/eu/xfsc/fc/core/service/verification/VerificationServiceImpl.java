@@ -13,18 +13,26 @@ import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.riot.system.stream.StreamManager;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,7 +43,7 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
-import com.apicatalog.jsonld.loader.DocumentLoader;
+import com.apicatalog.jsonld.document.JsonDocument;
 import com.apicatalog.jsonld.loader.SchemeRouter;
 import com.danubetech.keyformats.JWK_to_PublicKey;
 import com.danubetech.keyformats.crypto.PublicKeyVerifier;
@@ -50,6 +58,7 @@ import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
 import eu.xfsc.fc.core.dao.ValidatorCacheDao;
 import eu.xfsc.fc.core.exception.ClientException;
 import eu.xfsc.fc.core.exception.VerificationException;
+import eu.xfsc.fc.core.pojo.ClaimSet;
 import eu.xfsc.fc.core.pojo.ContentAccessor;
 import eu.xfsc.fc.core.pojo.SdClaim;
 import eu.xfsc.fc.core.pojo.SemanticValidationResult;
@@ -59,6 +68,7 @@ import eu.xfsc.fc.core.pojo.VerificationResultOffering;
 import eu.xfsc.fc.core.pojo.VerificationResultParticipant;
 import eu.xfsc.fc.core.service.filestore.FileStore;
 import eu.xfsc.fc.core.service.schemastore.SchemaStore;
+import eu.xfsc.fc.core.util.CacheMetrics;
 import eu.xfsc.fc.core.util.ClaimValidator;
 import foundation.identity.did.DIDDocument;
 import foundation.identity.jsonld.JsonLDException;
@@ -66,6 +76,13 @@ import foundation.identity.jsonld.JsonLDObject;
 import info.weboftrust.ldsignatures.LdProof;
 import info.weboftrust.ldsignatures.verifier.JsonWebSignature2020LdVerifier;
 import info.weboftrust.ldsignatures.verifier.LdVerifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.json.JsonStructure;
+import jakarta.json.JsonValue;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -77,7 +94,8 @@ import lombok.extern.slf4j.Slf4j;
 public class VerificationServiceImpl implements VerificationService {
 
   private static final Set<String> SIGNATURES = Set.of("JsonWebSignature2020"); //, "Ed25519Signature2018");
-  private static final ClaimExtractor[] extractors = new ClaimExtractor[]{new TitaniumClaimExtractor(), new DanubeTechClaimExtractor()};
+  private static final String EXTRACTION_THREAD_NAME = "claimExtractor";
+  private static final String VERIFIABLE_CREDENTIAL = "verifiableCredential";
 
   private static final int VRT_UNKNOWN = 0;
   private static final int VRT_PARTICIPANT = 1;
@@ -85,6 +103,10 @@ public class VerificationServiceImpl implements VerificationService {
   // take it from properties..
   private static final int HTTP_TIMEOUT = 5*1000; //5sec
 
+  private static long toMillis(long nanos) {
+    return nanos / 1_000_000;
+  }
+
   @Value("${federated-catalogue.verification.semantics:true}")
   private boolean verifySemantics;
   @Value("${federated-catalogue.verification.schema:true}")
@@ -101,6 +123,14 @@ public class VerificationServiceImpl implements VerificationService {
   private String trustAnchorAddr;
   @Value("${federated-catalogue.verification.did-resolver-url}")
   private String didResolverAddr;
+  @Value("${federated-catalogue.verification.contexts.locations:" + ContextBundle.DEFAULT_LOCATION + "}")
+  private String[] contextLocations;
+  @Value("${federated-catalogue.verification.contexts.refresh:false}")
+  private boolean refreshContexts;
+  @Value("${federated-catalogue.verification.extraction.threads:0}")
+  private int extractionThreads;
+  @Value("${federated-catalogue.verification.extraction.parallelism:4}")
+  private int extractionParallelism;
 
   @Autowired
   private SchemaStore schemaStore;
@@ -115,11 +145,28 @@ public class VerificationServiceImpl implements VerificationService {
   @Autowired
   private ObjectMapper objectMapper;
 
+  // the no-op global registry is kept where no registry is configured
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
   private boolean loadersInitialised;
+  private ContextBundle contextBundle;
+  private ExecutorService extractionExecutor;
+  private TitaniumClaimExtractor titaniumExtractor;
+  private final ClaimExtractor danubeTechExtractor = new DanubeTechClaimExtractor();
   private StreamManager streamManager;
   //@Autowired
   private RestTemplate rest;
 
+  private Timer timerTotal;
+  private Timer timerParse;
+  private Timer timerSemantic;
+  private Timer timerType;
+  private Timer timerExtraction;
+  private Timer timerSchema;
+  private Timer timerSignatures;
+  private CacheMetrics validatorCacheMetrics;
+
   public VerificationServiceImpl() {
     Security.addProvider(new BouncyCastleProvider());
     rest = restTemplate();
@@ -131,6 +178,38 @@ public class VerificationServiceImpl implements VerificationService {
     factory.setConnectionRequestTimeout(HTTP_TIMEOUT);
     return new RestTemplate(factory); 
   }
+
+  @PostConstruct
+  public void initExtractors() {
+    int threads = extractionThreads > 0 ? extractionThreads : Runtime.getRuntime().availableProcessors();
+    ThreadFactory factory = new BasicThreadFactory.Builder().namingPattern(EXTRACTION_THREAD_NAME + "-%d").daemon(true).build();
+    extractionExecutor = Executors.newFixedThreadPool(threads, factory);
+    titaniumExtractor = new TitaniumClaimExtractor(extractionExecutor, extractionParallelism);
+    log.info("initExtractors; {} extraction threads, up to {} per SD", threads, extractionParallelism);
+  }
+
+  @PostConstruct
+  public void initMetrics() {
+    timerTotal = stageTimer("total");
+    timerParse = stageTimer("parse");
+    timerSemantic = stageTimer("semantic");
+    timerType = stageTimer("type");
+    timerExtraction = stageTimer("extraction");
+    timerSchema = stageTimer("schema");
+    timerSignatures = stageTimer("signatures");
+    validatorCacheMetrics = new CacheMetrics(meterRegistry, "validator");
+  }
+
+  private Timer stageTimer(String stage) {
+    return Timer.builder("fc.verification.stage").tag("stage", stage)
+        .description("Time spent in a self-description verification stage")
+        .publishPercentileHistogram().register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void stopExtractors() {
+    extractionExecutor.shutdownNow();
+  }
   
   /**
    * The function validates the Self-Description as JSON and tries to parse the json handed over.
@@ -175,14 +254,15 @@ public class VerificationServiceImpl implements VerificationService {
 		  boolean verifySchema, boolean verifySignatures) throws VerificationException {
     log.debug("verifySelfDescription.enter; strict: {}, expectedType: {}, verifySemantics: {}, verifySchema: {}, verifySignatures: {}",
             strict, expectedType, verifySemantics, verifySchema, verifySignatures);
-    long stamp = System.currentTimeMillis();
+    Timer.Sample stamp = Timer.start();
 
     // syntactic validation
+    Timer.Sample stamp2 = Timer.start();
     VerifiablePresentation vp = parseContent(payload);
-    log.debug("verifySelfDescription; content parsed, time taken: {}", System.currentTimeMillis() - stamp);
+    log.debug("verifySelfDescription; content parsed, time taken: {}", toMillis(stamp2.stop(timerParse)));
 
     // semantic verification
-    long stamp2 = System.currentTimeMillis();
+    stamp2 = Timer.start();
     TypedCredentials tcs;
     if (verifySemantics) {
       try {
@@ -196,7 +276,7 @@ public class VerificationServiceImpl implements VerificationService {
     } else {
       tcs = getCredentials(vp);
     }
-    log.debug("verifySelfDescription; credentials processed, time taken: {}", System.currentTimeMillis() - stamp2);
+    log.debug("verifySelfDescription; credentials processed, time taken: {}", toMillis(stamp2.stop(timerSemantic)));
 
     if (tcs.isEmpty()) {
       throw new VerificationException("Semantic Error: no proper CredentialSubject found");
@@ -219,21 +299,27 @@ public class VerificationServiceImpl implements VerificationService {
       }
     }
 
-    stamp2 = System.currentTimeMillis();
+    stamp2 = Timer.start();
     List<SdClaim> claims = extractClaims(payload);
     log.debug("verifySelfDescription; claims extracted: {}, time taken: {}", (claims == null ? "null" : claims.size()),
-    		System.currentTimeMillis() - stamp2);
+    		toMillis(stamp2.stop(timerExtraction)));
 
     if (verifySemantics) {
       Set<String> subjects = new HashSet<>();
-      Set<String> objects = new HashSet<>();
       if (claims != null && !claims.isEmpty()) {
-        for (SdClaim claim : claims) {
-          subjects.add(claim.getSubjectString());
-          objects.add(claim.getObjectString());
+        // compare dictionary ids rather than term strings
+        ClaimSet claimSet = ClaimSet.of(claims);
+        BitSet objects = new BitSet(claimSet.getTermCount());
+        for (int i = 0; i < claimSet.size(); i++) {
+          objects.set(claimSet.getObjectId(i));
+        }
+        for (int i = 0; i < claimSet.size(); i++) {
+          int subject = claimSet.getSubjectId(i);
+          if (!objects.get(subject)) {
+            subjects.add(claimSet.getTerm(subject));
+          }
         }
       }
-      subjects.removeAll(objects);
 
       if (subjects.size() > 1) {
         String sep = System.lineSeparator();
@@ -249,7 +335,9 @@ public class VerificationServiceImpl implements VerificationService {
 
     // schema verification
     if (verifySchema) {
+      stamp2 = Timer.start();
       SemanticValidationResult result = verifyClaimsAgainstCompositeSchema(claims);
+      stamp2.stop(timerSchema);
       if (result == null || !result.isConforming()) {
         throw new VerificationException("Schema error: " + (result == null ? "unknown" : result.getValidationReport()));
       }
@@ -285,8 +373,7 @@ public class VerificationServiceImpl implements VerificationService {
               id, claims, validators);
     }
 
-    stamp = System.currentTimeMillis() - stamp;
-    log.debug("verifySelfDescription.exit; returning: {}; time taken: {}", result, stamp);
+    log.debug("verifySelfDescription.exit; returning: {}; time taken: {}", result, toMillis(stamp.stop(timerTotal)));
     return result;
   }
 
@@ -381,27 +468,46 @@ public class VerificationServiceImpl implements VerificationService {
   public List<SdClaim> extractClaims(ContentAccessor payload) {
     // Make sure our interceptors are in place.
     initLoaders();
-    List<SdClaim> claims = null;
-    for (ClaimExtractor extra : extractors) {
-      try {
-        claims = extra.extractClaims(payload);
-        if (claims != null) {
-          break;
-        }
-      } catch (Exception ex) {
-        log.error("extractClaims.error using {}: {}", extra.getClass().getName(), ex.getMessage());
+    ClaimExtractor extractor = danubeTechExtractor;
+    try {
+      // the extractor is chosen from the document shape, presentations are expanded by Titanium
+      JsonDocument document = JsonDocument.of(payload.getContentAsStream());
+      if (isPresentation(document)) {
+        extractor = titaniumExtractor;
+        return titaniumExtractor.extractClaims(document);
+      }
+      return danubeTechExtractor.extractClaims(payload);
+    } catch (Exception ex) {
+      log.error("extractClaims.error using {}: {}", extractor.getClass().getName(), ex.getMessage());
+    }
+    return null;
+  }
+
+  private boolean isPresentation(JsonDocument document) {
+    Optional<JsonStructure> json = document.getJsonContent();
+    if (json.isEmpty() || json.get().getValueType() != JsonValue.ValueType.OBJECT) {
+      return false;
+    }
+    for (String key: json.get().asJsonObject().keySet()) {
+      if (key.equals(VERIFIABLE_CREDENTIAL) || key.endsWith(":" + VERIFIABLE_CREDENTIAL) || key.endsWith("#" + VERIFIABLE_CREDENTIAL)) {
+        return true;
       }
     }
-    return claims;
+    return false;
   }
 
   private void initLoaders() {
     if (!loadersInitialised) {
       log.debug("initLoaders; Setting up Caching com.apicatalog.jsonld DocumentLoader");
-      DocumentLoader cachingLoader = new CachingHttpLoader(fileStore);
+      contextBundle = new ContextBundle(contextLocations);
+      CachingHttpLoader cachingLoader = new CachingHttpLoader(fileStore, contextBundle);
       SchemeRouter loader = (SchemeRouter) SchemeRouter.defaultInstance();
       loader.set("http", cachingLoader);
       loader.set("https", cachingLoader);
+      if (refreshContexts) {
+        // bundled contexts are served until the refreshed ones are there
+        CompletableFuture.runAsync(cachingLoader::refreshBundle);
+      }
       loadersInitialised = true;
     }
   }
@@ -413,7 +519,7 @@ public class VerificationServiceImpl implements VerificationService {
       log.debug("getStreamManager; Setting up Jena caching Locator");
       StreamManager clone = StreamManager.get().clone();
       clone.clearLocators();
-      clone.addLocator(new LocatorCaching(fileStore));
+      clone.addLocator(new LocatorCaching(fileStore, contextBundle));
       streamManager = clone;
     }
     return streamManager;
@@ -436,11 +542,12 @@ public class VerificationServiceImpl implements VerificationService {
     log.debug("verifySelfDescriptionAgainstSchema.enter;");
     SemanticValidationResult result = null;
     try {
-      if (schema == null) { 	
-        schema = schemaStore.getCompositeSchema(SchemaStore.SchemaType.SHAPE);
-      }
       List<SdClaim> claims = extractClaims(payload);
-      result = verifyClaimsAgainstSchema(claims, schema);
+      if (schema == null) {
+        result = verifyClaimsAgainstSchema(claims, schemaStore.getCompositeModel(SchemaStore.SchemaType.SHAPE));
+      } else {
+        result = verifyClaimsAgainstSchema(claims, schema);
+      }
     } catch (Exception exc) {
       log.info("verifySelfDescriptionAgainstSchema.error: {}", exc.getMessage());
     }
@@ -452,7 +559,7 @@ public class VerificationServiceImpl implements VerificationService {
 	log.debug("verifyClaimsAgainstCompositeSchema.enter;");
 	SemanticValidationResult result = null;
 	try {
-	  ContentAccessor shaclShape = schemaStore.getCompositeSchema(SchemaStore.SchemaType.SHAPE);
+	  Model shaclShape = schemaStore.getCompositeModel(SchemaStore.SchemaType.SHAPE);
 	  result = verifyClaimsAgainstSchema(claims, shaclShape);
 	} catch (Exception exc) {
 	  log.info("verifyClaimsAgainstCompositeSchema.error: {}", exc.getMessage());
@@ -473,11 +580,16 @@ public class VerificationServiceImpl implements VerificationService {
 	return new SemanticValidationResult(report == null, report);
   }
 
+  private SemanticValidationResult verifyClaimsAgainstSchema(List<SdClaim> claims, Model shape) {
+	String report = ClaimValidator.validateClaimsBySchema(claims, shape);
+	return new SemanticValidationResult(report == null, report);
+  }
+
   
   /* SD signatures verification */
   private List<Validator> checkCryptography(TypedCredentials tcs) {
     log.debug("checkCryptography.enter;");
-    long timestamp = System.currentTimeMillis();
+    Timer.Sample timestamp = Timer.start();
 
     Set<Validator> validators = new HashSet<>();
     try {
@@ -491,8 +603,7 @@ public class VerificationServiceImpl implements VerificationService {
       log.error("checkCryptography.error", ex);
       throw new VerificationException("Signatures error; " + ex.getMessage(), ex);
     }
-    timestamp = System.currentTimeMillis() - timestamp;
-    log.debug("checkCryptography.exit; returning: {}; time taken: {}", validators, timestamp);
+    log.debug("checkCryptography.exit; returning: {}; time taken: {}", validators, toMillis(timestamp.stop(timerSignatures)));
     return new ArrayList<>(validators);
   }
 
@@ -517,12 +628,14 @@ public class VerificationServiceImpl implements VerificationService {
     Validator validator = validatorCache.getFromCache(proof.getVerificationMethod().toString());
     if (validator == null) {
       log.debug("checkSignature; validator was not cached");
+      validatorCacheMetrics.miss();
       Pair<PublicKeyVerifier<?>, Validator> pkVerifierAndValidator = getVerifiedVerifier(proof);
       validator = pkVerifierAndValidator.getRight();
       validatorCache.addToCache(validator);
       pkVerifier = pkVerifierAndValidator.getLeft();
     } else {
       log.debug("checkSignature; validator was cached");
+      validatorCacheMetrics.hit();
       Map<String, Object> jwkMap = JsonLDObject.fromJson(validator.getPublicKey()).getJsonObject();
       pkVerifier = getVerifier(jwkMap);
     }
@@ -821,8 +934,9 @@ public class VerificationServiceImpl implements VerificationService {
     }
 
     private Pair<Boolean, Boolean> getSDTypes(VerifiableCredential credential) {
-      ContentAccessor gaxOntology = schemaStore.getCompositeSchema(SchemaStore.SchemaType.ONTOLOGY);
-      Boolean result = ClaimValidator.getSubjectType(gaxOntology, getStreamManager(), credential.toJson(), participantType, serviceOfferingType);
+      Model gaxOntology = schemaStore.getCompositeModel(SchemaStore.SchemaType.ONTOLOGY);
+      Boolean result = timerType.record(() ->
+          ClaimValidator.getSubjectType(gaxOntology, getStreamManager(), credential.toJson(), participantType, serviceOfferingType));
       log.debug("getSDTypes; got type result: {}", result);
       if (result == null) {
         return Pair.of(false, false);
@@ -0,0 +1,44 @@
+package eu.xfsc.fc.core.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Hit/miss counters plus a hit ratio gauge for one of the in-process caches.
+ * Meters are registered on the given registry, caches created outside of Spring beans
+ * use the global one, which is a no-op where no registry is bound to it.
+ */
+public class CacheMetrics {
+
+  private final Counter hits;
+  private final Counter misses;
+
+  public CacheMetrics(String cache) {
+    this(Metrics.globalRegistry, cache);
+  }
+
+  public CacheMetrics(MeterRegistry registry, String cache) {
+    hits = Counter.builder("fc.cache.requests").tag("cache", cache).tag("result", "hit")
+        .description("Cache lookups").register(registry);
+    misses = Counter.builder("fc.cache.requests").tag("cache", cache).tag("result", "miss")
+        .description("Cache lookups").register(registry);
+    Gauge.builder("fc.cache.hit.ratio", this, CacheMetrics::getHitRatio).tag("cache", cache)
+        .description("Share of cache lookups served from the cache").strongReference(true).register(registry);
+  }
+
+  public void hit() {
+    hits.increment();
+  }
+
+  public void miss() {
+    misses.increment();
+  }
+
+  public double getHitRatio() {
+    double total = hits.count() + misses.count();
+    return total == 0 ? 0 : hits.count() / total;
+  }
+
+}
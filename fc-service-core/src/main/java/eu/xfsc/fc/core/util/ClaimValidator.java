@@ -6,17 +6,15 @@ import static org.apache.jena.rdf.model.ResourceFactory.createStatement;
 import static org.apache.jena.rdf.model.ResourceFactory.createTypedLiteral;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.jena.datatypes.DatatypeFormatException;
 import org.apache.jena.datatypes.RDFDatatype;
 import org.apache.jena.datatypes.TypeMapper;
 import org.apache.jena.graph.Node;
@@ -32,14 +30,18 @@ import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.NodeIterator;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.riot.Lang;
-import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFParser;
 import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.RiotParseException;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
 import org.apache.jena.riot.system.stream.StreamManager;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
 import org.apache.jena.vocabulary.RDF;
 import org.topbraid.shacl.util.ModelPrinter;
 import org.topbraid.shacl.validation.ValidationUtil;
@@ -48,128 +50,112 @@ import org.topbraid.shacl.vocabulary.SH;
 import com.apicatalog.rdf.RdfValue;
 
 import eu.xfsc.fc.core.exception.QueryException;
+import eu.xfsc.fc.core.pojo.ClaimSet;
 import eu.xfsc.fc.core.pojo.ContentAccessor;
 import eu.xfsc.fc.core.pojo.SdClaim;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class ClaimValidator {
-    // Stored to temporarily deviate from the standard Jena behavior of parsing
-    // literals
-	// don't see how it can work in multithreaded scenario!
-    private boolean eagerJenaLiteralValidation;
-    private boolean jenaAcceptanceOfUnknownLiteralDatatypes;
-
-    private void switchOnJenaLiteralValidation() {
-        // save the actual settings to not interfere with other modules which
-        // rely on other settings
-        eagerJenaLiteralValidation =
-                org.apache.jena.shared.impl.JenaParameters.enableEagerLiteralValidation;
-        jenaAcceptanceOfUnknownLiteralDatatypes =
-                org.apache.jena.shared.impl.JenaParameters.enableSilentAcceptanceOfUnknownDatatypes;
-
-        // Now switch to picky mode
-        org.apache.jena.shared.impl.JenaParameters.enableEagerLiteralValidation = true;
-        org.apache.jena.shared.impl.JenaParameters.enableSilentAcceptanceOfUnknownDatatypes = false;
-    }
-
-    private void resetJenaLiteralValidation() {
-        org.apache.jena.shared.impl.JenaParameters.enableEagerLiteralValidation =
-                eagerJenaLiteralValidation;
-        org.apache.jena.shared.impl.JenaParameters.enableSilentAcceptanceOfUnknownDatatypes =
-                jenaAcceptanceOfUnknownLiteralDatatypes;
-    }
 
     /**
      * Validates if a claim elements are following the required syntax and
-     * conditions before sending them to Neo4J
+     * conditions before sending them to Neo4J. The claims are checked in one
+     * streaming parse, literal checks are done per parse, so the validator
+     * can be used by concurrent threads.
      *
      * @param sdClaimList the set of claims to be validated
-     * @return the claim as a formatted triple string
-     * @throws IOException 
+     * @return the claims as RDF model
      */
     public Model validateClaims(List<SdClaim> sdClaimList) { 
+        ClaimSet claims = ClaimSet.of(sdClaimList);
+        validateURIs(claims);
         Model listClaims = ModelFactory.createDefaultModel();
-        StringBuilder payload = new StringBuilder();
-        for (SdClaim sdClaim : sdClaimList) {
-            validateRDFTripleSyntax(sdClaim);
-            payload.append(sdClaim.asTriple());
+        try (Reader in = claims.toNTriplesReader()) {
+            RDFParser.create()
+                    .source(in)
+                    .lang(Lang.TTL)
+                    .parse(new LiteralCheckingStream(StreamRDFLib.graph(listClaims.getGraph()), claims));
+        } catch (RiotParseException e) {
+            // claims are serialized one per line
+            String triple = e.getLine() > 0 && e.getLine() <= claims.size() ? claims.get((int) e.getLine() - 1).asTriple() : "";
+            log.debug("validateClaims.error; {}", e.getMessage());
+            throw new QueryException(String.format("Triple %s has syntax error: %s", triple, e.getMessage()));
+        } catch (IOException | RiotException e) {
+            log.debug("validateClaims.error; {}", e.getMessage());
+            throw new QueryException(String.format("Claims have syntax error: %s", e.getMessage()));
         }
-        InputStream in = IOUtils.toInputStream(payload, StandardCharsets.UTF_8);
-        RDFDataMgr.read(listClaims, in, Lang.TTL);
         return listClaims;
     }
 
     /**
-     * Method to validate that a claim follow the RDF triple syntax, i.e., <
-     * (URI, blank node) , URI, (URI, blank node, literal) >
+     * Method to validate that claim IRIs are valid URIs. Every distinct term is checked once only.
+     * 
+     * Caution! Jena will automatically apply modifications to generate valid URIs. 
+     * E.g. the broken URI htw3id.org/gaia-x/indiv#serviceElasticSearch.json will be 
+     * converted to the URL file:///home/user/some/path/fc-service/htw3id.org/gaia-x/indiv#serviceElasticSearch.json
+     * Hence, we have to use the original URI string here, otherwise calling URI.create( ) 
+     * will not fail in case of a broken URI. Any abbreviated URIS (i.e. something like ex:Foo 
+     * without angle brackets) will be rejected by the parser as the ex prefix is not defined.
      *
-     * @param sdClaim the claim to be validated
+     * @param claims the claims to be validated
      */
-    private void validateRDFTripleSyntax(SdClaim sdClaim) {
-        Model model = ModelFactory.createDefaultModel();
-        try (InputStream in = IOUtils.toInputStream(sdClaim.asTriple(), StandardCharsets.UTF_8)) {
-            switchOnJenaLiteralValidation();
-            RDFDataMgr.read(model, in, Lang.TTL);
-        } catch (IOException | DatatypeFormatException | RiotException e) {
-            log.debug("Error in Validating validateRDFTripleSyntax {}", e.getMessage());
-            throw new QueryException(String.format("Triple %s has syntax error: %s", sdClaim.asTriple(), e.getMessage()));
-        } finally {
-            resetJenaLiteralValidation();
+    private void validateURIs(ClaimSet claims) {
+        BitSet invalid = new BitSet(claims.getTermCount());
+        for (int id = 0; id < claims.getTermCount(); id++) {
+            String term = claims.getTerm(id);
+            if (term.length() > 1 && term.charAt(0) == '<' && term.charAt(term.length() - 1) == '>') {
+                try {
+                    new URI(term.substring(1, term.length() - 1));
+                } catch (URISyntaxException e) {
+                    invalid.set(id);
+                }
+            } // else it is a literal or a blank node
         }
-
-    	URI uri;
-        Triple triple = model.getGraph().find().next();
-        // --- subject ----------------------------------------------------
-        Node s = triple.getSubject();
-        if (s.isURI()) {
-            // Caution! Jena will automatically apply modifications
-            // to generate valid URIs. E.g. the broken URI
-            // htw3id.org/gaia-x/indiv#serviceElasticSearch.json
-            // will be converted to the URL
-            // file:///home/user/some/path/fc-service/htw3id.org/gaia-x/indiv#serviceElasticSearch.json
-            // Hence, we have to use the original URI string here
-            // otherwise calling URI.create( ) will not fail in case
-            // of a broken URI.
-            // AND: We will have to strip off the angle brackets!
-            // Any abbreviated URIS (i.e. something like ex:Foo without
-            // angle brackets) will already be rejected above as Jena
-            // should complain about the not defined prefix (e.g. ex in
-            // the ex:Foo example above).
-            String subjectStr = sdClaim.getSubjectValue();
-            try {
-                uri = new URI(subjectStr);
-            } catch (URISyntaxException e) {
-                throw new QueryException(String.format("Subject in triple %s is not a valid URI", sdClaim.asTriple()));
-            } // else it should be a blank node
+        if (invalid.isEmpty()) {
+            return;
         }
-        // --- predicate --------------------------------------------------
-        Node p = triple.getPredicate();
-        if (p.isURI()) {
-            // c.f. the comment for handling subject nodes above
-            String predicateStr = sdClaim.getPredicateValue();
-            try {
-                uri = new URI(predicateStr);
-            } catch (URISyntaxException e) {
-                throw new QueryException(String.format("Predicate in triple %s is not a valid URI", sdClaim.asTriple()));
+        for (int i = 0; i < claims.size(); i++) {
+            if (invalid.get(claims.getSubjectId(i))) {
+                throw new QueryException(String.format("Subject in triple %s is not a valid URI", claims.get(i).asTriple()));
             }
-        }
-        // --- object -----------------------------------------------------
-        Node o = triple.getObject();
-        if (o.isURI()) {
-            // c.f. the comment for handling subject nodes above
-            String objectStr = sdClaim.getObjectValue();
-            try {
-                uri = new URI(objectStr);
-            } catch (URISyntaxException e) {
-                throw new QueryException(String.format("Object in triple %s is not a valid URI", sdClaim.asTriple()));
+            if (invalid.get(claims.getPredicateId(i))) {
+                throw new QueryException(String.format("Predicate in triple %s is not a valid URI", claims.get(i).asTriple()));
+            }
+            if (invalid.get(claims.getObjectId(i))) {
+                throw new QueryException(String.format("Object in triple %s is not a valid URI", claims.get(i).asTriple()));
             }
-        } else if (o.isLiteral()) {
-            // Nothing needs to be done here as literal syntax errors and
-            // datatype errors are already handled by the parser directly.
-            // See the catch blocks after the RDFDataMgr.read( ) call above.
+        }
+    }
+    
+    /**
+     * Rejects typed literals with lexical form not valid for their datatype. Replaces
+     * global JenaParameters.enableEagerLiteralValidation switch.
+     */
+    private static class LiteralCheckingStream extends StreamRDFWrapper {
+    	
+        private final ClaimSet claims;
+        private int index;
+
+        LiteralCheckingStream(StreamRDF other, ClaimSet claims) {
+            super(other);
+            this.claims = claims;
+        }
 
-        } // else it's a blank node, which is OK
+        @Override
+        public void triple(Triple triple) {
+            Node o = triple.getObject();
+            if (o.isLiteral()) {
+                RDFDatatype type = o.getLiteralDatatype();
+                if (type != null && !type.isValid(o.getLiteralLexicalForm())) {
+                    String claim = index < claims.size() ? claims.get(index).asTriple() : triple.toString();
+                    throw new QueryException(String.format("Triple %s has syntax error: Lexical form '%s' is not valid for datatype %s", 
+                    		claim, o.getLiteralLexicalForm(), type.getURI()));
+                }
+            }
+            index++;
+            super.triple(triple);
+        }
     }
     
     public Pair<String, Set<String>> resolveClaims(List<SdClaim> claims, String subject) {
@@ -188,34 +174,47 @@ public class ClaimValidator {
      * @return SemanticValidationResult object
      */
     public static String validateClaimsBySchema(List<SdClaim> claims, ContentAccessor schema, StreamManager sm) {
-      Model data = ModelFactory.createDefaultModel();
       Model shape = ModelFactory.createDefaultModel();
       RDFParser.create()
               .streamManager(sm)
               .source(schema.getContentAsStream())
               .lang(Lang.TURTLE)
               .parse(shape);
+      try {
+        return validateClaimsBySchema(claims, shape);
+      } finally {
+        shape.close();
+      }
+    }
 
-      RDFNode node;
+    /**
+     * Method that validates claims against already parsed SHACL shapes
+     *
+     * @param claims the claims to be validated
+     * @param shape  the SHACL shapes, not changed by validation, so it can be shared
+     * @return validation report, null if the claims conform to the shapes
+     */
+    public static String validateClaimsBySchema(List<SdClaim> claims, Model shape) {
+      Model data = ModelFactory.createDefaultModel();
+
+      // every distinct term is converted to a Jena node once only
+      ClaimSet claimSet = ClaimSet.of(claims);
+      RDFNode[] nodes = new RDFNode[claimSet.getTermCount()];
       TypeMapper typeMapper = TypeMapper.getInstance();
-      for (SdClaim claim: claims) {
-        log.debug("validateClaimsBySchema; {}", claim);
-        RdfValue object = claim.getObject();
-        if (object.isLiteral()) {
-          RDFDatatype objectType = typeMapper.getSafeTypeByName(object.asLiteral().getDatatype());
-          log.debug("validateClaimsBySchema; objectType is: {}", objectType);
-          node = createTypedLiteral(object.getValue(), objectType);
-        } else {
-          node = createResource(object.getValue());
-        }
-        Statement s = createStatement(createResource(claim.getSubject().getValue()), createProperty(claim.getPredicate().getValue()), node);
-        data.add(s);
+      for (int i = 0; i < claimSet.size(); i++) {
+        int sid = claimSet.getSubjectId(i);
+        int pid = claimSet.getPredicateId(i);
+        RDFNode s = getNode(claimSet, sid, nodes, typeMapper, data);
+        RDFNode p = getNode(claimSet, pid, nodes, typeMapper, data);
+        // literal terms are not expected at subject or predicate positions, but generalized RDF allows them
+        Resource subject = s.isResource() ? s.asResource() : createResource(getName(claimSet, sid, s));
+        Property predicate = p instanceof Property ? (Property) p : createProperty(getName(claimSet, pid, p));
+        data.add(createStatement(subject, predicate, getNode(claimSet, claimSet.getObjectId(i), nodes, typeMapper, data)));
       }
       
       Resource reportResource = ValidationUtil.validateModel(data, shape, true);
       log.debug("validateClaimsBySchema; got result: {}", reportResource);
       data.close();
-      shape.close();
 
       if (reportResource.getProperty(SH.conforms).getBoolean()) {
     	  return null;
@@ -223,9 +222,45 @@ public class ClaimValidator {
       return ModelPrinter.get().print(reportResource.getModel());
     }   
     
+    private static RDFNode getNode(ClaimSet claims, int termId, RDFNode[] nodes, TypeMapper typeMapper, Model data) {
+      RDFNode node = nodes[termId];
+      if (node == null) {
+        RdfValue value = claims.getValue(termId);
+        if (value == null) {
+          // claims added as N-Triples strings have no RDF value, their terms are parsed
+          Node parsed = NodeFactoryExtra.parseNode(claims.getTerm(termId));
+          node = parsed.isURI() ? createProperty(parsed.getURI()) : data.asRDFNode(parsed);
+        } else if (value.isLiteral()) {
+          RDFDatatype objectType = typeMapper.getSafeTypeByName(value.asLiteral().getDatatype());
+          log.debug("getNode; objectType is: {}", objectType);
+          node = createTypedLiteral(value.getValue(), objectType);
+        } else {
+          // predicates are IRIs as well, a Property can serve as subject or object too
+          node = createProperty(value.getValue());
+        }
+        nodes[termId] = node;
+      }
+      return node;
+    }
+
+    private static String getName(ClaimSet claims, int termId, RDFNode node) {
+      return node.isLiteral() ? node.asLiteral().getLexicalForm() : claims.getTerm(termId);
+    }
+    
     private static final String CREDENTIAL_SUBJECT = "https://www.w3.org/2018/credentials#credentialSubject";
     
     public static Boolean getSubjectType(ContentAccessor ontology, StreamManager sm, String subject, String partType, String offerType) {
+        Model model = ModelFactory.createDefaultModel();
+        try {
+          model.read(new StringReader(ontology.getContentAsString()), null, Lang.TURTLE.getName());
+        } catch (Exception e) {
+          log.debug("getSDType.error: {}", e.getMessage());
+          return null;
+        }
+        return getSubjectType(model, sm, subject, partType, offerType);
+    }
+
+    public static Boolean getSubjectType(Model ontology, StreamManager sm, String subject, String partType, String offerType) {
         try {
           Model data = ModelFactory.createDefaultModel();
           RDFParser.create()
@@ -254,7 +289,7 @@ public class ClaimValidator {
         return null;
       }
 
-      private static boolean checkTypeSubClass(ContentAccessor ontology, String type, String gaxType) {
+      private static boolean checkTypeSubClass(Model ontology, String type, String gaxType) {
         log.debug("checkTypeSubClass.enter; got type: {}, gaxType: {}", type, gaxType);
         if (type.equals(gaxType)) {
           return true;
@@ -264,8 +299,7 @@ public class ClaimValidator {
                              "select ?uri where { ?uri rdfs:subClassOf <" + gaxType + ">}";
         Query query = QueryFactory.create(queryString);
         //ContentAccessor gaxOntology = schemaStore.getCompositeSchema(SchemaStore.SchemaType.ONTOLOGY);
-        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM_MICRO_RULE_INF);
-        model.read(new StringReader(ontology.getContentAsString()), null, Lang.TURTLE.getName());
+        OntModel model = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM_MICRO_RULE_INF, ontology);
         QueryExecution qe = QueryExecutionFactory.create(query, model);
         ResultSet results = qe.execSelect();
         while (results.hasNext()) {
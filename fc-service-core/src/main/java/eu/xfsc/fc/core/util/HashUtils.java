@@ -4,6 +4,9 @@ import com.google.common.hash.Hashing;
 import java.nio.charset.StandardCharsets;
 import java.util.regex.Pattern;
 
+import eu.xfsc.fc.core.pojo.ContentAccessor;
+import eu.xfsc.fc.core.pojo.ContentAccessorBytes;
+
 /**
  * Utilities for hashing strings.
  */
@@ -30,4 +33,29 @@ public class HashUtils {
     return Hashing.sha256().hashString(data, StandardCharsets.UTF_8).toString();
   }
 
+  /**
+   * Calculates the Sha256 hash of the given UTF-8 encoded data and returns it as a
+   * Hex-String, the same value as for the decoded String.
+   *
+   * @param data The data to hash.
+   * @return The hash of the data as Hex-String: ^[0-9a-f]{64}$ .)
+   */
+  public static String calculateSha256AsHex(byte[] data) {
+    return Hashing.sha256().hashBytes(data).toString();
+  }
+
+  /**
+   * Calculates the Sha256 hash of the content, takes the precalculated hash of byte based
+   * content if there is one.
+   *
+   * @param content The content to hash.
+   * @return The hash of the content as Hex-String: ^[0-9a-f]{64}$ .)
+   */
+  public static String calculateSha256AsHex(ContentAccessor content) {
+    if (content instanceof ContentAccessorBytes) {
+      return ((ContentAccessorBytes) content).getHash();
+    }
+    return calculateSha256AsHex(content.getContentAsString());
+  }
+
 }
@@ -0,0 +1,122 @@
+package eu.xfsc.fc.core.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import eu.xfsc.fc.api.generated.model.UserProfile;
+import eu.xfsc.fc.core.config.DatabaseConfig;
+import eu.xfsc.fc.core.dao.impl.IdentityCacheDaoImpl;
+import eu.xfsc.fc.core.pojo.PaginatedResults;
+import eu.xfsc.fc.core.pojo.ParticipantMetaData;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {IdentityCacheDaoTest.TestApplication.class, DatabaseConfig.class, IdentityCacheDaoImpl.class})
+@DirtiesContext
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public class IdentityCacheDaoTest {
+
+  @SpringBootApplication
+  public static class TestApplication {
+
+    public static void main(final String[] args) {
+      SpringApplication.run(TestApplication.class, args);
+    }
+  }
+
+  @Autowired
+  private IdentityCacheDao identityCache;
+
+  @AfterEach
+  public void cleanUp() {
+    identityCache.removeStale(Instant.now().plusSeconds(60));
+  }
+
+  @Test
+  void testSearchParticipantsAndUsers() {
+    Instant now = Instant.now();
+    identityCache.storeParticipant(new ParticipantMetaData("part1", "Participant 1", "did:web:part1", null, "hash1"), now);
+    identityCache.storeParticipant(new ParticipantMetaData("part2", "Participant 2", "did:web:part2", null, "hash2"), now);
+    identityCache.storeUser(new UserProfile("part1", "Jane", "Doe", "jane@part1.eu", List.of("Ro-MU-CA", "Ro-SD-A"), "user1", null), now);
+    identityCache.storeUser(new UserProfile("part1", "John", "Doe", "john@part1.eu", List.of(), "user2", null), now);
+    identityCache.storeUser(new UserProfile("part2", "Max", "Muster", "max@part2.eu", List.of("Ro-Pa-A"), "user3", null), now);
+
+    PaginatedResults<ParticipantMetaData> parts = identityCache.searchParticipants(1, 10);
+    assertEquals(2, parts.getTotalCount());
+    assertEquals(1, parts.getResults().size());
+    assertEquals("part2", parts.getResults().get(0).getId());
+    assertEquals("hash2", parts.getResults().get(0).getSdHash());
+
+    PaginatedResults<UserProfile> users = identityCache.searchUsers("part1", 0, 1);
+    assertEquals(2, users.getTotalCount());
+    UserProfile user = users.getResults().get(0);
+    assertEquals("user1", user.getId());
+    assertEquals("Jane Doe", user.getName());
+    assertEquals(List.of("Ro-MU-CA", "Ro-SD-A"), user.getRoleIds());
+
+    users = identityCache.searchUsers(null, 5, 10);
+    assertEquals(3, users.getTotalCount());
+    assertTrue(users.getResults().isEmpty());
+
+    identityCache.removeParticipant("part1", Instant.now());
+    assertTrue(identityCache.selectParticipant("part1").isEmpty());
+    assertEquals(0, identityCache.searchUsers("part1", 0, 10).getTotalCount());
+    assertEquals(1, identityCache.searchUsers(null, 0, 10).getTotalCount());
+  }
+
+  @Test
+  void testRemoveStale() {
+    Instant before = Instant.now().minusSeconds(60);
+    Instant now = Instant.now();
+    identityCache.storeParticipant(new ParticipantMetaData("part1", "Participant 1", "did:web:part1", null, "hash1"), before);
+    identityCache.storeParticipant(new ParticipantMetaData("part2", "Participant 2", "did:web:part2", null, "hash2"), now);
+    identityCache.storeUser(new UserProfile("part1", "Jane", "Doe", "jane@part1.eu", List.of(), "user1", null), before);
+    identityCache.storeUser(new UserProfile("part2", "Max", "Muster", "max@part2.eu", List.of(), "user3", null), now);
+
+    assertEquals(2, identityCache.removeStale(now));
+    assertTrue(identityCache.selectParticipant("part1").isEmpty());
+    assertEquals("Participant 2", identityCache.selectParticipant("part2").get().getName());
+    assertEquals(1, identityCache.searchUsers(null, 0, 10).getTotalCount());
+  }
+
+  @Test
+  void testOlderDataNotStored() {
+    Instant before = Instant.now().minusSeconds(60);
+    Instant now = Instant.now();
+    identityCache.storeParticipant(new ParticipantMetaData("part1", "Participant 1", "did:web:part1", null, "hash1"), now);
+    identityCache.storeParticipant(new ParticipantMetaData("part1", "Old Participant", "did:web:part1", null, "hash0"), before);
+    assertEquals("Participant 1", identityCache.selectParticipant("part1").get().getName());
+
+    identityCache.storeUser(new UserProfile("part1", "Jane", "Doe", "jane@part1.eu", List.of(), "user1", null), now);
+    identityCache.removeUser("user1", now);
+    identityCache.storeUser(new UserProfile("part1", "Jane", "Doe", "jane@part1.eu", List.of(), "user1", null), before);
+    assertEquals(0, identityCache.searchUsers(null, 0, 10).getTotalCount());
+
+    identityCache.storeUser(new UserProfile("part1", "Max", "Muster", "max@part1.eu", List.of(), "user2", null), before);
+    identityCache.removeParticipant("part1", now);
+    identityCache.storeParticipant(new ParticipantMetaData("part1", "Participant 1", "did:web:part1", null, "hash1"), before);
+    identityCache.storeUser(new UserProfile("part1", "Max", "Muster", "max@part1.eu", List.of(), "user2", null), before);
+    assertTrue(identityCache.selectParticipant("part1").isEmpty());
+    assertEquals(0, identityCache.searchUsers(null, 0, 10).getTotalCount());
+
+    // created again after removal
+    Instant later = now.plusSeconds(1);
+    identityCache.storeParticipant(new ParticipantMetaData("part1", "Participant 1", "did:web:part1", null, "hash1"), later);
+    assertTrue(identityCache.selectParticipant("part1").isPresent());
+  }
+
+}
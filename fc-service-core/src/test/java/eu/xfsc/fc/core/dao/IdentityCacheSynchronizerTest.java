@@ -0,0 +1,173 @@
+package eu.xfsc.fc.core.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.xfsc.fc.api.generated.model.UserProfile;
+import eu.xfsc.fc.core.config.DatabaseConfig;
+import eu.xfsc.fc.core.dao.impl.IdentityCacheDaoImpl;
+import eu.xfsc.fc.core.dao.impl.IdentityCacheSynchronizer;
+import eu.xfsc.fc.core.pojo.PaginatedResults;
+import eu.xfsc.fc.core.pojo.ParticipantMetaData;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {IdentityCacheSynchronizerTest.TestApplication.class, DatabaseConfig.class, IdentityCacheDaoImpl.class})
+@DirtiesContext
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public class IdentityCacheSynchronizerTest {
+
+  @SpringBootApplication
+  public static class TestApplication {
+
+    public static void main(final String[] args) {
+      SpringApplication.run(TestApplication.class, args);
+    }
+  }
+
+  private static final String REALM = "gaia-x";
+  private static final String CLIENT = "federated-catalogue";
+  private static final int PAGE_SIZE = 2;
+
+  @Autowired
+  private IdentityCacheDao identityCache;
+
+  private Keycloak keycloak;
+
+  @BeforeEach
+  public void setUp() {
+    keycloak = mock(Keycloak.class, RETURNS_DEEP_STUBS);
+    ClientRepresentation client = new ClientRepresentation();
+    client.setId("client-uuid");
+    when(keycloak.realm(REALM).clients().findByClientId(CLIENT)).thenReturn(List.of(client));
+    when(keycloak.realm(REALM).clients().get("client-uuid").roles().list()).thenReturn(List.of(role("Ro-MU-CA")));
+    when(keycloak.realm(REALM).clients().get("client-uuid").roles().get("Ro-MU-CA").getRoleUserMembers(0, PAGE_SIZE))
+        .thenReturn(Set.of(user("user1", "part1")));
+    when(keycloak.realm(REALM).users().list(0, PAGE_SIZE)).thenReturn(List.of(user("user1", "part1"), user("user2", "part1")));
+    when(keycloak.realm(REALM).users().list(2, PAGE_SIZE)).thenReturn(List.of(user("user3", "part2")));
+  }
+
+  @AfterEach
+  public void cleanUp() {
+    identityCache.removeStale(Instant.now().plusSeconds(60));
+  }
+
+  @Test
+  void testSynchronize() {
+    when(keycloak.realm(REALM).groups().groups(null, 0, PAGE_SIZE, false)).thenReturn(List.of(group("part1"), group("part2")));
+    when(keycloak.realm(REALM).groups().groups(null, 2, PAGE_SIZE, false)).thenReturn(List.of());
+    identityCache.storeParticipant(new ParticipantMetaData("part3", "Participant 3", "did:web:part3", null, "hash3"),
+        Instant.now().minusSeconds(60));
+    IdentityCacheSynchronizer synchronizer = synchronizer(true);
+    assertFalse(synchronizer.isReady());
+
+    assertEquals(5, synchronizer.synchronize());
+    assertTrue(synchronizer.isReady());
+    PaginatedResults<ParticipantMetaData> parts = identityCache.searchParticipants(0, 10);
+    assertEquals(2, parts.getTotalCount());
+    assertEquals("Participant part1", parts.getResults().get(0).getName());
+    assertTrue(identityCache.selectParticipant("part3").isEmpty(), "Participant removed in Keycloak still listed");
+    PaginatedResults<UserProfile> users = identityCache.searchUsers("part1", 0, 10);
+    assertEquals(2, users.getTotalCount());
+    assertEquals(List.of("Ro-MU-CA"), users.getResults().get(0).getRoleIds());
+    assertEquals(List.of(), users.getResults().get(1).getRoleIds());
+  }
+
+  @Test
+  void testRemovedDuringSynchronization() {
+    // the participant is removed through the catalogue after the synchronization read it from Keycloak
+    when(keycloak.realm(REALM).groups().groups(null, 0, PAGE_SIZE, false)).thenAnswer(inv -> {
+      Thread.sleep(5);
+      identityCache.removeParticipant("part2", Instant.now());
+      return List.of(group("part1"), group("part2"));
+    });
+    when(keycloak.realm(REALM).groups().groups(null, 2, PAGE_SIZE, false)).thenReturn(List.of());
+    IdentityCacheSynchronizer synchronizer = synchronizer(true);
+
+    synchronizer.synchronize();
+    assertTrue(identityCache.selectParticipant("part1").isPresent());
+    assertTrue(identityCache.selectParticipant("part2").isEmpty(), "Removed participant stored again");
+
+    // the next synchronization does not see the participant in Keycloak anymore
+    doReturn(List.of(group("part1"))).when(keycloak.realm(REALM).groups()).groups(null, 0, PAGE_SIZE, false);
+    synchronizer.synchronize();
+    assertTrue(identityCache.selectParticipant("part2").isEmpty());
+  }
+
+  @Test
+  void testNotReadyUntilSynchronized() {
+    when(keycloak.realm(REALM).groups().groups(null, 0, PAGE_SIZE, false)).thenThrow(new IllegalStateException("Keycloak not available"));
+    IdentityCacheSynchronizer synchronizer = synchronizer(true);
+    assertThrows(IllegalStateException.class, () -> synchronizer.synchronize());
+    assertFalse(synchronizer.isReady());
+
+    IdentityCacheSynchronizer disabled = synchronizer(false);
+    assertEquals(-1, disabled.synchronize());
+    assertFalse(disabled.isReady());
+  }
+
+  private IdentityCacheSynchronizer synchronizer(boolean readModel) {
+    IdentityCacheSynchronizer synchronizer = new IdentityCacheSynchronizer();
+    ReflectionTestUtils.setField(synchronizer, "realm", REALM);
+    ReflectionTestUtils.setField(synchronizer, "resourceId", CLIENT);
+    ReflectionTestUtils.setField(synchronizer, "readModel", readModel);
+    ReflectionTestUtils.setField(synchronizer, "pageSize", PAGE_SIZE);
+    ReflectionTestUtils.setField(synchronizer, "keycloak", keycloak);
+    ReflectionTestUtils.setField(synchronizer, "identityCache", identityCache);
+    return synchronizer;
+  }
+
+  private static GroupRepresentation group(String id) {
+    GroupRepresentation group = new GroupRepresentation();
+    group.setName(id);
+    group.setAttributes(Map.of("name", List.of("Participant " + id), "publicKey", List.of("did:web:" + id),
+        "sdHash", List.of("hash-" + id)));
+    return group;
+  }
+
+  private static UserRepresentation user(String id, String participantId) {
+    UserRepresentation user = new UserRepresentation();
+    user.setId(id);
+    user.setFirstName("First " + id);
+    user.setLastName("Last " + id);
+    user.setEmail(id + "@" + participantId + ".eu");
+    user.setAttributes(Map.of("participantId", List.of(participantId)));
+    return user;
+  }
+
+  private static RoleRepresentation role(String name) {
+    RoleRepresentation role = new RoleRepresentation();
+    role.setName(name);
+    return role;
+  }
+
+}
@@ -0,0 +1,107 @@
+package eu.xfsc.fc.core.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.config.DatabaseConfig;
+import eu.xfsc.fc.core.dao.impl.SDOutboxDaoImpl;
+import eu.xfsc.fc.core.service.pubsub.SDEventRecord;
+import eu.xfsc.fc.core.service.pubsub.SDPublisher.SDEvent;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {SDOutboxDaoTest.TestApplication.class, DatabaseConfig.class, SDOutboxDaoImpl.class})
+@DirtiesContext
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public class SDOutboxDaoTest {
+
+  @SpringBootApplication
+  public static class TestApplication {
+
+    public static void main(final String[] args) {
+      SpringApplication.run(TestApplication.class, args);
+    }
+  }
+
+  @Autowired
+  private SDOutboxDao outbox;
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @AfterEach
+  public void cleanUp() {
+    jdbc.update("delete from sdoutbox");
+  }
+
+  @Test
+  void testClaimHeadsInOrder() {
+    outbox.insert(List.of(event("hash1", SDEvent.ADD), event("hash2", SDEvent.ADD), event("hash1", SDEvent.UPDATE)));
+
+    List<SDEventRecord> heads = outbox.claimHeads(10, 60000);
+    assertEquals(2, heads.size());
+    assertEquals("hash1", heads.get(0).sdHash());
+    assertEquals(SDEvent.ADD, heads.get(0).event());
+    assertEquals(SelfDescriptionStatus.ACTIVE, heads.get(0).status());
+    assertEquals("hash1", new String(heads.get(0).payload(), StandardCharsets.UTF_8));
+    assertEquals("hash2", heads.get(1).sdHash());
+    assertTrue(heads.get(0).id() < heads.get(1).id());
+
+    // the next event of an SD is not claimed before its head is done
+    assertEquals(1, outbox.delete(List.of(heads.get(0).id())));
+    List<SDEventRecord> next = outbox.claimHeads(10, 60000);
+    assertEquals(1, next.size());
+    assertEquals("hash1", next.get(0).sdHash());
+    assertEquals(SDEvent.UPDATE, next.get(0).event());
+  }
+
+  @Test
+  void testClaimedHeadsAreLeased() {
+    outbox.insert(List.of(event("hash1", SDEvent.ADD), event("hash2", SDEvent.ADD), event("hash3", SDEvent.DELETE)));
+
+    List<SDEventRecord> first = outbox.claimHeads(2, 60000);
+    assertEquals(2, first.size());
+    // another relay gets the remaining head only
+    List<SDEventRecord> second = outbox.claimHeads(10, 60000);
+    assertEquals(1, second.size());
+    assertEquals("hash3", second.get(0).sdHash());
+    assertTrue(outbox.claimHeads(10, 60000).isEmpty());
+
+    // expired leases are claimed again
+    jdbc.update("update sdoutbox set nexttime = now() - interval '1 second' where sdhash = 'hash1'");
+    List<SDEventRecord> expired = outbox.claimHeads(10, 60000);
+    assertEquals(1, expired.size());
+    assertEquals("hash1", expired.get(0).sdHash());
+  }
+
+  @Test
+  void testPostponeFailed() {
+    outbox.insert(List.of(event("hash1", SDEvent.ADD)));
+    List<SDEventRecord> heads = outbox.claimHeads(10, 0);
+    assertEquals(1, heads.size());
+    assertEquals(1, outbox.postpone(List.of(heads.get(0).id()), 60000));
+    assertTrue(outbox.claimHeads(10, 0).isEmpty());
+    assertEquals(1, jdbc.queryForObject("select attempts from sdoutbox", Integer.class));
+  }
+
+  private static SDEventRecord event(String hash, SDEvent event) {
+    return new SDEventRecord(null, hash, event, event == SDEvent.DELETE ? null : SelfDescriptionStatus.ACTIVE,
+        hash.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,103 @@
+package eu.xfsc.fc.core.dao.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+public class ReadReplicaRouterTest {
+
+  private static final String PORT_QUERY = "select cast(current_setting('port') as int)";
+
+  private EmbeddedPostgres primary;
+  private EmbeddedPostgres replica;
+  private JdbcTemplate primaryJdbc;
+
+  @BeforeEach
+  public void startDatabases() throws IOException {
+    primary = EmbeddedPostgres.start();
+    replica = EmbeddedPostgres.start();
+    primaryJdbc = new JdbcTemplate(primary.getPostgresDatabase());
+  }
+
+  @AfterEach
+  public void stopDatabases() throws IOException {
+    primary.close();
+    if (replica != null) {
+      replica.close();
+    }
+  }
+
+  @Test
+  void testWithoutReplica() {
+    ReadReplicaRouter router = new ReadReplicaRouter(primaryJdbc, null, 1000, 0);
+    assertFalse(router.isReplicaEnabled());
+    assertEquals(primary.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+  }
+
+  @Test
+  void testReadAfterWrite() throws Exception {
+    ReadReplicaRouter router = new ReadReplicaRouter(primaryJdbc, replica.getPostgresDatabase(), 200, 0);
+    assertTrue(router.isReplicaEnabled());
+    assertEquals(replica.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+
+    router.written();
+    assertEquals(primary.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+    Thread.sleep(300);
+    assertEquals(replica.getPort(), router.readNamedJdbc().getJdbcTemplate().queryForObject(PORT_QUERY, Integer.class));
+  }
+
+  @Test
+  void testTransactions() {
+    ReadReplicaRouter router = new ReadReplicaRouter(primaryJdbc, replica.getPostgresDatabase(), 200, 0);
+    TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(primary.getPostgresDatabase()));
+    assertEquals(primary.getPort(), tx.execute(status -> router.readJdbc().queryForObject(PORT_QUERY, Integer.class)));
+    tx.setReadOnly(true);
+    assertEquals(replica.getPort(), tx.execute(status -> router.readJdbc().queryForObject(PORT_QUERY, Integer.class)));
+  }
+
+  @Test
+  void testReplicaLag() throws Exception {
+    AtomicLong lag = new AtomicLong(500);
+    ReadReplicaRouter router = new ReadReplicaRouter(primaryJdbc, replica.getPostgresDatabase(), 200, 100) {
+
+      @Override
+      long queryLag() {
+        return lag.get();
+      }
+    };
+    assertEquals(primary.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+
+    // the lag is not checked again before the check interval passed
+    lag.set(50);
+    assertEquals(primary.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+    Thread.sleep(150);
+    assertEquals(replica.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+
+    lag.set(201);
+    Thread.sleep(150);
+    assertEquals(primary.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+    assertFalse(router.useReplica());
+  }
+
+  @Test
+  void testReplicaUnavailable() throws IOException {
+    ReadReplicaRouter router = new ReadReplicaRouter(primaryJdbc, replica.getPostgresDatabase(), 200, 0);
+    assertEquals(replica.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+    replica.close();
+    replica = null;
+    assertEquals(primary.getPort(), router.readJdbc().queryForObject(PORT_QUERY, Integer.class));
+  }
+
+}
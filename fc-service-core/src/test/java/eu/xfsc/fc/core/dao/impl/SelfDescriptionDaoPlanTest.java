@@ -0,0 +1,187 @@
+package eu.xfsc.fc.core.dao.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.config.DatabaseConfig;
+import eu.xfsc.fc.core.pojo.SdFilter;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks that every filter of {@link SelfDescriptionDaoImpl#selectByFilter} and the chunked hash scan are served
+ * by an index, so that a page of self-descriptions does not need a full scan of sdfiles.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {SelfDescriptionDaoPlanTest.TestApplication.class, DatabaseConfig.class, SelfDescriptionDaoImpl.class})
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public class SelfDescriptionDaoPlanTest {
+
+  private static final String CONTENT = "plan-test";
+  private static final int ROWS = 20000;
+
+  @SpringBootApplication
+  public static class TestApplication {
+
+    public static void main(final String[] args) {
+      SpringApplication.run(TestApplication.class, args);
+    }
+  }
+
+  @Autowired
+  private SelfDescriptionDaoImpl sdDao;
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  private Instant now;
+
+  @BeforeAll
+  public void loadRows() {
+    now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    // every 10th row is deprecated or revoked and kept in sdhistory, 200 issuers and 500 validators are spread evenly
+    String insert = """
+        insert into %s(sdhash, subjectid, issuer, uploadtime, statustime, status, content, validators)
+        select md5(i::text) || md5((i + 1)::text), 'subject' || i, 'issuer' || (i %% 200),
+          cast(? as timestamp with time zone) - i * interval '1 minute', cast(? as timestamp with time zone) - i * interval '1 minute',
+          %s, ?, array['did:web:validator' || (i %% 500)]
+        from generate_series(1, ?) as i where (i %% 10 = 0) = %b""";
+    jdbc.update(insert.formatted("sdfiles", "0", false), Timestamp.from(now), Timestamp.from(now), CONTENT, ROWS);
+    jdbc.update(insert.formatted("sdhistory", "case when i % 20 = 0 then 2 else 3 end", true), Timestamp.from(now), Timestamp.from(now), CONTENT, ROWS);
+    jdbc.execute("analyze sdfiles");
+    jdbc.execute("analyze sdhistory");
+  }
+
+  @AfterAll
+  public void removeRows() {
+    jdbc.update("delete from sdfiles where content = ?", CONTENT);
+    jdbc.update("delete from sdhistory where content = ?", CONTENT);
+  }
+
+  @Test
+  void testFilterByValidators() {
+    assertIndexUsed("idx_sdfiles_validators", f -> f.setValidators(List.of("did:web:validator7")));
+  }
+
+  @Test
+  void testFilterByIssuers() {
+    assertIndexUsed("idx_sdfiles_issuer", f -> f.setIssuers(List.of("issuer13")));
+  }
+
+  @Test
+  void testFilterByStatus() {
+    assertIndexUsed("idx_sdhistory_status_statustime", f -> f.setStatuses(List.of(SelfDescriptionStatus.DEPRECATED)));
+  }
+
+  @Test
+  void testFilterByIds() {
+    assertIndexUsed("idx_sdfiles_subjectid", f -> f.setIds(List.of("subject42")));
+  }
+
+  @Test
+  void testFilterByHashes() {
+    assertIndexUsed("sdfiles_pkey", f -> f.setHashes(List.of("abc", "def")));
+  }
+
+  @Test
+  void testFilterByStatusTime() {
+    assertIndexUsed("idx_sdfiles_statustime", f -> f.setStatusTimeRange(now.minus(5000, ChronoUnit.MINUTES),
+        now.minus(4900, ChronoUnit.MINUTES)));
+  }
+
+  @Test
+  void testFilterByUploadTime() {
+    assertIndexUsed("idx_sdfiles_uploadtime", f -> f.setUploadTimeRange(now.minus(10050, ChronoUnit.MINUTES),
+        now.minus(10000, ChronoUnit.MINUTES)));
+  }
+
+  @Test
+  void testNoFilter() {
+    assertIndexUsed("idx_sdfiles_statustime", f -> {});
+  }
+
+  @Test
+  void testCombinedFilters() {
+    assertNoSeqScan(f -> {
+      f.setStatuses(List.of(SelfDescriptionStatus.ACTIVE));
+      f.setValidators(List.of("did:web:validator11"));
+    });
+    assertNoSeqScan(f -> {
+      f.setIssuers(List.of("issuer20", "issuer40"));
+      f.setStatuses(List.of(SelfDescriptionStatus.ACTIVE));
+    });
+    assertNoSeqScan(f -> {
+      f.setIds(List.of("subject1", "subject2"));
+      f.setStatusTimeRange(now.minus(1, ChronoUnit.DAYS), now);
+    });
+  }
+
+  @Test
+  void testChunkedHashes() {
+    Set<String> hashes = new HashSet<>();
+    int chunks = 3;
+    for (int chunkId = 0; chunkId < chunks; chunkId++) {
+      String lastHash = null;
+      List<String> batch;
+      do {
+        batch = sdDao.selectHashes(lastHash, 1000, chunks, chunkId);
+        for (String hash: batch) {
+          assertTrue(hashes.add(hash), "hash " + hash + " returned twice");
+        }
+        lastHash = batch.isEmpty() ? null : batch.get(batch.size() - 1);
+      } while (!batch.isEmpty());
+    }
+    assertEquals(ROWS - ROWS / 10, hashes.size());
+
+    String plan = String.join("\n", jdbc.queryForList("""
+        explain select sdhash from sdfiles where status = 0 and hashbucket >= 0 and hashbucket < 341
+        and (hashbucket, sdhash) > (hashtext('abc') & 1023, 'abc') order by hashbucket, sdhash limit 1000""", String.class));
+    assertTrue(plan.contains(" on idx_sdfiles_status_hashbucket"), "expected hash bucket index in plan:\n" + plan);
+  }
+
+  private String explain(Consumer<SdFilter> setup) {
+    SdFilter filter = new SdFilter();
+    filter.setLimit(20);
+    setup.accept(filter);
+    String plan = String.join("\n", sdDao.explainByFilter(filter));
+    log.debug("explain; plan: {}", plan);
+    return plan;
+  }
+
+  private void assertIndexUsed(String index, Consumer<SdFilter> setup) {
+    String plan = explain(setup);
+    assertTrue(plan.contains(" on " + index), "expected " + index + " in plan:\n" + plan);
+  }
+
+  private void assertNoSeqScan(Consumer<SdFilter> setup) {
+    String plan = explain(setup);
+    assertFalse(plan.contains("Seq Scan on sdfiles"), "unexpected full scan in plan:\n" + plan);
+  }
+
+}
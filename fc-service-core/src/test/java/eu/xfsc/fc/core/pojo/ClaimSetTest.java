@@ -0,0 +1,94 @@
+package eu.xfsc.fc.core.pojo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.apicatalog.rdf.Rdf;
+import com.apicatalog.rdf.RdfResource;
+
+public class ClaimSetTest {
+
+  private static final String SUBJECT = "http://example.org/test-issuer";
+  private static final String NAME = "http://w3id.org/gaia-x/participant#name";
+  private static final String XSD_STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+  @Test
+  void testTermsAreInterned() {
+    ClaimSet claims = new ClaimSet(1);
+    RdfResource subject = Rdf.createIRI(SUBJECT);
+    for (int i = 0; i < 10; i++) {
+      claims.addTriple(Rdf.createTriple(subject, Rdf.createIRI(NAME), Rdf.createTypedString("name " + i, XSD_STRING)));
+    }
+    assertEquals(10, claims.size());
+    // one subject, one predicate and ten literals
+    assertEquals(12, claims.getTermCount());
+    assertSame(claims.get(0).getSubjectString(), claims.get(9).getSubjectString());
+    assertEquals(claims.getSubjectId(0), claims.getSubjectId(9));
+    assertEquals("<" + SUBJECT + ">", claims.get(5).getSubjectString());
+    assertEquals("\"name 5\"", claims.get(5).getObjectString());
+    assertEquals(XSD_STRING, claims.get(5).getObject().asLiteral().getDatatype());
+  }
+
+  @Test
+  void testStringAndRdfTermsShareIds() {
+    ClaimSet claims = new ClaimSet();
+    claims.add("<" + SUBJECT + ">", "<" + NAME + ">", "\"Name\"");
+    claims.addTriple(Rdf.createTriple(Rdf.createIRI(SUBJECT), Rdf.createIRI(NAME), Rdf.createBlankNode("_:b0")));
+    assertEquals(claims.getSubjectId(0), claims.getSubjectId(1));
+    assertEquals(claims.getPredicateId(0), claims.getPredicateId(1));
+    // the RDF value is kept once it becomes known
+    assertNotNull(claims.get(0).getSubject());
+    assertEquals("_:b0", claims.get(1).getObjectValue());
+  }
+
+  @Test
+  void testClearInvalidatesIterators() {
+    ClaimSet claims = new ClaimSet();
+    claims.add("<" + SUBJECT + ">", "<" + NAME + ">", "\"Name\"");
+    Iterator<SdClaim> iterator = claims.iterator();
+    claims.clear();
+    assertEquals(0, claims.size());
+    assertEquals(0, claims.getTermCount());
+    assertThrows(ConcurrentModificationException.class, iterator::next);
+  }
+
+  @Test
+  void testNTriplesMatchClaims() {
+    List<SdClaim> list = new ArrayList<>();
+    list.add(new SdClaim("<" + SUBJECT + ">", "<" + NAME + ">", "\"Name\""));
+    list.add(new SdClaim("<" + SUBJECT + ">", "<http://w3id.org/gaia-x/participant#legalAddress>", "_:b0"));
+    ClaimSet claims = ClaimSet.of(list);
+    assertSame(claims, ClaimSet.of(claims));
+    assertEquals(list, claims);
+    StringBuilder expected = new StringBuilder();
+    list.forEach(c -> expected.append(c.asTriple()));
+    assertEquals(expected.toString(), claims.toNTriples());
+    assertTrue(claims.toNTriples().endsWith("_:b0 . \n"));
+  }
+
+  @Test
+  void testNTriplesReader() throws Exception {
+    ClaimSet claims = new ClaimSet();
+    for (int i = 0; i < 100; i++) {
+      claims.add("<" + SUBJECT + ">", "<" + NAME + ">", "\"Name " + i + "\"");
+    }
+    StringWriter out = new StringWriter();
+    try (Reader reader = claims.toNTriplesReader()) {
+      reader.transferTo(out);
+    }
+    assertEquals(claims.toNTriples(), out.toString());
+  }
+
+}
@@ -0,0 +1,42 @@
+package eu.xfsc.fc.core.pojo;
+
+import static eu.xfsc.fc.core.util.TestUtil.getAccessor;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import eu.xfsc.fc.core.util.HashUtils;
+
+public class ContentAccessorBytesTest {
+
+  @Test
+  void testHashAndContentMatchStringAccessor() throws Exception {
+    String content = getAccessor("Claims-Extraction-Tests/participantSD.jsonld").getContentAsString() + " ä€";
+    ContentAccessorDirect direct = new ContentAccessorDirect(content);
+    ContentAccessorBytes bytes = new ContentAccessorBytes(content.getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(HashUtils.calculateSha256AsHex(content), bytes.getHash());
+    assertEquals(HashUtils.calculateSha256AsHex(direct), HashUtils.calculateSha256AsHex(bytes));
+    assertEquals(content, bytes.getContentAsString());
+    assertSame(bytes.getContentAsString(), bytes.getContentAsString());
+    assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), bytes.getContentAsStream().readAllBytes());
+    assertEquals(direct, bytes);
+    assertEquals(bytes, direct);
+    assertEquals(direct.hashCode(), bytes.hashCode());
+  }
+
+  @Test
+  void testOfString() {
+    String content = "{\"@id\": \"http://example.org/test\"}";
+    ContentAccessorBytes bytes = ContentAccessorBytes.of(content);
+    assertSame(content, bytes.getContentAsString());
+    assertEquals(HashUtils.calculateSha256AsHex(content), bytes.getHash());
+    assertSame(content, bytes.withDecoded(content).getContentAsString());
+    assertEquals(bytes.getHash(), bytes.withDecoded(content).getHash());
+  }
+
+}
@@ -47,12 +47,17 @@ public class FileStoreTest {
   @Qualifier("schemaFileStore")
   private FileStore fileStore;
 
+  @Autowired
+  @Qualifier("historyFileStore")
+  private FileStore historyFileStore;
+
   private static final int TOTAL_FILE_COUNT = 1_000;
   private static final int THREAD_COUNT = 20;
 
   @AfterEach
   public void storageSelfCleaning() throws IOException {
     fileStore.clearStorage();
+    historyFileStore.clearStorage();
   }
 
   private static ContentAccessor createContent(final int idx) {
@@ -183,6 +188,33 @@ public class FileStoreTest {
     testStoreSpeed(nameLength, treeDepth, THREAD_COUNT, TOTAL_FILE_COUNT);
   }
 
+  @Test
+  void test11DurableFileStore() throws Exception {
+    log.info("test11DurableFileStore");
+    ContentAccessor content = createContent(11);
+    String hash = HashUtils.calculateSha256AsHex(content.getContentAsString());
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < THREAD_COUNT; i++) {
+      final Thread thread = new Thread(() -> {
+        try {
+          historyFileStore.replaceFile(hash, content);
+        } catch (IOException ex) {
+          log.warn("Failed to replace file.", ex);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread: threads) {
+      thread.join();
+    }
+    // concurrent replacements leave one complete file, no temporary ones
+    final MutableInt count = new MutableInt(0);
+    historyFileStore.getFileIterable().forEach(file -> count.increment());
+    assertEquals(1, count.intValue());
+    assertEquals(content.getContentAsString(), historyFileStore.readFile(hash).getContentAsString());
+  }
+
   private void createFiles(final int threadCount, final int perThreadCount) {
     List<Thread> threads = new ArrayList<>();
     for (int i = 0; i < threadCount; i++) {
@@ -0,0 +1,82 @@
+package eu.xfsc.fc.core.service.graphdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class CypherStatementTest {
+
+    @Test
+    void testLimit() {
+        assertTrue(CypherStatement.of("MATCH (n) RETURN n").isLimitAbsent());
+        assertFalse(CypherStatement.of("MATCH (n) RETURN n LIMIT 10").isLimitAbsent());
+        assertFalse(CypherStatement.of("match (n)\nreturn n\nlimit $limit").isLimitAbsent());
+        assertTrue(CypherStatement.of("MATCH (n) WHERE n.name = 'no limit' RETURN n.limit").isLimitAbsent());
+        assertTrue(CypherStatement.of("MATCH (n) WITH n LIMIT 5 RETURN n").isLimitAbsent());
+        assertTrue(CypherStatement.of("MATCH (n) CALL { WITH n RETURN n.x AS x LIMIT 1 } RETURN x").isLimitAbsent());
+        assertTrue(CypherStatement.of("MATCH (n) // limit\nRETURN n").isLimitAbsent());
+        assertFalse(CypherStatement.of("MATCH (n) DETACH DELETE n").isLimitAbsent());
+        assertFalse(CypherStatement.of("CALL apoc.util.sleep($duration)").isLimitAbsent());
+        assertEquals("MATCH (n) RETURN n limit $limit", CypherStatement.of("MATCH (n) RETURN n").withLimit("limit"));
+    }
+
+    @Test
+    void testWithLimit() {
+        assertEquals("MATCH (n) RETURN n limit $limit // all nodes",
+                CypherStatement.of("MATCH (n) RETURN n // all nodes").withLimit("limit"));
+        assertEquals("MATCH (n) RETURN n.name limit $limit /* names */ ;",
+                CypherStatement.of("MATCH (n) RETURN n.name /* names */ ;").withLimit("limit"));
+        assertEquals("MATCH (n) RETURN n limit $limit;", CypherStatement.of("MATCH (n)\nRETURN n;\n").withLimit("limit"));
+        assertEquals("MATCH (n) RETURN {name: n.name} limit $max",
+                CypherStatement.of("MATCH (n) RETURN {name: n.name}").withLimit("max"));
+        String noReturn = "MATCH (n) DETACH DELETE n";
+        assertEquals(noReturn, CypherStatement.of(noReturn).withLimit("limit"));
+    }
+
+    @Test
+    void testOrdered() {
+        assertTrue(CypherStatement.of("MATCH (n) RETURN n ORDER BY n.name").isOrdered());
+        assertTrue(CypherStatement.of("MATCH (n) WITH n order\n by n.name RETURN n").isOrdered());
+        assertFalse(CypherStatement.of("MATCH (n) WHERE n.name = 'ORDER BY' RETURN n").isOrdered());
+        assertFalse(CypherStatement.of("MATCH (n) RETURN n.order, n.by").isOrdered());
+        assertFalse(CypherStatement.of("MATCH (n:`ORDER BY`) RETURN n").isOrdered());
+    }
+
+    @Test
+    void testTotalCount() {
+        assertEquals("MATCH (n) WITH count(*) AS totalCount MATCH (n) RETURN totalCount, n LIMIT 25",
+                CypherStatement.of("MATCH (n) RETURN n LIMIT 25").withTotalCount());
+        assertEquals("MATCH (n) WITH count(*) AS totalCount MATCH (n) RETURN * LIMIT 25",
+                CypherStatement.of("MATCH (n) RETURN * LIMIT 25").withTotalCount());
+        assertEquals("MATCH (n) WITH count(*) AS totalCount MATCH (n) RETURN DISTINCT totalCount, n.name",
+                CypherStatement.of("MATCH (n) RETURN DISTINCT n.name").withTotalCount());
+        assertEquals("MATCH (n {returned: 'return'}) WITH count(*) AS totalCount MATCH (n {returned: 'return'}) "
+                + "return totalCount, n.returnValue",
+                CypherStatement.of("MATCH (n {returned: 'return'}) return n.returnValue").withTotalCount());
+
+        String union = "MATCH (n:A) RETURN n UNION MATCH (n:B) RETURN n";
+        assertEquals(union, CypherStatement.of(union).withTotalCount());
+        String noReturn = "CALL apoc.util.sleep($duration)";
+        assertEquals(noReturn, CypherStatement.of(noReturn).withTotalCount());
+    }
+
+    @Test
+    void testNormalize() {
+        assertEquals("MATCH (n) RETURN n", CypherStatement.normalize("\n  MATCH (n)\n\tRETURN  n\n"));
+        assertEquals("MATCH (n {name: 'a  b'}) RETURN n.`x  y`",
+                CypherStatement.normalize("MATCH (n {name: 'a  b'})\n  RETURN n.`x  y`"));
+        assertEquals("MATCH (n) // a  comment\nRETURN n", CypherStatement.normalize("MATCH (n)   // a  comment\n   RETURN n"));
+    }
+
+    @Test
+    void testCache() {
+        CypherStatement cypher = CypherStatement.of("MATCH (n:Cached) RETURN n");
+        assertSame(cypher, CypherStatement.of("MATCH (n:Cached) RETURN n"));
+        assertSame(cypher.withTotalCount(), cypher.withTotalCount());
+        assertSame(cypher, CypherStatement.of("  MATCH (n:Cached)\n  RETURN n\n"));
+    }
+
+}
@@ -578,6 +578,43 @@ public class Neo4jGraphStoreTest {
         graphGaia.deleteClaims(credentialSubject2);
     }
 
+    /**
+     * Deletes the claims of two self-descriptions in one batch. The node shared
+     * by both of them only must be deleted too, the node they share with a third
+     * self-description must be kept for the third one.
+     */
+    @Test
+    void testDeleteClaimsBatchWithSharedNodes() {
+        String credentialSubject1 = "http://ex.com/batchSubject1";
+        String credentialSubject2 = "http://ex.com/batchSubject2";
+        String credentialSubject3 = "http://ex.com/batchSubject3";
+        graphGaia.addClaims(List.of(
+                new SdClaim("<http://ex.com/batchSubject1>", "<http://ex.com/some_property>", "<http://ex.com/batchShared>"),
+                new SdClaim("<http://ex.com/batchSubject1>", "<http://ex.com/some_other_property>", "<http://ex.com/batchKept>")
+        ), credentialSubject1);
+        graphGaia.addClaims(List.of(
+                new SdClaim("<http://ex.com/batchSubject2>", "<http://ex.com/some_property>", "<http://ex.com/batchShared>")
+        ), credentialSubject2);
+        graphGaia.addClaims(List.of(
+                new SdClaim("<http://ex.com/batchSubject3>", "<http://ex.com/some_property>", "<http://ex.com/batchKept>")
+        ), credentialSubject3);
+
+        graphGaia.deleteClaims(List.of(credentialSubject1, credentialSubject2));
+
+        GraphQuery query = new GraphQuery("MATCH (n) WHERE n.uri STARTS WITH 'http://ex.com/batch' RETURN n.uri AS uri, "
+                + "n.claimsGraphUri AS graphs", Map.of());
+        List<Map<String, Object>> nodes = graphGaia.queryData(query).getResults();
+        Assertions.assertEquals(2, nodes.size(), "unexpected nodes: " + nodes);
+        for (Map<String, Object> node: nodes) {
+            Assertions.assertEquals(List.of(credentialSubject3), node.get("graphs"), "unexpected node: " + node);
+        }
+        query = new GraphQuery("MATCH (n) WHERE n.claimsGraphUri = [] RETURN n", Map.of());
+        Assertions.assertTrue(graphGaia.queryData(query).getResults().isEmpty());
+
+        // clean up
+        graphGaia.deleteClaims(credentialSubject3);
+    }
+
     /**
      * This test checks for a property for a given credential subject and
      * returns uri of the subject if it exists
@@ -0,0 +1,104 @@
+package eu.xfsc.fc.core.service.graphdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.harness.Neo4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import eu.xfsc.fc.api.generated.model.QueryLanguage;
+import eu.xfsc.fc.core.exception.ClientException;
+import eu.xfsc.fc.core.exception.TooManyRequestsException;
+import eu.xfsc.fc.core.pojo.GraphQuery;
+import eu.xfsc.fc.testsupport.config.EmbeddedNeo4JConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest
+@ActiveProfiles({"test"})
+@ContextConfiguration(classes = {Neo4jGraphStore.class})
+@Import(EmbeddedNeo4JConfig.class)
+public class QueryAdmissionTest {
+
+    private static final String QUERY = "MATCH (n:AdmissionTest) RETURN n";
+
+    @Autowired
+    private Neo4j embeddedDatabaseServer;
+    @Autowired
+    private Driver driver;
+
+    @BeforeAll
+    void createNodes() {
+        try (Session session = driver.session()) {
+            session.run("UNWIND range(1, 1000) AS i CREATE (:AdmissionTest {i: i})").consume();
+        }
+    }
+
+    @AfterAll
+    void closeNeo4j() {
+        try (Session session = driver.session()) {
+            session.run("MATCH (n:AdmissionTest) DELETE n").consume();
+        }
+        embeddedDatabaseServer.close();
+    }
+
+    @Test
+    void testConcurrencyLimits() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryAdmission admission = new QueryAdmission(driver, registry, 2, 1, 50, 1000, 1, 1000, 10);
+        QueryAdmission.Permit permit = admission.acquire("client1");
+        assertThrows(TooManyRequestsException.class, () -> admission.acquire("client1"));
+        try (QueryAdmission.Permit other = admission.acquire("client2")) {
+            assertThrows(TooManyRequestsException.class, () -> admission.acquire("client3"));
+            assertThrows(TooManyRequestsException.class, () -> admission.acquire(null));
+        }
+        permit.close();
+        permit.close();
+        try (QueryAdmission.Permit first = admission.acquire("client3"); QueryAdmission.Permit second = admission.acquire(null)) {
+            assertThrows(TooManyRequestsException.class, () -> admission.acquire("client1"));
+        }
+        assertEquals(4, registry.get("fc.graph.admission.rejected").tag("reason", "queue").counter().count());
+        assertEquals(0, registry.get("fc.graph.admission.waiting").gauge().value());
+    }
+
+    @Test
+    void testCostChecks() {
+        GraphQuery query = new GraphQuery(QUERY, Map.of(), QueryLanguage.OPENCYPHER, 5, true, "client1");
+        QueryAdmission admission = new QueryAdmission(driver, new SimpleMeterRegistry(), 2, 1, 50, 10000, 1, 100000, 10);
+        assertTrue(admission.estimateCost(QUERY, Map.of()) >= 100);
+        assertSame(query, admission.checkCost(query, GraphQuery::getQuery));
+
+        admission = new QueryAdmission(driver, new SimpleMeterRegistry(), 2, 1, 50, 10, 1, 100000, 10);
+        GraphQuery downgraded = admission.checkCost(query, GraphQuery::getQuery);
+        assertFalse(downgraded.isWithTotalCount());
+        assertEquals(1, downgraded.getTimeout());
+        assertEquals("client1", downgraded.getClient());
+
+        QueryAdmission rejecting = new QueryAdmission(driver, new SimpleMeterRegistry(), 2, 1, 50, 10, 1, 10, 10);
+        assertThrows(ClientException.class, () -> rejecting.checkCost(query, GraphQuery::getQuery));
+    }
+
+    @Test
+    void testInvalidStatement() {
+        QueryAdmission admission = new QueryAdmission(driver, new SimpleMeterRegistry(), 2, 1, 50, 10, 1, 10, 10);
+        GraphQuery query = new GraphQuery("MATCH (n RETURN n", Map.of());
+        assertEquals(0, admission.estimateCost(query.getQuery(), Map.of()));
+        assertSame(query, admission.checkCost(query, GraphQuery::getQuery));
+    }
+
+}
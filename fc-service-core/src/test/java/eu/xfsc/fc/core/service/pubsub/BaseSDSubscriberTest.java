@@ -0,0 +1,122 @@
+package eu.xfsc.fc.core.service.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.xfsc.fc.api.generated.model.SelfDescription;
+import eu.xfsc.fc.api.generated.model.SelfDescriptionExport;
+import eu.xfsc.fc.api.generated.model.SelfDescriptionResult;
+import eu.xfsc.fc.client.SelfDescriptionClient;
+import eu.xfsc.fc.core.exception.ConflictException;
+import eu.xfsc.fc.core.exception.VerificationException;
+import eu.xfsc.fc.core.pojo.VerificationResult;
+import eu.xfsc.fc.core.service.sdstore.SelfDescriptionStore;
+import eu.xfsc.fc.core.service.verification.VerificationService;
+
+/**
+ * Loading of peer snapshots.
+ */
+public class BaseSDSubscriberTest {
+
+  private static final String SOURCE = "http://localhost:8081";
+
+  private SelfDescriptionStore sdStore;
+  private VerificationService verificationService;
+  private SelfDescriptionClient sdClient;
+  private TestSubscriber subscriber;
+
+  static class TestSubscriber extends BaseSDSubscriber {
+
+    @Override
+    protected void subscribe() {
+      subscribed.complete(null);
+    }
+  }
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    sdStore = mock(SelfDescriptionStore.class);
+    verificationService = mock(VerificationService.class);
+    when(verificationService.verifySelfDescription(any(), anyBoolean(), anyBoolean(), anyBoolean()))
+        .thenReturn(mock(VerificationResult.class));
+    sdClient = mock(SelfDescriptionClient.class);
+    when(sdClient.exportSelfDescriptions(null, 2)).thenReturn(page("hash2", "hash1", "hash2"));
+    when(sdClient.exportSelfDescriptions("hash2", 2)).thenReturn(page("hash3", "hash3"));
+    when(sdClient.exportSelfDescriptions("hash3", 2)).thenReturn(page(null));
+
+    subscriber = new TestSubscriber();
+    ReflectionTestUtils.setField(subscriber, "sdStore", sdStore);
+    ReflectionTestUtils.setField(subscriber, "verificationService", verificationService);
+    ReflectionTestUtils.setField(subscriber, "snapshotBatchSize", 2);
+    ReflectionTestUtils.setField(subscriber, "snapshotWorkerCount", 2);
+    ReflectionTestUtils.setField(subscriber, "snapshotTimeout", 10000L);
+    subscriber.sdClients.put(SOURCE, sdClient);
+  }
+
+  @Test
+  void testLoadSnapshot() throws Exception {
+    // SDs stored before an interrupted snapshot are loaded already
+    doThrow(new ConflictException("exists")).when(sdStore).storeSelfDescription(argThat(sd -> "hash2".equals(sd.getSdHash())), any());
+    assertEquals(3, subscriber.loadSnapshot(SOURCE));
+    verify(sdStore, times(3)).storeSelfDescription(any(), any());
+  }
+
+  @Test
+  void testIncompleteSnapshotFails() throws Exception {
+    when(verificationService.verifySelfDescription(argThat(c -> "content-hash3".equals(c.getContentAsString())),
+        anyBoolean(), anyBoolean(), anyBoolean())).thenThrow(new VerificationException("invalid"));
+    IllegalStateException ex = assertThrows(IllegalStateException.class, () -> subscriber.loadSnapshot(SOURCE));
+    assertTrue(ex.getMessage().contains("1 SDs not stored"), ex.getMessage());
+
+    ReflectionTestUtils.setField(subscriber, "snapshotMaxFailures", 1);
+    assertEquals(2, subscriber.loadSnapshot(SOURCE));
+  }
+
+  @Test
+  void testFailedPageFailsSnapshot() throws Exception {
+    when(sdClient.exportSelfDescriptions("hash2", 2)).thenThrow(new IllegalStateException("peer down"));
+    assertThrows(IllegalStateException.class, () -> subscriber.loadSnapshot(SOURCE));
+    verify(sdStore, times(2)).storeSelfDescription(any(), any());
+  }
+
+  @Test
+  void testReadinessWaitsForSubscription() throws Exception {
+    subscriber.subscribe();
+    subscriber.run(null);
+
+    TestSubscriber failing = new TestSubscriber() {
+      @Override
+      protected void subscribe() {
+        subscribed.completeExceptionally(new IllegalStateException("peer down"));
+      }
+    };
+    failing.subscribe();
+    assertThrows(IllegalStateException.class, () -> failing.run(null));
+  }
+
+  private static SelfDescriptionExport page(String lastHash, String... hashes) {
+    List<SelfDescriptionResult> items = Arrays.stream(hashes).map(hash -> {
+      SelfDescription meta = new SelfDescription();
+      meta.setSdHash(hash);
+      return new SelfDescriptionResult(meta, "content-" + hash);
+    }).toList();
+    return new SelfDescriptionExport(lastHash, items);
+  }
+
+}
@@ -0,0 +1,84 @@
+package eu.xfsc.fc.core.service.pubsub;
+
+import static eu.xfsc.fc.core.util.TestUtil.getAccessor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.pojo.SdClaim;
+import eu.xfsc.fc.core.pojo.Validator;
+import eu.xfsc.fc.core.pojo.VerificationResult;
+import eu.xfsc.fc.core.pojo.VerificationResultOffering;
+
+public class SDPayloadCodecTest {
+
+  private final ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules();
+
+  private static VerificationResult createVerificationResult() {
+    String subject = "<https://delta-dao.com/.well-known/serviceMVGPortal.json>";
+    List<SdClaim> claims = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      claims.add(new SdClaim(subject, "<https://www.w3id.org/gaia-x/service#name" + i + ">", "\"EuProGigant Portal " + i + "\""));
+    }
+    List<Validator> validators = List.of(new Validator("did:web:compliance.lab.gaia-x.eu", "PK", Instant.now().plus(1, ChronoUnit.DAYS)));
+    return new VerificationResultOffering(Instant.now(), SelfDescriptionStatus.ACTIVE.getValue(), "http://gaiax.de", Instant.now(),
+        subject, claims, validators);
+  }
+
+  @Test
+  void testRoundTrip() throws Exception {
+    String content = getAccessor("Claims-Extraction-Tests/participantTwoVCs.jsonld").getContentAsString();
+    VerificationResult vr = createVerificationResult();
+    SDPayloadCodec codec = new SDPayloadCodec(1024);
+    byte[] data = codec.encode(new SDReplicationPayload(content, vr));
+    assertTrue(SDPayloadCodec.isBinary(data));
+    assertEquals(SDPayloadCodec.FLAG_DEFLATE, data[2]);
+
+    SDReplicationPayload payload = codec.decode(data);
+    VerificationResult vr2 = payload.toVerificationResult();
+    assertEquals(content, payload.getContent());
+    assertEquals(vr.getId(), vr2.getId());
+    assertEquals(vr.getIssuer(), vr2.getIssuer());
+    assertEquals(vr.getIssuedDateTime(), vr2.getIssuedDateTime());
+    assertEquals(vr.getValidators(), vr2.getValidators());
+    assertEquals(vr.getValidatorDids(), vr2.getValidatorDids());
+    assertEquals(vr.getClaims().size(), vr2.getClaims().size());
+    for (int i = 0; i < vr.getClaims().size(); i++) {
+      assertEquals(vr.getClaims().get(i), vr2.getClaims().get(i));
+    }
+  }
+
+  @Test
+  void testUncompressedAndLegacy() throws Exception {
+    SDPayloadCodec codec = new SDPayloadCodec(-1);
+    byte[] data = codec.encode(new SDReplicationPayload("{}", createVerificationResult()));
+    assertEquals(0, data[2]);
+    assertEquals("{}", codec.decode(data).getContent());
+    assertFalse(SDPayloadCodec.isBinary(jsonMapper.writeValueAsBytes(Map.of("content", "{}"))));
+  }
+
+  /**
+   * The legacy JSON message does not carry claims, so subscribers have to verify the SD again; encoding and decoding
+   * rates are compared in ReplicationPayloadBenchmark of fc-benchmark.
+   */
+  @Test
+  void testPayloadSize() throws Exception {
+    String content = getAccessor("Claims-Extraction-Tests/participantTwoVCs.jsonld").getContentAsString();
+    VerificationResult vr = createVerificationResult();
+    byte[] json = jsonMapper.writeValueAsBytes(Map.of("content", content, "verificationResult", jsonMapper.writeValueAsString(vr)));
+    byte[] deflated = new SDPayloadCodec(0).encode(new SDReplicationPayload(content, vr));
+    assertTrue(deflated.length < json.length, "compressed payload should be smaller than legacy one");
+  }
+
+}
@@ -0,0 +1,137 @@
+package eu.xfsc.fc.core.service.pubsub.nats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.config.DatabaseConfig;
+import eu.xfsc.fc.core.dao.SDOutboxDao;
+import eu.xfsc.fc.core.dao.impl.SDOutboxDaoImpl;
+import eu.xfsc.fc.core.service.pubsub.SDEventRecord;
+import eu.xfsc.fc.core.service.pubsub.SDPublisher.SDEvent;
+import io.nats.client.Connection;
+import io.nats.client.JetStream;
+import io.nats.client.PublishOptions;
+import io.nats.client.api.PublishAck;
+import io.nats.client.impl.Headers;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@ContextConfiguration(classes = {NatsSDOutboxRelayTest.TestApplication.class, DatabaseConfig.class, SDOutboxDaoImpl.class})
+@DirtiesContext
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+public class NatsSDOutboxRelayTest {
+
+  @SpringBootApplication
+  public static class TestApplication {
+
+    public static void main(final String[] args) {
+      SpringApplication.run(TestApplication.class, args);
+    }
+  }
+
+  @Autowired
+  private SDOutboxDao outbox;
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @AfterEach
+  public void cleanUp() {
+    jdbc.update("delete from sdoutbox");
+  }
+
+  @Test
+  void testRelayDeletesAckedAndPostponesFailed() throws Exception {
+    outbox.insert(List.of(event("hash1", SDEvent.ADD), event("hash2", SDEvent.ADD), event("hash1", SDEvent.UPDATE)));
+    JetStream jetStream = mock(JetStream.class);
+    when(jetStream.publishAsync(eq("fc.sd.hash1"), any(Headers.class), any(byte[].class), any(PublishOptions.class)))
+        .thenReturn(CompletableFuture.completedFuture(mock(PublishAck.class)));
+    when(jetStream.publishAsync(eq("fc.sd.hash2"), any(Headers.class), any(byte[].class), any(PublishOptions.class)))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("no stream")));
+    NatsSDOutboxRelay relay = relay(jetStream);
+
+    assertEquals(2, relay.relayBatch());
+    assertEquals(2, jdbc.queryForObject("select count(*) from sdoutbox", Integer.class));
+    assertEquals(1, jdbc.queryForObject("select attempts from sdoutbox where sdhash = 'hash2'", Integer.class));
+
+    // the next event of hash1 follows, hash2 waits for its retry
+    assertEquals(1, relay.relayBatch());
+    assertEquals(0, relay.relayBatch());
+    verify(jetStream, times(2)).publishAsync(eq("fc.sd.hash1"), any(Headers.class), any(byte[].class), any(PublishOptions.class));
+    verify(jetStream, times(1)).publishAsync(eq("fc.sd.hash2"), any(Headers.class), any(byte[].class), any(PublishOptions.class));
+  }
+
+  @Test
+  void testConcurrentRelaysPublishOnce() throws Exception {
+    outbox.insert(List.of(event("hash1", SDEvent.ADD), event("hash2", SDEvent.ADD)));
+    CompletableFuture<PublishAck> ack = new CompletableFuture<>();
+    JetStream first = mock(JetStream.class);
+    when(first.publishAsync(anyString(), any(Headers.class), any(byte[].class), any(PublishOptions.class))).thenReturn(ack);
+    JetStream second = mock(JetStream.class);
+    NatsSDOutboxRelay firstRelay = relay(first);
+    NatsSDOutboxRelay secondRelay = relay(second);
+
+    CompletableFuture<Integer> firstBatch = CompletableFuture.supplyAsync(() -> {
+      try {
+        return firstRelay.relayBatch();
+      } catch (Exception ex) {
+        throw new IllegalStateException(ex);
+      }
+    });
+    // wait until the first relay has claimed the heads and awaits their acks
+    verify(first, timeout(5000).times(2))
+        .publishAsync(anyString(), any(Headers.class), any(byte[].class), any(PublishOptions.class));
+    assertEquals(0, secondRelay.relayBatch());
+    ack.complete(mock(PublishAck.class));
+    assertEquals(2, firstBatch.get(10, TimeUnit.SECONDS));
+
+    assertEquals(0, jdbc.queryForObject("select count(*) from sdoutbox", Integer.class));
+    verify(second, never()).publishAsync(anyString(), any(Headers.class), any(byte[].class), any(PublishOptions.class));
+  }
+
+  private NatsSDOutboxRelay relay(JetStream jetStream) throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.jetStream()).thenReturn(jetStream);
+    NatsSDOutboxRelay relay = new NatsSDOutboxRelay();
+    ReflectionTestUtils.setField(relay, "instance", "http://localhost:8081");
+    ReflectionTestUtils.setField(relay, "subject", "fc.sd");
+    ReflectionTestUtils.setField(relay, "batchSize", 10);
+    ReflectionTestUtils.setField(relay, "batchTimeout", 5000L);
+    ReflectionTestUtils.setField(relay, "retryDelay", 60000L);
+    ReflectionTestUtils.setField(relay, "pubConnection", connection);
+    ReflectionTestUtils.setField(relay, "dao", outbox);
+    relay.initMetrics();
+    return relay;
+  }
+
+  private static SDEventRecord event(String hash, SDEvent event) {
+    return new SDEventRecord(null, hash, event, SelfDescriptionStatus.ACTIVE, hash.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,149 @@
+package eu.xfsc.fc.core.service.pubsub.nats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.core.exception.NotFoundException;
+import eu.xfsc.fc.core.service.sdstore.SelfDescriptionStore;
+import io.nats.client.Connection;
+import io.nats.client.JetStreamApiException;
+import io.nats.client.JetStreamManagement;
+import io.nats.client.Message;
+import io.nats.client.api.DeliverPolicy;
+import io.nats.client.api.StreamInfo;
+import io.nats.client.impl.Headers;
+
+/**
+ * Acknowledgement of messages processed in pull mode and set-up of the bootstrap subscription.
+ */
+public class NatsSDSubscriberImplTest {
+
+  private SelfDescriptionStore sdStore;
+  private NatsSDSubscriberImpl subscriber;
+  private Semaphore inFlight;
+
+  @BeforeEach
+  public void setUp() {
+    sdStore = mock(SelfDescriptionStore.class);
+    inFlight = new Semaphore(0);
+    subscriber = new NatsSDSubscriberImpl();
+    ReflectionTestUtils.setField(subscriber, "instance", "http://localhost:8082");
+    ReflectionTestUtils.setField(subscriber, "sdStore", sdStore);
+    ReflectionTestUtils.setField(subscriber, "jsonMapper", new ObjectMapper());
+    ReflectionTestUtils.setField(subscriber, "retryDelay", 5000L);
+    ReflectionTestUtils.setField(subscriber, "inFlight", inFlight);
+    ReflectionTestUtils.invokeMethod(subscriber, "initMetrics");
+  }
+
+  @Test
+  void testUnreadableAddIsTerminated() {
+    Message msg = message("ADD", null, "{\"content\": broken".getBytes(StandardCharsets.UTF_8));
+    ReflectionTestUtils.invokeMethod(subscriber, "handleMessage", msg);
+
+    verify(msg).term();
+    verify(msg, never()).ack();
+    verify(msg, never()).nakWithDelay(any(Duration.class));
+    verify(sdStore, never()).storeSelfDescription(any(), any());
+    assertEquals(1, inFlight.availablePermits());
+  }
+
+  @Test
+  void testUnknownEventIsTerminated() {
+    Message msg = message("MOVE", null, null);
+    ReflectionTestUtils.invokeMethod(subscriber, "handleMessage", msg);
+    verify(msg).term();
+
+    Message unknownStatus = message("UPDATE", "LOST", null);
+    ReflectionTestUtils.invokeMethod(subscriber, "handleMessage", unknownStatus);
+    verify(unknownStatus).term();
+    verify(sdStore, never()).changeLifeCycleStatus(any(), any());
+    assertEquals(2, inFlight.availablePermits());
+  }
+
+  @Test
+  void testFailedUpdateIsRedelivered() {
+    doThrow(new IllegalStateException("database down")).when(sdStore)
+        .changeLifeCycleStatus("hash1", SelfDescriptionStatus.REVOKED);
+    Message msg = message("UPDATE", "REVOKED", null);
+    ReflectionTestUtils.invokeMethod(subscriber, "handleMessage", msg);
+
+    verify(msg).nakWithDelay(Duration.ofMillis(5000));
+    verify(msg, never()).term();
+    assertEquals(1, inFlight.availablePermits());
+  }
+
+  @Test
+  void testAppliedUpdateIsAcked() {
+    Message msg = message("UPDATE", "REVOKED", null);
+    ReflectionTestUtils.invokeMethod(subscriber, "handleMessage", msg);
+
+    verify(sdStore).changeLifeCycleStatus("hash1", SelfDescriptionStatus.REVOKED);
+    verify(msg).ack();
+    assertEquals(1, inFlight.availablePermits());
+  }
+
+  @Test
+  void testInapplicableDeleteIsTerminated() {
+    doThrow(new NotFoundException("no SD")).when(sdStore).deleteSelfDescription("hash1");
+    Message msg = message("DELETE", null, null);
+    ReflectionTestUtils.invokeMethod(subscriber, "handleMessage", msg);
+
+    verify(msg).term();
+    verify(msg, never()).ack();
+    assertEquals(1, inFlight.availablePermits());
+  }
+
+  @Test
+  void testFailedConsumerDeletionStopsBootstrap() throws Exception {
+    JetStreamManagement jsm = mock(JetStreamManagement.class);
+    StreamInfo streamInfo = mock(StreamInfo.class, RETURNS_DEEP_STUBS);
+    when(jsm.getStreamInfo("sd-stream")).thenReturn(streamInfo);
+    JetStreamApiException timeout = mock(JetStreamApiException.class);
+    when(timeout.getApiErrorCode()).thenReturn(10071);
+    doThrow(timeout).when(jsm).deleteConsumer("sd-stream", "sd-queue");
+    Connection connection = mock(Connection.class);
+    when(connection.jetStreamManagement()).thenReturn(jsm);
+    ReflectionTestUtils.setField(subscriber, "subConnection", connection);
+    ReflectionTestUtils.setField(subscriber, "stream", "sd-stream");
+    ReflectionTestUtils.setField(subscriber, "subject", "fc.sd.>");
+    ReflectionTestUtils.setField(subscriber, "queue", "sd-queue");
+    ReflectionTestUtils.setField(subscriber, "bootstrapSource", "http://localhost:8081");
+
+    // the old consumer would survive and be reused, so the snapshot is not loaded
+    assertThrows(Exception.class, () -> ReflectionTestUtils.invokeMethod(subscriber, "bootstrap"));
+    assertEquals(DeliverPolicy.New, ReflectionTestUtils.getField(subscriber, "deliverPolicy"));
+  }
+
+  private static Message message(String event, String status, byte[] data) {
+    Headers headers = new Headers();
+    headers.put("source", "http://localhost:8081");
+    headers.put("event", event);
+    if (status != null) {
+      headers.put("status", status);
+    }
+    Message msg = mock(Message.class);
+    when(msg.getHeaders()).thenReturn(headers);
+    when(msg.getSubject()).thenReturn("fc.sd.hash1");
+    when(msg.getData()).thenReturn(data);
+    return msg;
+  }
+
+}
@@ -5,7 +5,10 @@ import static eu.xfsc.fc.core.service.schemastore.SchemaStore.SchemaType.SHAPE;
 import static eu.xfsc.fc.core.service.schemastore.SchemaStore.SchemaType.VOCABULARY;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -40,7 +43,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import eu.xfsc.fc.core.config.DatabaseConfig;
 import eu.xfsc.fc.core.config.FileStoreConfig;
@@ -79,6 +85,9 @@ public class SchemaStoreTest {
   @Autowired
   private JdbcTemplate jdbc;
 
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
 
   public Set<String> getExtractedTermsSet(ContentAccessor extractedTerms) throws IOException {
     Set<String> extractedTermsSet = new HashSet<>();
@@ -456,6 +465,96 @@ public class SchemaStoreTest {
     assertTrue(isExistTriple(modelActual, sub02, pre02, obj02));
   }
 
+  /**
+   * Test of getCompositeSchema method after changes to a loaded composite schema.
+   */
+  @Test
+  public void testGetCompositeSchemaAfterDelete() throws IOException {
+    String sub01 = "http://w3id.org/gaia-x/validation#PhysicalResourceShape";
+    String sub02 = "http://w3id.org/gaia-x/validation#DataConnectorShape";
+    String pre = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+    String obj = "http://www.w3.org/ns/shacl#NodeShape";
+
+    schemaStore.addSchema(TestUtil.getAccessor(getClass(), "Schema-Tests/FirstValidSchemaShape.ttl"));
+    String schemaId2 = schemaStore.addSchema(TestUtil.getAccessor(getClass(), "Schema-Tests/SecondValidSchemaShape.ttl"));
+
+    Model modelActual = ModelFactory.createDefaultModel();
+    modelActual.read(new StringReader(schemaStore.getCompositeSchema(SHAPE).getContentAsString()), "", "TURTLE");
+    assertTrue(isExistTriple(modelActual, sub01, pre, obj));
+    assertTrue(isExistTriple(modelActual, sub02, pre, obj));
+
+    schemaStore.deleteSchema(schemaId2);
+
+    modelActual = ModelFactory.createDefaultModel();
+    modelActual.read(new StringReader(schemaStore.getCompositeSchema(SHAPE).getContentAsString()), "", "TURTLE");
+    assertTrue(isExistTriple(modelActual, sub01, pre, obj));
+    assertFalse(isExistTriple(modelActual, sub02, pre, obj));
+  }
+
+  /**
+   * Test of composite schema reload on schema version change by another instance.
+   */
+  @Test
+  public void testGetCompositeSchemaAfterVersionChange() throws IOException {
+    schemaStore.addSchema(TestUtil.getAccessor(getClass(), "Schema-Tests/FirstValidSchemaShape.ttl"));
+    Model model = schemaStore.getCompositeModel(SHAPE);
+    assertSame(model, schemaStore.getCompositeModel(SHAPE));
+
+    schemaStore.checkVersions();
+    assertSame(model, schemaStore.getCompositeModel(SHAPE), "Composite schema reloaded without version change");
+
+    jdbc.update("update schemaversions set version = version + 1 where type = ?", SHAPE.ordinal());
+    schemaStore.checkVersions();
+    Model reloaded = schemaStore.getCompositeModel(SHAPE);
+    assertNotSame(model, reloaded, "Composite schema not reloaded after version change");
+    assertTrue(model.isIsomorphicWith(reloaded));
+  }
+
+  /**
+   * Test of composite schema changed by other transactions on commit only.
+   */
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void testGetCompositeSchemaAfterCommit() throws IOException {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    ContentAccessor schema = TestUtil.getAccessor(getClass(), "Schema-Tests/FirstValidSchemaShape.ttl");
+    Model before = schemaStore.getCompositeModel(SHAPE);
+
+    tx.executeWithoutResult(status -> {
+      schemaStore.addSchema(schema);
+      assertFalse(before.isIsomorphicWith(schemaStore.getCompositeModel(SHAPE)), "Added schema not read by its transaction");
+      status.setRollbackOnly();
+    });
+    assertSame(before, schemaStore.getCompositeModel(SHAPE), "Rolled back schema in composite schema");
+
+    String schemaId = tx.execute(status -> schemaStore.addSchema(schema));
+    Model added = schemaStore.getCompositeModel(SHAPE);
+    assertFalse(before.isIsomorphicWith(added), "Committed schema not in composite schema");
+    schemaStore.deleteSchema(schemaId);
+    assertTrue(before.isIsomorphicWith(schemaStore.getCompositeModel(SHAPE)));
+  }
+
+  /**
+   * Test of binary graph stored next to the schema content.
+   */
+  @Test
+  public void testAddSchemaStoresGraph() throws IOException {
+    String schemaId = schemaStore.addSchema(TestUtil.getAccessor(getClass(), "Schema-Tests/FirstValidSchemaShape.ttl"));
+    assertEquals("TTL", jdbc.queryForObject("select format from schemafiles where schemaid = ?", String.class, schemaId));
+    assertNotNull(jdbc.queryForObject("select graph from schemafiles where schemaid = ?", byte[].class, schemaId));
+    Model expected = schemaStore.getCompositeModel(SHAPE);
+
+    // schemas stored without graph get it on startup
+    jdbc.update("update schemafiles set format = null, graph = null where schemaid = ?", schemaId);
+    schemaStore.initializeDefaultSchemas();
+    assertEquals("TTL", jdbc.queryForObject("select format from schemafiles where schemaid = ?", String.class, schemaId));
+    assertNotNull(jdbc.queryForObject("select graph from schemafiles where schemaid = ?", byte[].class, schemaId));
+
+    jdbc.update("update schemaversions set version = version + 1 where type = ?", SHAPE.ordinal());
+    schemaStore.checkVersions();
+    assertTrue(expected.isIsomorphicWith(schemaStore.getCompositeModel(SHAPE)));
+  }
+
   private static boolean isExistTriple(Model model, String sub, String pre, String obj) {
     StmtIterator iterActual = model.listStatements();
     while (iterActual.hasNext()) {
@@ -4,6 +4,7 @@ import static eu.xfsc.fc.core.util.TestUtil.assertThatSdHasTheSameData;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.time.Instant;
@@ -22,15 +23,21 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.neo4j.harness.Neo4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
 import eu.xfsc.fc.core.config.DatabaseConfig;
+import eu.xfsc.fc.core.config.FileStoreConfig;
 import eu.xfsc.fc.core.dao.impl.SelfDescriptionDaoImpl;
 import eu.xfsc.fc.core.exception.ConflictException;
 import eu.xfsc.fc.core.exception.NotFoundException;
@@ -44,6 +51,7 @@ import eu.xfsc.fc.core.pojo.SelfDescriptionMetadata;
 import eu.xfsc.fc.core.pojo.Validator;
 import eu.xfsc.fc.core.pojo.VerificationResult;
 import eu.xfsc.fc.core.pojo.VerificationResultOffering;
+import eu.xfsc.fc.core.service.filestore.FileStore;
 import eu.xfsc.fc.core.service.graphdb.Neo4jGraphStore;
 import eu.xfsc.fc.core.util.HashUtils;
 import eu.xfsc.fc.testsupport.config.EmbeddedNeo4JConfig;
@@ -55,7 +63,7 @@ import lombok.extern.slf4j.Slf4j;
 @TestMethodOrder(MethodOrderer.MethodName.class)
 @SpringBootTest
 @ActiveProfiles("test")
-@ContextConfiguration(classes = {SelfDescriptionStoreTest.TestApplication.class, //FileStoreConfig.class,
+@ContextConfiguration(classes = {SelfDescriptionStoreTest.TestApplication.class, FileStoreConfig.class,
   SelfDescriptionStoreImpl.class, SelfDescriptionDaoImpl.class, SelfDescriptionStoreTest.class, DatabaseConfig.class, Neo4jGraphStore.class})
 @Slf4j
 @AutoConfigureEmbeddedDatabase(provider = DatabaseProvider.ZONKY)
@@ -79,6 +87,13 @@ public class SelfDescriptionStoreTest {
   @Autowired
   private Neo4jGraphStore graphStore;
 
+  @Autowired
+  private PlatformTransactionManager txManager;
+
+  @Autowired
+  @Qualifier("historyFileStore")
+  private FileStore historyFileStore;
+
   @AfterEach
   public void storageSelfCleaning() throws IOException {
     sdStorePublisher.clear();
@@ -245,6 +260,28 @@ public class SelfDescriptionStoreTest {
     });
   }
 
+  @Test
+  void test03StoreDuplicateOfHistoricalSelfDescription() {
+    final SelfDescriptionMetadata sdMeta1 = createSelfDescriptionMeta("TestSd/1", "TestUser/1",
+        Instant.parse("2022-01-01T12:00:00Z"), Instant.parse("2022-01-02T12:00:00Z"), "Some Test Content");
+    sdStorePublisher.storeSelfDescription(sdMeta1, createVerificationResult(sdMeta1));
+    final SelfDescriptionMetadata sdMeta2 = createSelfDescriptionMeta("TestSd/1", "TestUser/1",
+        Instant.parse("2022-01-01T13:00:00Z"), Instant.parse("2022-01-02T13:00:00Z"), "Some Other Content");
+    sdStorePublisher.storeSelfDescription(sdMeta2, createVerificationResult(sdMeta2));
+    assertEquals(SelfDescriptionStatus.DEPRECATED, sdStorePublisher.getByHash(sdMeta1.getSdHash()).getStatus());
+
+    // the deprecated version is kept in sdhistory, its hash can not be stored again
+    Assertions.assertThrows(ConflictException.class, () -> {
+      sdStorePublisher.storeSelfDescription(sdMeta1, createVerificationResult(sdMeta1));
+    });
+    assertEquals(SelfDescriptionStatus.ACTIVE, sdStorePublisher.getByHash(sdMeta2.getSdHash()).getStatus());
+
+    // the hash is released when the self-description is deleted
+    sdStorePublisher.deleteSelfDescription(sdMeta1.getSdHash());
+    sdStorePublisher.storeSelfDescription(sdMeta1, createVerificationResult(sdMeta1));
+    assertEquals(SelfDescriptionStatus.ACTIVE, sdStorePublisher.getByHash(sdMeta1.getSdHash()).getStatus());
+  }
+
   /**
    * Test storing a self-description, and updating the status.
    */
@@ -769,6 +806,31 @@ public class SelfDescriptionStoreTest {
     log.info("#### Test 13 succeeded.");
   }
 
+  @Test
+  void test13PeriodicValidationInChunks() throws IOException {
+    log.info("test13PeriodicValidationInChunks");
+    // expiration batch size is 2 in test config, so 5 expired SDs are processed in 3 chunks
+    List<String> expiredHashes = new ArrayList<>();
+    for (int i = 1; i <= 5; i++) {
+      final String id = "TestSd/" + i;
+      final SelfDescriptionMetadata sdMeta = createSelfDescriptionMeta(id, "TestUser/" + i, Instant.parse("2022-01-01T12:00:00Z"),
+          Instant.parse("2022-02-01T12:00:00Z"), "Test: SD " + i + " with past expiration date");
+      sdStorePublisher.storeSelfDescription(sdMeta, verifySd(id, Instant.now().minus(i, ChronoUnit.DAYS)));
+      expiredHashes.add(sdMeta.getSdHash());
+    }
+    final SelfDescriptionMetadata sdMeta6 = createSelfDescriptionMeta("TestSd/6", "TestUser/6", Instant.parse("2022-01-01T12:00:00Z"),
+        Instant.parse("2022-02-01T12:00:00Z"), "Test: SD 6 with future expiration date");
+    sdStorePublisher.storeSelfDescription(sdMeta6, verifySd("TestSd/6", Instant.now().plus(1, ChronoUnit.DAYS)));
+
+    assertEquals(5, sdStorePublisher.invalidateSelfDescriptions(), "expected 5 expired self-descriptions");
+    for (String hash: expiredHashes) {
+      assertEquals(SelfDescriptionStatus.EOL, sdStorePublisher.getByHash(hash).getStatus(), "Status should have been changed.");
+    }
+    assertEquals(SelfDescriptionStatus.ACTIVE, sdStorePublisher.getByHash(sdMeta6.getSdHash()).getStatus(), "Status should not have been changed.");
+    assertEquals(0, sdStorePublisher.invalidateSelfDescriptions(), "expected no more expired self-descriptions");
+    log.info("#### Test 13 in chunks succeeded.");
+  }
+
   /**
    * Test applying an SD filter with limited number of results with total SD count number.
    */
@@ -824,4 +886,56 @@ public class SelfDescriptionStoreTest {
     log.info("#### Test 13 succeeded.");
   }
 
+  @Test
+  void test14OffloadHistory() {
+    log.info("test14OffloadHistory");
+    final String content1 = "Some Test Content 1";
+    final String content2 = "Some Test Content 2";
+    final SelfDescriptionMetadata sdMeta1 = createSelfDescriptionMeta("TestSd/1", "TestUser/1",
+        Instant.parse("2022-01-01T12:00:00Z"), Instant.parse("2022-01-02T12:00:00Z"), content1);
+    final String hash1 = sdMeta1.getSdHash();
+    sdStorePublisher.storeSelfDescription(sdMeta1, createVerificationResult(sdMeta1));
+    final SelfDescriptionMetadata sdMeta2 = createSelfDescriptionMeta("TestSd/1", "TestUser/1",
+        Instant.parse("2022-01-01T13:00:00Z"), Instant.parse("2022-01-02T13:00:00Z"), content2);
+    final String hash2 = sdMeta2.getSdHash();
+    sdStorePublisher.storeSelfDescription(sdMeta2, createVerificationResult(sdMeta2));
+
+    assertEquals(-1, sdStorePublisher.offloadHistory());
+    Object store = AopTestUtils.getUltimateTargetObject(sdStorePublisher);
+    ReflectionTestUtils.setField(store, "offloadSize", 1);
+    try {
+      assertEquals(1, sdStorePublisher.offloadHistory(), "only the deprecated self-description is offloaded");
+      assertEquals(0, sdStorePublisher.offloadHistory());
+    } finally {
+      ReflectionTestUtils.setField(store, "offloadSize", 0);
+    }
+
+    SelfDescriptionMetadata byHash1 = sdStorePublisher.getByHash(hash1);
+    assertEquals(SelfDescriptionStatus.DEPRECATED, byHash1.getStatus());
+    assertEquals(content1, byHash1.getSelfDescription().getContentAsString());
+    final SdFilter filterParams = new SdFilter();
+    filterParams.setStatuses(List.of(SelfDescriptionStatus.DEPRECATED));
+    PaginatedResults<SelfDescriptionMetadata> byFilter = sdStorePublisher.getByFilter(filterParams, true, true);
+    assertEquals(1, byFilter.getTotalCount());
+    assertEquals(content1, byFilter.getResults().get(0).getSelfDescription().getContentAsString());
+    assertEquals(content2, sdStorePublisher.getByHash(hash2).getSelfDescription().getContentAsString());
+
+    TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+    txTemplate.executeWithoutResult(status -> {
+      sdStorePublisher.deleteSelfDescription(hash1);
+      status.setRollbackOnly();
+    });
+    assertEquals(content1, sdStorePublisher.getByHash(hash1).getSelfDescription().getContentAsString(),
+        "offloaded content is kept when the deletion is rolled back");
+
+    sdStorePublisher.deleteSelfDescription(hash1);
+    sdStorePublisher.deleteSelfDescription(hash2);
+    Assertions.assertThrows(NotFoundException.class, () -> {
+      sdStorePublisher.getByHash(hash1);
+    });
+    Assertions.assertThrows(FileNotFoundException.class, () -> {
+      historyFileStore.readFile(hash1);
+    });
+  }
+
 }
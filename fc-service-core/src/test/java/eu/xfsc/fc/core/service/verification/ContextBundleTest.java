@@ -0,0 +1,77 @@
+package eu.xfsc.fc.core.service.verification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.atlas.web.TypedInputStream;
+import org.junit.jupiter.api.Test;
+
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.JsonLdErrorCode;
+import com.apicatalog.jsonld.document.Document;
+import com.apicatalog.jsonld.http.HttpClient;
+import com.apicatalog.jsonld.loader.DocumentLoaderOptions;
+
+import eu.xfsc.fc.core.service.filestore.CacheFileStore;
+
+public class ContextBundleTest {
+
+  private static final String CREDENTIALS_V1 = "https://www.w3.org/2018/credentials/v1";
+  private static final String JWS_2020_V1 = "https://w3id.org/security/suites/jws-2020/v1";
+
+  private final HttpClient offline = (uri, accept) -> {
+    throw new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED, "offline: " + uri);
+  };
+
+  @Test
+  void testBundleContainsWellKnownContexts() {
+    ContextBundle bundle = new ContextBundle(ContextBundle.DEFAULT_LOCATION);
+    assertEquals(1, bundle.getVersions().size());
+    assertNotNull(bundle.get(CREDENTIALS_V1));
+    assertNotNull(bundle.get(JWS_2020_V1));
+    assertNotNull(bundle.get("https://w3id.org/security/v1"));
+    assertNotNull(bundle.get("https://w3id.org/security/v2"));
+    assertTrue(bundle.get(CREDENTIALS_V1).getBody().contains("VerifiableCredential"));
+    assertNull(bundle.get("https://example.org/unknown/v1"));
+  }
+
+  @Test
+  void testMissingBundleLocationIsIgnored() {
+    ContextBundle bundle = new ContextBundle("unknown-location", ContextBundle.DEFAULT_LOCATION);
+    assertEquals(1, bundle.getVersions().size());
+    assertNotNull(bundle.get(CREDENTIALS_V1));
+  }
+
+  @Test
+  void testLoadersServeBundledContextsOffline() throws Exception {
+    ContextBundle bundle = new ContextBundle(ContextBundle.DEFAULT_LOCATION);
+    CachingHttpLoader loader = new CachingHttpLoader(new CacheFileStore("contextBundleTest", 8), bundle, offline);
+
+    Document document = loader.loadDocument(URI.create(JWS_2020_V1), new DocumentLoaderOptions());
+    assertTrue(document.getJsonContent().isPresent());
+    assertEquals(URI.create(JWS_2020_V1), document.getDocumentUrl());
+    assertThrows(JsonLdError.class, () -> loader.loadDocument(URI.create("https://example.org/unknown/v1"), new DocumentLoaderOptions()));
+
+    LocatorCaching locator = new LocatorCaching(new CacheFileStore("contextBundleTest", 8), bundle);
+    try (TypedInputStream tis = locator.open(CREDENTIALS_V1)) {
+      assertEquals(ContextBundle.CONTEXT_TYPE, tis.getContentType());
+      assertEquals(bundle.get(CREDENTIALS_V1).getBody(), new String(tis.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void testRefreshKeepsBundledContextsOnFailure() {
+    ContextBundle bundle = new ContextBundle(ContextBundle.DEFAULT_LOCATION);
+    String body = bundle.get(CREDENTIALS_V1).getBody();
+    CachingHttpLoader loader = new CachingHttpLoader(new CacheFileStore("contextBundleTest", 8), bundle, offline);
+    assertEquals(0, loader.refreshBundle());
+    assertEquals(body, bundle.get(CREDENTIALS_V1).getBody());
+  }
+
+}
@@ -13,6 +13,8 @@ import org.junit.jupiter.api.Test;
 import java.io.*;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.MethodOrderer;
@@ -89,6 +91,23 @@ public class ValidatorCacheTest {
     validatorCache.removeFromCache(v2.getDidURI());
   }
 
+  @Test
+  void test03BulkLookup() throws IOException {
+    log.info("test03BulkLookup");
+    Validator v1 = new Validator("SomeUrl1", "Some Text Content", getInstantNow());
+    validatorCache.addToCache(v1);
+    Validator v2 = new Validator("SomeUrl2", "Some Text Content", getInstantNow());
+    validatorCache.addToCache(v2);
+
+    Map<String, Validator> fromCache = validatorCache.getFromCache(List.of(v1.getDidURI(), v2.getDidURI(), "SomeUrl3"));
+    Assertions.assertEquals(2, fromCache.size(), "Incorrect number of validators found.");
+    Assertions.assertEquals(v1, fromCache.get(v1.getDidURI()));
+    Assertions.assertEquals(v2, fromCache.get(v2.getDidURI()));
+
+    validatorCache.removeFromCache(v1.getDidURI());
+    validatorCache.removeFromCache(v2.getDidURI());
+  }
+
   private static Instant getInstantNow() {
     return Instant.now().truncatedTo(ChronoUnit.SECONDS);
   }
@@ -12,6 +12,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
@@ -124,6 +126,22 @@ public class VerificationDirectTest {
         //log.debug("big participant RDF: {}", vp.getVerifiableCredential().getCredentialSubject().toDataset().toList());
     }
     
+    @Test
+    void extractClaimsInParallel() throws Exception {
+        ContentAccessor content = getAccessor(VerificationDirectTest.class, "Claims-Extraction-Tests/participantTwoVCs.jsonld");
+        List<SdClaim> expected = new TitaniumClaimExtractor().extractClaims(content);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<SdClaim> claims = new TitaniumClaimExtractor(executor, 2).extractClaims(content);
+            assertEquals(expected.size(), claims.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).asTriple(), claims.get(i).asTriple());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     void validateVP() throws Exception {
         //validate(VerifiableCredential verifiableCredential)
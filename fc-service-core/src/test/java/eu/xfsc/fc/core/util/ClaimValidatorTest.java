@@ -0,0 +1,49 @@
+package eu.xfsc.fc.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.Test;
+
+import eu.xfsc.fc.core.pojo.SdClaim;
+
+public class ClaimValidatorTest {
+
+  private static final String SHAPE = """
+      @prefix sh: <http://www.w3.org/ns/shacl#> .
+      @prefix xsd: <http://www.w3.org/2001/XMLSchema#> .
+      @prefix ex: <http://example.org/> .
+      ex:ThingShape a sh:NodeShape ;
+        sh:targetClass ex:Thing ;
+        sh:property [ sh:path ex:name ; sh:minCount 1 ; sh:datatype xsd:string ] ;
+        sh:property [ sh:path ex:size ; sh:datatype xsd:integer ] .
+      """;
+
+  private static final String THING = "<http://example.org/thing>";
+  private static final String TYPE = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+
+  @Test
+  void testClaimsFromStrings() {
+    Model shape = ModelFactory.createDefaultModel().read(new StringReader(SHAPE), null, "TURTLE");
+    List<SdClaim> claims = List.of(
+        new SdClaim(THING, TYPE, "<http://example.org/Thing>"),
+        new SdClaim(THING, "<http://example.org/name>", "\"Thing\""),
+        new SdClaim(THING, "<http://example.org/size>", "\"5\"^^<http://www.w3.org/2001/XMLSchema#integer>"));
+    assertNull(ClaimValidator.validateClaimsBySchema(claims, shape));
+
+    claims = List.of(
+        new SdClaim(THING, TYPE, "<http://example.org/Thing>"),
+        new SdClaim(THING, "<http://example.org/size>", "\"five\""));
+    String report = ClaimValidator.validateClaimsBySchema(claims, shape);
+    assertNotNull(report);
+    assertTrue(report.contains("http://example.org/name"));
+    assertTrue(report.contains("http://example.org/size"));
+  }
+
+}
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Component;
 //import org.springframework.transaction.TransactionStatus;
 //import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import eu.xfsc.fc.core.dao.impl.IdentityCacheSynchronizer;
 import eu.xfsc.fc.core.service.schemastore.SchemaStore;
 import eu.xfsc.fc.core.service.sdstore.SelfDescriptionStore;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +25,9 @@ public class CatalogueServerScheduler {
     
     @Autowired
     private SchemaStore smStore;
+
+    @Autowired
+    private IdentityCacheSynchronizer identitySynchronizer;
     
     /**
      * Scheduler for invalidating expired SDs in store.
@@ -34,6 +38,16 @@ public class CatalogueServerScheduler {
       int numberOfExpiredSd = sdStorePublisher.invalidateSelfDescriptions();
       log.debug("scheduleSdInvalidationTask.exit; {} expired SDs were found and invalidated.", numberOfExpiredSd);
     }
+
+    /**
+     * Scheduler for moving content of historical SDs to the history file store.
+     */
+    @Scheduled(initialDelayString = "${scheduler.sd.history.offload-interval:3600000}", fixedDelayString = "${scheduler.sd.history.offload-interval:3600000}")
+    public void scheduleSdHistoryOffload() {
+      log.debug("scheduleSdHistoryOffload.enter; Launched scheduler to offload historical SDs.");
+      int numberOfOffloadedSd = sdStorePublisher.offloadHistory();
+      log.debug("scheduleSdHistoryOffload.exit; {} historical SDs were offloaded.", numberOfOffloadedSd);
+    }
     
     @Scheduled(initialDelayString = "${scheduler.schema.init-delay}", fixedDelay = Long.MAX_VALUE) 
     public void scheduleSchemaInitialization() {
@@ -42,4 +56,18 @@ public class CatalogueServerScheduler {
       log.debug("scheduleSchemaInitialization.exit; {} default schemas initializated.", numberOfSchemas);
     }    
 
+    /**
+     * Scheduler for synchronizing the identity read-model with Keycloak.
+     */
+    @Scheduled(initialDelayString = "${scheduler.identity.init-delay:5000}", fixedDelayString = "${scheduler.identity.sync-interval:300000}")
+    public void scheduleIdentitySynchronization() {
+      log.debug("scheduleIdentitySynchronization.enter; Launched scheduler to synchronize participants and users.");
+      try {
+        int count = identitySynchronizer.synchronize();
+        log.debug("scheduleIdentitySynchronization.exit; {} participants and users synchronized.", count);
+      } catch (RuntimeException ex) {
+        log.warn("scheduleIdentitySynchronization.error; {}", ex.getMessage());
+      }
+    }
+
 }
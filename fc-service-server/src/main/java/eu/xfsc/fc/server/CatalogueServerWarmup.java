@@ -0,0 +1,69 @@
+package eu.xfsc.fc.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import eu.xfsc.fc.core.exception.VerificationException;
+import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
+import eu.xfsc.fc.core.pojo.VerificationResult;
+import eu.xfsc.fc.core.service.schemastore.SchemaStore;
+import eu.xfsc.fc.core.service.schemastore.SchemaStore.SchemaType;
+import eu.xfsc.fc.core.service.verification.VerificationService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warms the server up before it accepts traffic: initializes the default schemas, builds the composite schemas and
+ * verifies a bundled sample SD without signatures, which loads its JSON-LD contexts into the context cache and
+ * runs the claim extraction and SHACL validation code once. Application runners complete before Spring Boot reports
+ * the readiness state as ACCEPTING_TRAFFIC, so the readiness probe stays down until the warm-up is finished.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "federated-catalogue.warmup.enabled", havingValue = "true")
+public class CatalogueServerWarmup implements ApplicationRunner {
+
+  @Value("${federated-catalogue.warmup.sample:warmup/participant-sd.jsonld}")
+  private String sample;
+
+  @Autowired
+  private SchemaStore schemaStore;
+
+  @Autowired
+  private VerificationService verificationService;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    log.info("run.enter; starting warm-up");
+    long start = System.currentTimeMillis();
+    try {
+      int added = schemaStore.initializeDefaultSchemas();
+      log.debug("run; {} default schemas added", added);
+      for (SchemaType type: SchemaType.values()) {
+        log.debug("run; {} composite schema has {} triples", type, schemaStore.getCompositeModel(type).size());
+      }
+    } catch (Exception ex) {
+      log.warn("run.error; failed to prepare schemas", ex);
+    }
+    try (InputStream is = new ClassPathResource(sample).getInputStream()) {
+      String content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+      VerificationResult result = verificationService.verifySelfDescription(new ContentAccessorDirect(content), true, true, false);
+      log.debug("run; sample SD verified: {}", result.getId());
+    } catch (VerificationException ex) {
+      // the sample does not need to be valid against the actual schemas, the verification code has run anyway
+      log.debug("run; sample SD not verified: {}", ex.getMessage());
+    } catch (IOException | RuntimeException ex) {
+      log.warn("run.error; failed to verify sample SD", ex);
+    }
+    log.info("run.exit; warm-up finished in {} ms", System.currentTimeMillis() - start);
+  }
+
+}
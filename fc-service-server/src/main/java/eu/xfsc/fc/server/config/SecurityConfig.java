@@ -74,6 +74,7 @@ public class SecurityConfig {
           
           // Self-Description APIs
           .requestMatchers(antMatcher(HttpMethod.GET, "/self-descriptions")).authenticated()
+          .requestMatchers(antMatcher(HttpMethod.GET, "/self-descriptions/export")).authenticated()
           .requestMatchers(antMatcher(HttpMethod.GET, "/self-descriptions/{self_description_hash}")).authenticated()
           .requestMatchers(antMatcher(HttpMethod.POST, "/self-descriptions"))
           		.hasAnyRole(CATALOGUE_ADMIN_ROLE, SD_ADMIN_ROLE, PARTICIPANT_ADMIN_ROLE)
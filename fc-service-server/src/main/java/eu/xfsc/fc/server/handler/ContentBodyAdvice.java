@@ -0,0 +1,94 @@
+package eu.xfsc.fc.server.handler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+
+import eu.xfsc.fc.core.pojo.ContentAccessorBytes;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the raw bytes of JSON string request bodies (self-descriptions, schemas) and calculates their SHA-256 hash
+ * while the body is read. Services take the content with {@link #getContent(String)}, so it is not encoded and hashed
+ * again during verification and storage.
+ */
+@Slf4j
+@ControllerAdvice
+public class ContentBodyAdvice extends RequestBodyAdviceAdapter {
+
+  private static final String CONTENT_ATTRIBUTE = ContentBodyAdvice.class.getName() + ".content";
+
+  @Override
+  public boolean supports(MethodParameter methodParameter, Type targetType,
+          Class<? extends HttpMessageConverter<?>> converterType) {
+    return String.class.equals(targetType) && StringHttpMessageConverter.class.isAssignableFrom(converterType);
+  }
+
+  @Override
+  public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+          Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+    MediaType contentType = inputMessage.getHeaders().getContentType();
+    // the string converter decodes JSON as UTF-8, other types only when the charset is given explicitly
+    boolean utf8 = contentType != null && (contentType.getCharset() == null
+            ? contentType.isCompatibleWith(MediaType.APPLICATION_JSON) : StandardCharsets.UTF_8.equals(contentType.getCharset()));
+    if (!utf8) {
+      return inputMessage;
+    }
+    byte[] bytes;
+    String hash;
+    try (HashingInputStream in = new HashingInputStream(Hashing.sha256(), inputMessage.getBody())) {
+      bytes = in.readAllBytes();
+      hash = in.hash().toString();
+    }
+    log.debug("beforeBodyRead; got {} bytes, hash: {}", bytes.length, hash);
+    RequestContextHolder.currentRequestAttributes().setAttribute(CONTENT_ATTRIBUTE, new ContentAccessorBytes(bytes, hash),
+            RequestAttributes.SCOPE_REQUEST);
+    HttpHeaders headers = inputMessage.getHeaders();
+    return new HttpInputMessage() {
+
+      @Override
+      public InputStream getBody() {
+        return new ByteArrayInputStream(bytes);
+      }
+
+      @Override
+      public HttpHeaders getHeaders() {
+        return headers;
+      }
+    };
+  }
+
+  /**
+   * Returns accessor for the request body the given string was read from.
+   *
+   * @param body the request body as passed to the service method
+   * @return byte based accessor of the request body, or of the string if the body was not captured
+   */
+  public static ContentAccessorBytes getContent(String body) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes != null) {
+      Object content = attributes.getAttribute(CONTENT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+      if (content instanceof ContentAccessorBytes) {
+        return ((ContentAccessorBytes) content).withDecoded(body);
+      }
+    }
+    return ContentAccessorBytes.of(body);
+  }
+
+}
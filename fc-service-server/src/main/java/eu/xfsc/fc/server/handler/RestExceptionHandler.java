@@ -6,6 +6,7 @@ import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.NOT_IMPLEMENTED;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
 import org.springframework.http.ResponseEntity;
@@ -19,6 +20,7 @@ import eu.xfsc.fc.core.exception.ConflictException;
 import eu.xfsc.fc.core.exception.NotFoundException;
 import eu.xfsc.fc.core.exception.ServerException;
 import eu.xfsc.fc.core.exception.TimeoutException;
+import eu.xfsc.fc.core.exception.TooManyRequestsException;
 import eu.xfsc.fc.core.exception.VerificationException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
@@ -127,6 +129,18 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     return new ResponseEntity<>(new Error("timeout_error", exception.getMessage()), GATEWAY_TIMEOUT);
   }
 
+  /**
+   * Method handles the Too Many Requests Exception.
+   *
+   * @param exception Thrown Too Many Requests Exception.
+   * @return The custom Federated Catalogue application error with status code 429.
+   */
+  @ExceptionHandler({TooManyRequestsException.class})
+  protected ResponseEntity<Error> handleTooManyRequestsException(TooManyRequestsException exception) {
+    log.info("handleTooManyRequestsException; Too many requests error: {}", exception.getMessage());
+    return new ResponseEntity<>(new Error("too_many_requests_error", exception.getMessage()), TOO_MANY_REQUESTS);
+  }
+
 
   /**
    * Method handles the constraintViolationException Exception.
@@ -10,7 +10,7 @@ import eu.xfsc.fc.core.dao.ValidatorCacheDao;
 import eu.xfsc.fc.core.exception.ClientException;
 import eu.xfsc.fc.core.exception.NotFoundException;
 import eu.xfsc.fc.core.pojo.ContentAccessor;
-import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
+import eu.xfsc.fc.core.pojo.ContentAccessorBytes;
 import eu.xfsc.fc.core.pojo.PaginatedResults;
 import eu.xfsc.fc.core.pojo.ParticipantMetaData;
 import eu.xfsc.fc.core.pojo.SdFilter;
@@ -19,12 +19,14 @@ import eu.xfsc.fc.core.pojo.Validator;
 import eu.xfsc.fc.core.pojo.VerificationResultParticipant;
 import eu.xfsc.fc.core.service.sdstore.SelfDescriptionStore;
 import eu.xfsc.fc.core.service.verification.VerificationService;
+import eu.xfsc.fc.server.handler.ContentBodyAdvice;
 
 import static eu.xfsc.fc.server.util.SessionUtils.checkParticipantAccess;
 
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
@@ -172,9 +174,14 @@ public class ParticipantsService implements ParticipantsApiDelegate {
       if (page.getTotalCount() > 0) {
         Map<String, ContentAccessor> sdsMap = page.getResults().stream().collect(
     		  Collectors.toMap(SelfDescriptionMetadata::getSdHash, SelfDescriptionMetadata::getSelfDescription));
+        Map<String, Validator> validators = validatorCache.getFromCache(results.getResults().stream()
+            .map(ParticipantMetaData::getPublicKey).filter(Objects::nonNull).collect(Collectors.toSet()));
         results.getResults().forEach(part -> {
           part.setSelfDescription(sdsMap.get(part.getSdHash()).getContentAsString());
-          setParticipantPublicKey(part);
+          Validator validator = validators.get(part.getPublicKey());
+          if (validator != null) {
+            part.setPublicKey(validator.getPublicKey());
+          }
         });
       } else {
     	results.getResults().clear();
@@ -247,12 +254,12 @@ public class ParticipantsService implements ParticipantsApiDelegate {
    * @return DTO object containing result and metadata of self-description
    */
   private Pair<VerificationResultParticipant, SelfDescriptionMetadata> validateSelfDescription(String body) {
-    ContentAccessorDirect contentAccessorDirect = new ContentAccessorDirect(body);
+    ContentAccessorBytes contentAccessor = ContentBodyAdvice.getContent(body);
     VerificationResultParticipant verificationResultParticipant =
-        verificationService.verifyParticipantSelfDescription(contentAccessorDirect);
+        verificationService.verifyParticipantSelfDescription(contentAccessor);
     log.debug("validateSelfDescription; verification result is: {}", verificationResultParticipant);
 
-    SelfDescriptionMetadata selfDescriptionMetadata = new SelfDescriptionMetadata(contentAccessorDirect, verificationResultParticipant);
+    SelfDescriptionMetadata selfDescriptionMetadata = new SelfDescriptionMetadata(contentAccessor, verificationResultParticipant);
     log.debug("validateSelfDescription; SD metadata is: {}", selfDescriptionMetadata);
 
     return Pair.of(verificationResultParticipant, selfDescriptionMetadata);
@@ -1,5 +1,7 @@
 package eu.xfsc.fc.server.service;
 
+import static eu.xfsc.fc.server.util.SessionUtils.getSessionClientId;
+
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -10,8 +12,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -41,6 +41,7 @@ import eu.xfsc.fc.server.generated.controller.QueryApiDelegate;
 import eu.xfsc.fc.core.exception.ServerException;
 import eu.xfsc.fc.core.pojo.GraphQuery;
 import eu.xfsc.fc.core.pojo.PaginatedResults;
+import eu.xfsc.fc.core.service.graphdb.CypherStatement;
 import eu.xfsc.fc.core.service.graphdb.GraphStore;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -101,11 +102,12 @@ public class QueryService implements QueryApiDelegate {
   @Override
   public ResponseEntity<Results> query(QueryLanguage queryLanguage, Integer timeout, Boolean withTotalCount, Statement statement) {
     log.debug("query.enter; got queryLanguage: {}, timeout: {}, withTotalCount: {}, statement: {}", queryLanguage, timeout, withTotalCount, statement);
-    if (checkIfLimitAbsent(statement.getStatement())) {
-      addDefaultLimit(statement);
+    CypherStatement cypher = CypherStatement.of(statement.getStatement());
+    if (cypher.isLimitAbsent()) {
+      addDefaultLimit(statement, cypher);
     }
     PaginatedResults<Map<String, Object>> queryResultList = graphStore.queryData(new GraphQuery(statement.getStatement(), 
-            statement.getParameters(), queryLanguage, timeout, withTotalCount));
+            statement.getParameters(), queryLanguage, timeout, withTotalCount, getSessionClientId()));
     Results result = new Results((int) queryResultList.getTotalCount(), queryResultList.getResults());
     log.debug("query.exit; returning results: {}", result);
     return ResponseEntity.ok(result);
@@ -142,8 +144,9 @@ public class QueryService implements QueryApiDelegate {
   @Override
   public ResponseEntity<Results> search(AnnotatedStatement statement) {
 	log.debug("search.enter; got statement: {}", statement);
-	if (checkIfLimitAbsent(statement.getStatement())) {
-	  statement.setStatement(statement.getStatement() + " limit $limit");
+	CypherStatement cypher = CypherStatement.of(statement.getStatement());
+	if (cypher.isLimitAbsent()) {
+	  statement.setStatement(cypher.withLimit("limit"));
 	  statement.putParametersItem("limit", DEFAULT_LIMIT);
 	}
 	boolean first = statement.getServers() == null || statement.getServers().isEmpty();
@@ -154,7 +157,7 @@ public class QueryService implements QueryApiDelegate {
 	Boolean withTotalCount = getAnnotation(statement, "withTotalCount", true);
 	    
 	PaginatedResults<Map<String, Object>> queryResultList = graphStore.queryData(new GraphQuery(statement.getStatement(), 
-	        statement.getParameters(), QueryLanguage.valueOf(queryLanguage), timeout, withTotalCount));
+	        statement.getParameters(), QueryLanguage.valueOf(queryLanguage), timeout, withTotalCount, getSessionClientId()));
 	Results result = new Results((int) queryResultList.getTotalCount(), queryResultList.getResults());
 	if (extra != null) {
 	  //extra.subscribe();
@@ -179,10 +182,10 @@ public class QueryService implements QueryApiDelegate {
    * Adding default limit for the query if not present.
    *
    * @param statement Query Statement
+   * @param cypher Scanned query statement
    */
-  private void addDefaultLimit(Statement statement) {
-    String appendLimit = " limit $limit";
-    statement.setStatement(statement.getStatement().concat(appendLimit));
+  private void addDefaultLimit(Statement statement, CypherStatement cypher) {
+    statement.setStatement(cypher.withLimit("limit"));
     if (null == statement.getParameters()) {
       statement.setParameters(Map.of("limit", DEFAULT_LIMIT));
     } else {
@@ -190,23 +193,6 @@ public class QueryService implements QueryApiDelegate {
     }
   }
 
-  /**
-   * Check if limit is present or not in query.
-   *
-   * @param statement Query Statement
-   * @return boolean match status
-   */
-  private boolean checkIfLimitAbsent(String query) {
-	if (query.toLowerCase().indexOf("return") > 0) {
-      String subItem = "limit";
-      String pattern = "(?m)(^|\\s)" + subItem + "(\\s|$)";
-      Pattern p = Pattern.compile(pattern);
-      Matcher m = p.matcher(query.toLowerCase());
-      return !m.find();
-	}
-	return false;
-  }
-  
   private Mono<List<Results>> searchPartners(AnnotatedStatement statement) {
 	if (queryClients != null) {
 	  Set<String> route = new HashSet<>();
@@ -1,5 +1,8 @@
 package eu.xfsc.fc.server.service;
 
+import static eu.xfsc.fc.server.util.HttpCacheUtils.checkNotModified;
+import static eu.xfsc.fc.server.util.HttpCacheUtils.revalidateCacheControl;
+
 import eu.xfsc.fc.api.generated.model.OntologySchema;
 import eu.xfsc.fc.core.exception.ClientException;
 import eu.xfsc.fc.core.exception.NotFoundException;
@@ -18,6 +21,8 @@ import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
@@ -29,6 +34,8 @@ import org.springframework.stereotype.Service;
 public class SchemasService implements SchemasApiDelegate {
   @Autowired
   private SchemaStore schemaStore;
+  @Value("${federated-catalogue.http-cache.shared:false}")
+  private boolean sharedCache;
   
   /**
    * Service method for GET /schemas/{schemaId} : Get a specific schema.
@@ -78,12 +85,15 @@ public class SchemasService implements SchemasApiDelegate {
   }
 
   /**
-   * Service method for GET /schemas/latest : Get the latest schema for a given type.
+   * Service method for GET /schemas/latest : Get the latest schema for a given type. The schema is returned with
+   * its type and version as ETag and has to be revalidated by caches. Requests with a matching If-None-Match header
+   * get 304 without composing the schema.
    *
    * @param type Type of the schema. (optional)
    * @param term The URI of the term of the requested Self-Description schema e.g.
    *             &#x60;<a href="http://w3id.org/gaia-x/service#ServiceOffering&#x60">...</a>; (optional)
    * @return The latest schemas for the given type or term. (status code 200)
+   *         or The client has the latest schema already (status code 304)
    *         or May contain hints how to solve the error or indicate what was wrong in the request. (status code 400)
    *         or Forbidden. The user does not have the permission to execute this request. (status code 403)
    *         or May contain hints how to solve the error or indicate what went wrong at the server.
@@ -96,9 +106,18 @@ public class SchemasService implements SchemasApiDelegate {
       throw new ClientException("Please check the value of the type query parameter!");
     }
     // TODO: 31.08.2022 Why is the term parameter used here (not passed anywhere, not specified in the doс)?
-    String schema = schemaStore.getCompositeSchema(SchemaType.valueOf(type.toUpperCase())).getContentAsString();
+    SchemaType schemaType = SchemaType.valueOf(type.toUpperCase());
+    // the version is taken first, so the returned composite is never older than its ETag
+    String etag = schemaType.name() + "-" + schemaStore.getCompositeVersion(schemaType);
+    CacheControl cacheControl = revalidateCacheControl(sharedCache);
+    ResponseEntity<String> notModified = checkNotModified(etag, cacheControl);
+    if (notModified != null) {
+      log.debug("getLatestSchemas.exit; schema {} not modified", etag);
+      return notModified;
+    }
+    String schema = schemaStore.getCompositeSchema(schemaType).getContentAsString();
     log.debug("getLatestSchemas.exit; returning schema by type: {}", schema);
-    return ResponseEntity.ok(schema);
+    return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(schema);
   }
 
   /**
@@ -1,5 +1,7 @@
 package eu.xfsc.fc.server.service;
 
+import static eu.xfsc.fc.server.util.HttpCacheUtils.checkNotModified;
+import static eu.xfsc.fc.server.util.HttpCacheUtils.immutableCacheControl;
 import static eu.xfsc.fc.server.util.SelfDescriptionHelper.parseTimeRange;
 import static eu.xfsc.fc.server.util.SessionUtils.checkParticipantAccess;
 
@@ -11,6 +13,8 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,12 +23,13 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import eu.xfsc.fc.api.generated.model.SelfDescription;
+import eu.xfsc.fc.api.generated.model.SelfDescriptionExport;
 import eu.xfsc.fc.api.generated.model.SelfDescriptionResult;
 import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
 import eu.xfsc.fc.api.generated.model.SelfDescriptions;
 import eu.xfsc.fc.core.exception.ClientException;
 import eu.xfsc.fc.core.exception.ConflictException;
-import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
+import eu.xfsc.fc.core.pojo.ContentAccessorBytes;
 import eu.xfsc.fc.core.pojo.PaginatedResults;
 import eu.xfsc.fc.core.pojo.SdFilter;
 import eu.xfsc.fc.core.pojo.SelfDescriptionMetadata;
@@ -32,6 +37,7 @@ import eu.xfsc.fc.core.pojo.VerificationResultOffering;
 import eu.xfsc.fc.core.service.sdstore.SelfDescriptionStore;
 import eu.xfsc.fc.core.service.verification.VerificationService;
 import eu.xfsc.fc.server.generated.controller.SelfDescriptionsApiDelegate;
+import eu.xfsc.fc.server.handler.ContentBodyAdvice;
 import jakarta.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
 
@@ -46,6 +52,8 @@ public class SelfDescriptionService implements SelfDescriptionsApiDelegate {
   private VerificationService verificationService;
   @Autowired
   private SelfDescriptionStore sdStorePublisher;
+  @Value("${federated-catalogue.http-cache.shared:false}")
+  private boolean sharedCache;
 
   /**
    * Service method for GET /self-descriptions : Get the list of metadata of SD in the Catalogue.
@@ -106,12 +114,44 @@ public class SelfDescriptionService implements SelfDescriptionsApiDelegate {
     return ResponseEntity.ok(new SelfDescriptions((int) selfDescriptions.getTotalCount(), results));
   }
   
+  /**
+   * Service method for GET /self-descriptions/export : Export active SDs with their content, ordered by hash.
+   *
+   * @param afterHash Hash of the last SD from the previous page. (optional)
+   * @param limit The number of SDs to return. (optional, default to 1000)
+   * @return Page of exported SDs (status code 200)
+   *         or May contain hints how to solve the error or indicate what was wrong in the request. (status code 400)
+   *         or May contain hints how to solve the error or indicate what went wrong at the server.
+   *         Must not outline any information about the internal structure of the server. (status code 500)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public ResponseEntity<SelfDescriptionExport> exportSelfDescriptions(String afterHash, Integer limit) {
+    log.debug("exportSelfDescriptions.enter; got afterHash: {}, limit: {}", afterHash, limit);
+    List<String> hashes = sdStorePublisher.getActiveSdHashes(afterHash, limit, 1, 0);
+    List<SelfDescriptionResult> results = List.of();
+    if (!hashes.isEmpty()) {
+      SdFilter filter = new SdFilter();
+      filter.setHashes(hashes);
+      filter.setStatuses(List.of(SelfDescriptionStatus.ACTIVE));
+      filter.setLimit(limit);
+      results = sdStorePublisher.getByFilter(filter, true, true).getResults().stream()
+          .map(sd -> new SelfDescriptionResult(sd, sd.getSelfDescription().getContentAsString()))
+          .collect(Collectors.toList());
+    }
+    String lastHash = hashes.size() < limit ? null : hashes.get(hashes.size() - 1);
+    log.debug("exportSelfDescriptions.exit; returning {} SDs, lastHash: {}", results.size(), lastHash);
+    return ResponseEntity.ok(new SelfDescriptionExport(lastHash, results));
+  }
+
   /**
    * Service method for GET /self-descriptions/{self_description_hash} : Read a SD by its hash. Returns the content
-   * of the single SD.
+   * of the single SD. The content of a hash never changes, so it is returned with the hash as strong ETag and may
+   * be cached as immutable. Requests with a matching If-None-Match header get 304 without reading the SD store.
    *
    * @param selfDescriptionHash Hash of the self-description (required)
    * @return The requested Self-Description (status code 200)
+   *         or The client has the requested Self-Description already (status code 304)
    *         or May contain hints how to solve the error or indicate what was wrong in the request. (status code 400)
    *         or Self-Description not found (status code 404)
    *         or May contain hints how to solve the error or indicate what went wrong at the server.
@@ -120,6 +160,12 @@ public class SelfDescriptionService implements SelfDescriptionsApiDelegate {
   @Override
   public ResponseEntity<String> readSelfDescriptionByHash(String selfDescriptionHash) {
     log.debug("readSelfDescriptionByHash.enter; got hash: {}", selfDescriptionHash);
+    CacheControl cacheControl = immutableCacheControl(sharedCache);
+    ResponseEntity<String> notModified = checkNotModified(selfDescriptionHash, cacheControl);
+    if (notModified != null) {
+      log.debug("readSelfDescriptionByHash.exit; self-description {} not modified", selfDescriptionHash);
+      return notModified;
+    }
     SelfDescriptionMetadata sdMetadata = sdStorePublisher.getByHash(selfDescriptionHash);
 
     HttpHeaders responseHeaders = new HttpHeaders();
@@ -128,6 +174,8 @@ public class SelfDescriptionService implements SelfDescriptionsApiDelegate {
     log.debug("readSelfDescriptionByHash.exit; returning self-description by hash: {}", selfDescriptionHash);
     return ResponseEntity.ok()
         .headers(responseHeaders)
+        .eTag(selfDescriptionHash)
+        .cacheControl(cacheControl)
         .body(sdMetadata.getSelfDescription().getContentAsString());
   }
 
@@ -175,7 +223,7 @@ public class SelfDescriptionService implements SelfDescriptionsApiDelegate {
     try {
      // TODO: 27.07.2022 Need to change the description and the order of actions in the documentation.
      //  The FH scheme is different from the real process.
-      ContentAccessorDirect contentAccessor = new ContentAccessorDirect(selfDescription);
+      ContentAccessorBytes contentAccessor = ContentBodyAdvice.getContent(selfDescription);
 
       VerificationResultOffering verificationResult = verificationService.verifyOfferingSelfDescription(contentAccessor);
 
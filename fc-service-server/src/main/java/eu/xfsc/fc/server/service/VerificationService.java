@@ -15,8 +15,8 @@ import org.springframework.util.FileCopyUtils;
 
 import eu.xfsc.fc.api.generated.model.VerificationResult;
 import eu.xfsc.fc.core.exception.ServerException;
-import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
 import eu.xfsc.fc.server.generated.controller.VerificationApiDelegate;
+import eu.xfsc.fc.server.handler.ContentBodyAdvice;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -50,7 +50,7 @@ public class VerificationService implements VerificationApiDelegate {
           String body) {
     log.debug("verify.enter; got body of length: {}; verify semantics: {}, schema: {}, signatures: {}", 
             body.length(), verifySemantics, verifySchema, verifySignatures);
-    VerificationResult verificationResult = verificationService.verifySelfDescription(new ContentAccessorDirect(body), 
+    VerificationResult verificationResult = verificationService.verifySelfDescription(ContentBodyAdvice.getContent(body), 
             verifySemantics, verifySchema, verifySignatures);
     log.debug("verify.exit; returning result: {}", verificationResult);
     return ResponseEntity.ok(verificationResult);
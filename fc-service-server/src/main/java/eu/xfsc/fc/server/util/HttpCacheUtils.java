@@ -0,0 +1,71 @@
+package eu.xfsc.fc.server.util;
+
+import java.time.Duration;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Utility class with static methods for conditional GET handling. Services check the entity tag of the requested
+ * content before they load it, so that clients and caches revalidating their copy get 304 without a database read.
+ */
+@Slf4j
+public class HttpCacheUtils {
+
+  /**
+   * Time content addressed by its hash may be cached for, it never changes.
+   */
+  public static final Duration IMMUTABLE_MAX_AGE = Duration.ofDays(365);
+
+  /**
+   * Returns cache control for content addressed by its hash.
+   *
+   * @param shared true if shared caches (proxies, CDNs) may store the content, false for client caches only
+   * @return Cache-Control with a maximal age and the immutable directive.
+   */
+  public static CacheControl immutableCacheControl(boolean shared) {
+    CacheControl cacheControl = CacheControl.maxAge(IMMUTABLE_MAX_AGE).immutable();
+    return shared ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+  }
+
+  /**
+   * Returns cache control for content which may change, caches have to revalidate it on every use.
+   *
+   * @param shared true if shared caches (proxies, CDNs) may store the content, false for client caches only
+   * @return Cache-Control with the no-cache directive.
+   */
+  public static CacheControl revalidateCacheControl(boolean shared) {
+    CacheControl cacheControl = CacheControl.noCache();
+    return shared ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+  }
+
+  /**
+   * Checks the If-None-Match header of the current request against the entity tag of the requested content. Only the
+   * request is evaluated, the servlet response is not touched: the ETag header is sent by the returned response entity,
+   * or by the 200 response entity of the caller, so it is set once.
+   *
+   * @param etag entity tag of the requested content, quoted or not
+   * @param cacheControl cache control to send with the 304 response
+   * @return 304 response if the client has the content already, null if the content has to be returned
+   */
+  public static <T> ResponseEntity<T> checkNotModified(String etag, CacheControl cacheControl) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+      return null;
+    }
+    ServletWebRequest webRequest = new ServletWebRequest(servletAttributes.getRequest());
+    if (!webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    log.debug("checkNotModified; content with etag {} not modified", etag);
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+  }
+
+}
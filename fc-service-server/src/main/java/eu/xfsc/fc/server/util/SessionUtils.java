@@ -8,9 +8,13 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * Utility class with static methods for getting data from the active user session.
@@ -48,6 +52,24 @@ public class SessionUtils {
     return userId;
   }
 
+  /**
+   * Public static method to get an identifier of the client of the current request, used to share server resources
+   * fairly between clients.
+   *
+   * @return The User ID of authenticated users, the remote address of anonymous clients, or null outside of requests.
+   */
+  public static String getSessionClientId() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null && authentication.getPrincipal() instanceof Jwt) {
+      return ((Jwt) authentication.getPrincipal()).getSubject();
+    }
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes instanceof ServletRequestAttributes) {
+      return ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr();
+    }
+    return null;
+  }
+
   /**
    * Public static method to check if a user has a role.
    *
@@ -0,0 +1,80 @@
+package eu.xfsc.fc.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.availability.ReadinessStateHealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.availability.ApplicationAvailabilityAutoConfiguration;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import eu.xfsc.fc.core.exception.VerificationException;
+import eu.xfsc.fc.core.service.schemastore.SchemaStore;
+import eu.xfsc.fc.core.service.verification.VerificationService;
+
+/**
+ * Readiness of the server during and after the warm-up.
+ */
+@SpringBootTest(classes = CatalogueServerWarmupTest.TestConfig.class, properties = "federated-catalogue.warmup.enabled=true")
+public class CatalogueServerWarmupTest {
+
+  // readiness status seen by the warm-up steps
+  private static final Map<String, Status> WARMUP_STATUS = new ConcurrentHashMap<>();
+
+  @Configuration
+  @ImportAutoConfiguration(ApplicationAvailabilityAutoConfiguration.class)
+  @Import(CatalogueServerWarmup.class)
+  static class TestConfig {
+
+    @Bean
+    public ReadinessStateHealthIndicator readinessStateHealthIndicator(ApplicationAvailability availability) {
+      return new ReadinessStateHealthIndicator(availability);
+    }
+
+    @Bean
+    public SchemaStore schemaStore(ReadinessStateHealthIndicator readiness) {
+      SchemaStore schemaStore = mock(SchemaStore.class);
+      when(schemaStore.initializeDefaultSchemas()).thenAnswer(inv -> {
+        WARMUP_STATUS.put("schemas", readiness.health().getStatus());
+        return 0;
+      });
+      when(schemaStore.getCompositeModel(any())).thenReturn(ModelFactory.createDefaultModel());
+      return schemaStore;
+    }
+
+    @Bean
+    public VerificationService verificationService(ReadinessStateHealthIndicator readiness) throws Exception {
+      VerificationService verificationService = mock(VerificationService.class);
+      when(verificationService.verifySelfDescription(any(), anyBoolean(), anyBoolean(), anyBoolean())).thenAnswer(inv -> {
+        WARMUP_STATUS.put("sample", readiness.health().getStatus());
+        throw new VerificationException("sample not valid");
+      });
+      return verificationService;
+    }
+  }
+
+  @Autowired
+  private ReadinessStateHealthIndicator readiness;
+
+  @Test
+  void testNotReadyUntilWarmedUp() {
+    assertEquals(Status.OUT_OF_SERVICE, WARMUP_STATUS.get("schemas"));
+    assertEquals(Status.OUT_OF_SERVICE, WARMUP_STATUS.get("sample"));
+    assertEquals(Status.UP, readiness.health().getStatus());
+  }
+
+}
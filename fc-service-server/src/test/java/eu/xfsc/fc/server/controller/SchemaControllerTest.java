@@ -32,8 +32,10 @@ import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
 import static eu.xfsc.fc.server.helper.FileReaderHelper.getMockFileDataAsString;
 import static eu.xfsc.fc.server.util.CommonConstants.CATALOGUE_ADMIN_ROLE;
 import static eu.xfsc.fc.server.util.CommonConstants.PARTICIPANT_ADMIN_ROLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -114,6 +116,34 @@ public class SchemaControllerTest {
     schemaStore.deleteSchema(id);
   }
 
+  @Test
+  @WithMockUser(roles = {CATALOGUE_ADMIN_ROLE, PARTICIPANT_ADMIN_ROLE})
+  public void getLatestSchemaWithMatchingEtagShouldReturnNotModifiedResponse() throws Exception {
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/schemas/latest?type=ONTOLOGY")
+            .with(csrf())
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "no-cache, private"))
+        .andReturn();
+    assertEquals(1, result.getResponse().getHeaders("ETag").size());
+    String etag = result.getResponse().getHeader("ETag");
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/schemas/latest?type=ONTOLOGY")
+            .header("If-None-Match", etag)
+            .with(csrf())
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotModified())
+        .andExpect(header().stringValues("ETag", etag));
+
+    String id = schemaStore.addSchema(new ContentAccessorDirect(getMockFileDataAsString("test-schema.ttl")));
+    mockMvc.perform(MockMvcRequestBuilders.get("/schemas/latest?type=ONTOLOGY")
+            .header("If-None-Match", etag)
+            .with(csrf())
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    schemaStore.deleteSchema(id);
+  }
+
   @Test
   public void getLatestSchemaShouldReturnUnauthorizedResponse() throws Exception {
     mockMvc.perform(MockMvcRequestBuilders.get("/schemas/latest")
@@ -6,6 +6,7 @@ import static eu.xfsc.fc.server.util.TestCommonConstants.SD_ADMIN_ROLE_WITH_PREF
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.c4_soft.springaddons.security.oauth2.test.annotations.Claims;
@@ -16,6 +17,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.xfsc.fc.api.generated.model.Error;
 import eu.xfsc.fc.api.generated.model.SelfDescription;
 import eu.xfsc.fc.api.generated.model.SelfDescriptionStatus;
+import eu.xfsc.fc.api.generated.model.SelfDescriptionExport;
 import eu.xfsc.fc.api.generated.model.SelfDescriptions;
 import eu.xfsc.fc.core.exception.NotFoundException;
 import eu.xfsc.fc.core.pojo.ContentAccessorDirect;
@@ -229,6 +231,40 @@ public class SelfDescriptionControllerTest {
         assertNotNull(selfDescriptions.getItems().get(0).getMeta());
     }
 
+    @Test
+    @WithMockUser
+    public void exportSDsShouldReturnSuccessResponse() throws Exception {
+        sdStorePublisher.storeSelfDescription(sdMeta, getStaticVerificationResult());
+        MvcResult result =  mockMvc.perform(MockMvcRequestBuilders.get("/self-descriptions/export")
+                        .with(csrf())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+            .andReturn();
+
+        SelfDescriptionExport export = objectMapper.readValue(result.getResponse().getContentAsString(), SelfDescriptionExport.class);
+        assertEquals(1, export.getItems().size());
+        assertEquals(sdMeta.getSdHash(), export.getItems().get(0).getMeta().getSdHash());
+        assertEquals(sdMeta.getSelfDescription().getContentAsString(), export.getItems().get(0).getContent());
+        assertNull(export.getLastHash());
+
+        result =  mockMvc.perform(MockMvcRequestBuilders.get("/self-descriptions/export?limit=1")
+                        .with(csrf())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+            .andReturn();
+        export = objectMapper.readValue(result.getResponse().getContentAsString(), SelfDescriptionExport.class);
+        assertEquals(sdMeta.getSdHash(), export.getLastHash());
+
+        result =  mockMvc.perform(MockMvcRequestBuilders.get("/self-descriptions/export?limit=1&afterHash=" + sdMeta.getSdHash())
+                        .with(csrf())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+            .andReturn();
+        export = objectMapper.readValue(result.getResponse().getContentAsString(), SelfDescriptionExport.class);
+        assertEquals(0, export.getItems().size());
+        assertNull(export.getLastHash());
+    }
+
     @Test
     public void readSDByHashShouldReturnUnauthorizedResponse() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/self-descriptions/" + sdMeta.getSdHash())
@@ -252,7 +288,32 @@ public class SelfDescriptionControllerTest {
         mockMvc.perform(MockMvcRequestBuilders.get("/self-descriptions/" + sdMeta.getSdHash())
                 .with(csrf()))
                 //.accept("application/ld+json"))
+            .andExpect(status().isOk())
+            .andExpect(header().stringValues("ETag", "\"" + sdMeta.getSdHash() + "\""))
+            .andExpect(header().string("Cache-Control", "max-age=31536000, private, immutable"));
+    }
+
+    @Test
+    @WithMockUser
+    public void readSDByHashWithMatchingEtagShouldReturnNotModifiedResponse() throws Exception {
+        sdStorePublisher.storeSelfDescription(sdMeta, getStaticVerificationResult());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/self-descriptions/" + sdMeta.getSdHash())
+                .header("If-None-Match", "\"" + sdMeta.getSdHash() + "\"")
+                .with(csrf()))
+            .andExpect(status().isNotModified())
+            .andExpect(header().stringValues("ETag", "\"" + sdMeta.getSdHash() + "\""));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/self-descriptions/" + sdMeta.getSdHash())
+                .header("If-None-Match", "\"123\"")
+                .with(csrf()))
             .andExpect(status().isOk());
+
+        // the content of a hash never changes, so the store is not read to answer the conditional request
+        mockMvc.perform(MockMvcRequestBuilders.get("/self-descriptions/123")
+                .header("If-None-Match", "\"123\"")
+                .with(csrf()))
+            .andExpect(status().isNotModified());
     }
 
     @Test
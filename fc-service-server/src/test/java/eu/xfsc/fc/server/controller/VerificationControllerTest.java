@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -21,19 +23,31 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import eu.xfsc.fc.api.generated.model.Error;
 import eu.xfsc.fc.api.generated.model.VerificationResult;
+import eu.xfsc.fc.core.pojo.ContentAccessor;
+import eu.xfsc.fc.core.pojo.ContentAccessorBytes;
 import eu.xfsc.fc.core.service.schemastore.SchemaStore;
+import eu.xfsc.fc.core.service.verification.VerificationService;
+import eu.xfsc.fc.core.util.HashUtils;
+import eu.xfsc.fc.server.handler.ContentBodyAdvice;
 import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
 import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
 
 import static eu.xfsc.fc.server.helper.FileReaderHelper.getMockFileDataAsString;
 import static eu.xfsc.fc.server.util.TestUtil.getAccessor;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 
 @SpringBootTest
@@ -56,6 +70,12 @@ public class VerificationControllerTest {
   @Autowired
   private SchemaStore schemaStore;
 
+  @SpyBean
+  private ContentBodyAdvice contentBodyAdvice;
+
+  @SpyBean
+  private VerificationService verificationService;
+
   @BeforeAll
   public void setup() {
     mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
@@ -92,6 +112,24 @@ public class VerificationControllerTest {
     assertEquals(Instant.parse("2010-01-01T19:23:24Z"), partResult.getIssuedDateTime());
   }
 
+  @Test
+  public void verifyShouldHashBodyWhileReadingIt() throws Exception {
+    String json = getMockFileDataAsString("default_participant.json");
+    // the mock request hands out a single body stream, a second read of the body would get no content
+    mockMvc.perform(MockMvcRequestBuilders.post("/verification")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(json))
+            .andExpect(status().isOk());
+    verify(contentBodyAdvice, times(1)).beforeBodyRead(any(), any(), any(), any());
+    ArgumentCaptor<ContentAccessor> payload = ArgumentCaptor.forClass(ContentAccessor.class);
+    verify(verificationService).verifySelfDescription(payload.capture(), anyBoolean(), anyBoolean(), anyBoolean());
+    ContentAccessorBytes content = assertInstanceOf(ContentAccessorBytes.class, payload.getValue());
+    assertEquals(HashUtils.calculateSha256AsHex(json), content.getHash());
+    assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), content.getContentAsBytes());
+    assertEquals(json, content.getContentAsString());
+  }
+
   @Test
   public void verifyNoProofsShouldReturnUnprocessibleEntity() throws Exception {
     String json = getMockFileDataAsString("participant_without_proofs.json");
@@ -0,0 +1,156 @@
+package eu.xfsc.fc.server.performance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects latencies per workload phase and operation and renders them as a text table and as
+ * a JSON document, so runs on different commits can be compared.
+ */
+@Slf4j
+class LatencyReport {
+
+    private final String label;
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+    LatencyReport(String label) {
+        this.label = label;
+    }
+
+    synchronized Phase phase(String name) {
+        return phases.computeIfAbsent(name, Phase::new);
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("timestamp", Instant.now().toString());
+        report.put("java", System.getProperty("java.version"));
+        report.put("processors", Runtime.getRuntime().availableProcessors());
+        Map<String, Object> phaseMap = new LinkedHashMap<>();
+        phases.forEach((name, phase) -> phaseMap.put(name, phase.toMap()));
+        report.put("phases", phaseMap);
+        return report;
+    }
+
+    void write(Path dir, ObjectMapper mapper) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve("perf-report-" + label + ".json");
+        mapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), toMap());
+        log.info("write; performance report stored at {}{}{}", file.toAbsolutePath(), System.lineSeparator(), toText());
+    }
+
+    String toText() {
+        StringBuilder sb = new StringBuilder();
+        String sep = System.lineSeparator();
+        sb.append(String.format("%-14s %-12s %8s %7s %10s %9s %9s %9s %9s", "phase", "operation", "count", "errors",
+            "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms")).append(sep);
+        phases.forEach((name, phase) -> phase.operations.forEach((op, stats) -> {
+            double[] pct = stats.percentiles(0.5, 0.95, 0.99, 1.0);
+            sb.append(String.format("%-14s %-12s %8d %7d %10.2f %9.2f %9.2f %9.2f %9.2f", name, op, stats.count(), stats.errors.get(),
+                phase.throughput(stats.count()), pct[0], pct[1], pct[2], pct[3])).append(sep);
+        }));
+        return sb.toString();
+    }
+
+    static class Phase {
+
+        private final String name;
+        private final Map<String, Stats> operations = new ConcurrentHashMap<>();
+        private long startNanos;
+        private long wallNanos;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+        }
+
+        void stop() {
+            wallNanos = System.nanoTime() - startNanos;
+        }
+
+        void record(String operation, long nanos, boolean success) {
+            Stats stats = operations.computeIfAbsent(operation, op -> new Stats());
+            stats.latencies.add(nanos);
+            if (!success) {
+                stats.errors.incrementAndGet();
+            }
+        }
+
+        double throughput(int count) {
+            return wallNanos == 0 ? 0 : count * 1_000_000_000.0 / wallNanos;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("wallTimeMs", wallNanos / 1_000_000);
+            Map<String, Object> ops = new LinkedHashMap<>();
+            operations.forEach((op, stats) -> {
+                double[] pct = stats.percentiles(0.5, 0.9, 0.95, 0.99, 1.0);
+                Map<String, Object> opMap = new LinkedHashMap<>();
+                opMap.put("count", stats.count());
+                opMap.put("errors", stats.errors.get());
+                opMap.put("throughput", throughput(stats.count()));
+                opMap.put("meanMs", stats.mean());
+                opMap.put("p50Ms", pct[0]);
+                opMap.put("p90Ms", pct[1]);
+                opMap.put("p95Ms", pct[2]);
+                opMap.put("p99Ms", pct[3]);
+                opMap.put("maxMs", pct[4]);
+                ops.put(op, opMap);
+            });
+            map.put("operations", ops);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static class Stats {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        int count() {
+            return latencies.size();
+        }
+
+        double mean() {
+            return latencies.stream().mapToLong(Long::longValue).average().orElse(0) / 1_000_000.0;
+        }
+
+        double[] percentiles(double... ranks) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            sorted.sort(null);
+            double[] result = new double[ranks.length];
+            if (!sorted.isEmpty()) {
+                for (int i = 0; i < ranks.length; i++) {
+                    int idx = (int) Math.ceil(ranks[i] * sorted.size()) - 1;
+                    result[i] = sorted.get(Math.max(idx, 0)) / 1_000_000.0;
+                }
+            }
+            return result;
+        }
+    }
+
+}
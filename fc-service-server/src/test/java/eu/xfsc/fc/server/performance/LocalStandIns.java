@@ -0,0 +1,205 @@
+package eu.xfsc.fc.server.performance;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.danubetech.keyformats.crypto.impl.RSA_PS256_PrivateKeySigner;
+import com.danubetech.verifiablecredentials.VerifiableCredential;
+import com.danubetech.verifiablecredentials.VerifiablePresentation;
+import com.danubetech.verifiablecredentials.jsonld.VerifiableCredentialContexts;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.xfsc.fc.core.service.filestore.FileStore;
+import eu.xfsc.fc.core.service.verification.CachingHttpLoader.HttpDocument;
+import eu.xfsc.fc.core.service.verification.HttpDocumentCache;
+import eu.xfsc.fc.core.util.HashUtils;
+import info.weboftrust.ldsignatures.jsonld.LDSecurityContexts;
+import info.weboftrust.ldsignatures.jsonld.LDSecurityKeywords;
+import info.weboftrust.ldsignatures.signer.JsonWebSignature2020LdSigner;
+import info.weboftrust.ldsignatures.signer.LdSigner;
+
+/**
+ * Local replacements for the external services the catalogue talks to: a static JWT issuer
+ * (OpenID configuration and JWKS), a DID resolver, a PEM certificate host and a trust-anchor
+ * registry. All endpoints are served by the WireMock server of the test context, self-descriptions
+ * are signed with a key that these stubs vouch for.
+ */
+class LocalStandIns {
+
+    static final String DID = "did:web:perf.local";
+    static final String DID_RESOLVER_PATH = "/1.0/identifiers/";
+    static final String TRUST_ANCHOR_PATH = "/trust-anchor";
+    private static final String CERT_PATH = "/certs/perf.pem";
+    private static final String REALM_PATH = "/auth/realms/gaia-x";
+
+    private final String baseUrl;
+    private final String clientId;
+    private final ObjectMapper objectMapper;
+    private final RsaJsonWebKey tokenKey;
+    private final KeyPair signingKey;
+
+    LocalStandIns(String baseUrl, String clientId, ObjectMapper objectMapper) throws Exception {
+        this.baseUrl = baseUrl;
+        this.clientId = clientId;
+        this.objectMapper = objectMapper;
+        tokenKey = RsaJwkGenerator.generateJwk(2048);
+        tokenKey.setKeyId("perf");
+        tokenKey.setAlgorithm(AlgorithmIdentifiers.RSA_USING_SHA256);
+        tokenKey.setUse("sig");
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        signingKey = generator.generateKeyPair();
+    }
+
+    /**
+     * Registers all stubs at the WireMock server.
+     */
+    void start() throws Exception {
+        String issuer = baseUrl + REALM_PATH;
+        Map<String, Object> openidConfig = Map.of(
+            "issuer", issuer,
+            "jwks_uri", issuer + "/protocol/openid-connect/certs",
+            "token_endpoint", issuer + "/protocol/openid-connect/token");
+        stubFor(get(urlEqualTo(REALM_PATH + "/.well-known/openid-configuration"))
+            .willReturn(aResponse().withHeader(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                .withBody(objectMapper.writeValueAsString(openidConfig))));
+        stubFor(get(urlEqualTo(REALM_PATH + "/protocol/openid-connect/certs"))
+            .willReturn(aResponse().withHeader(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                .withBody(new JsonWebKeySet(tokenKey).toJson())));
+
+        stubFor(get(urlEqualTo(DID_RESOLVER_PATH + DID))
+            .willReturn(aResponse().withHeader(CONTENT_TYPE, APPLICATION_JSON_VALUE).withBody(didDocument())));
+        stubFor(get(urlEqualTo(CERT_PATH))
+            .willReturn(aResponse().withHeader(CONTENT_TYPE, "application/x-pem-file").withBody(certificatePem())));
+        stubFor(post(urlEqualTo(TRUST_ANCHOR_PATH))
+            .willReturn(aResponse().withHeader(CONTENT_TYPE, APPLICATION_JSON_VALUE).withBody("{\"trusted\": true}")));
+    }
+
+    /**
+     * Puts the JSON-LD contexts bundled with the VC and LD signature libraries into the catalogue's
+     * context cache, so the verification service never goes to the network for them.
+     */
+    void primeContextCache(FileStore contextCacheFileStore) {
+        HttpDocumentCache cache = new HttpDocumentCache(contextCacheFileStore);
+        Map<URI, JsonDocument> contexts = new HashMap<>(VerifiableCredentialContexts.CONTEXTS);
+        contexts.putAll(LDSecurityContexts.CONTEXTS);
+        contexts.forEach((uri, doc) -> doc.getJsonContent().ifPresent(json -> {
+            String url = uri.toString();
+            cache.storeInCache(url, HashUtils.calculateSha256AsHex(url),
+                new HttpDocument("application/ld+json", url, null, json.toString()));
+        }));
+    }
+
+    /**
+     * Issues a bearer token the resource server accepts, for a user holding the given catalogue roles.
+     */
+    String issueToken(String... roles) throws Exception {
+        JwtClaims claims = new JwtClaims();
+        claims.setJwtId(UUID.randomUUID().toString());
+        claims.setExpirationTimeMinutesInTheFuture(120);
+        claims.setNotBeforeMinutesInThePast(1);
+        claims.setIssuedAtToNow();
+        claims.setAudience("account");
+        claims.setIssuer(baseUrl + REALM_PATH);
+        claims.setSubject(UUID.randomUUID().toString());
+        claims.setClaim("typ", "Bearer");
+        claims.setClaim("azp", clientId);
+        claims.setClaim("resource_access", Map.of(clientId, Map.of("roles", List.of(roles))));
+        claims.setClaim("scope", "openid gaia-x");
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(tokenKey.getPrivateKey());
+        jws.setKeyIdHeaderValue(tokenKey.getKeyId());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setHeader("typ", "JWT");
+        return jws.getCompactSerialization();
+    }
+
+    /**
+     * Signs the credential and the presentation with the stand-in DID key.
+     */
+    String sign(String presentation) throws Exception {
+        VerifiablePresentation vp = VerifiablePresentation.fromJson(presentation);
+        VerifiableCredential vc = vp.getVerifiableCredential();
+        // the credential shares its json map with the presentation, so its proof is embedded as well
+        signer().sign(vc);
+        signer().sign(vp);
+        return vp.toJson();
+    }
+
+    private LdSigner<?> signer() {
+        LdSigner<?> signer = new JsonWebSignature2020LdSigner(new RSA_PS256_PrivateKeySigner(signingKey));
+        signer.setCreated(new Date());
+        signer.setProofPurpose(LDSecurityKeywords.JSONLD_TERM_ASSERTIONMETHOD);
+        signer.setVerificationMethod(URI.create(DID));
+        return signer;
+    }
+
+    private String didDocument() throws Exception {
+        Map<String, Object> jwk = new HashMap<>(new RsaJsonWebKey((RSAPublicKey) signingKey.getPublic())
+            .toParams(JsonWebKey.OutputControlLevel.PUBLIC_ONLY));
+        jwk.put("alg", "PS256");
+        jwk.put("x5u", baseUrl + CERT_PATH);
+        Map<String, Object> method = Map.of(
+            "id", DID + "#key-1",
+            "type", "JsonWebKey2020",
+            "controller", DID,
+            "publicKeyJwk", jwk);
+        Map<String, Object> didDoc = Map.of(
+            "@context", List.of("https://www.w3.org/ns/did/v1"),
+            "id", DID,
+            "verificationMethod", List.of(method),
+            "assertionMethod", List.of(DID + "#key-1"));
+        return objectMapper.writeValueAsString(didDoc);
+    }
+
+    private String certificatePem() throws Exception {
+        X500Name name = new X500Name("CN=perf.local");
+        Instant now = Instant.now();
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.valueOf(now.toEpochMilli()),
+            Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(365))), name, signingKey.getPublic());
+        X509Certificate cert = new JcaX509CertificateConverter()
+            .getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(signingKey.getPrivate())));
+        StringWriter writer = new StringWriter();
+        try (JcaPEMWriter pemWriter = new JcaPEMWriter(writer)) {
+            pemWriter.writeObject(cert);
+        }
+        return writer.toString();
+    }
+
+}
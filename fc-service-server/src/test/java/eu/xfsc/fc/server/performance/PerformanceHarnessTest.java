@@ -0,0 +1,280 @@
+package eu.xfsc.fc.server.performance;
+
+import static eu.xfsc.fc.server.helper.FileReaderHelper.getMockFileDataAsString;
+import static eu.xfsc.fc.server.util.CommonConstants.CATALOGUE_ADMIN_ROLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.neo4j.harness.Neo4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.xfsc.fc.core.service.filestore.FileStore;
+import eu.xfsc.fc.core.service.verification.RevalidationService;
+import eu.xfsc.fc.testsupport.config.EmbeddedNeo4JConfig;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Offline end-to-end performance harness. Starts the server on a random port with embedded Postgres
+ * and Neo4j, stands in for Keycloak, the DID resolver and the trust-anchor registry with local stubs,
+ * then drives upload, query, mixed and revalidation workloads over HTTP and writes a latency and
+ * throughput report to {@code target/perf}.
+ *
+ * <p>Excluded from the regular build, run it with {@code mvn -P perf -pl fc-service-server test}.
+ * Workload sizes can be tuned with the {@code perf.*} system properties, {@code perf.label} names
+ * the report file so runs on different commits can be compared.</p>
+ *
+ * <p>Every worker thread authenticates as a client of its own, so the per-client query admission does
+ * not queue the workers behind each other. Queries rejected by admission control with 429 fail the run,
+ * {@code perf.threads} must not exceed {@code graphstore.admission.max-concurrent} for the numbers to
+ * measure query cost rather than admission queueing.</p>
+ */
+@Slf4j
+@Tag("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "federated-catalogue.verification.signatures=true",
+    "federated-catalogue.verification.did-resolver-url=${wiremock.server.baseUrl}" + LocalStandIns.DID_RESOLVER_PATH,
+    "federated-catalogue.verification.trust-anchor-url=${wiremock.server.baseUrl}" + LocalStandIns.TRUST_ANCHOR_PATH
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@AutoConfigureEmbeddedDatabase(provider = DatabaseProvider.ZONKY)
+@Import(EmbeddedNeo4JConfig.class)
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(locations = "classpath:wiremock.properties")
+public class PerformanceHarnessTest {
+
+    private static final int SD_COUNT = Integer.getInteger("perf.sd-count", 200);
+    private static final int QUERY_COUNT = Integer.getInteger("perf.query-count", 500);
+    private static final int MIXED_COUNT = Integer.getInteger("perf.mixed-count", 500);
+    private static final int THREADS = Integer.getInteger("perf.threads", 8);
+    private static final long REVALIDATION_TIMEOUT = Long.getLong("perf.revalidation-timeout", 600);
+    private static final String LABEL = System.getProperty("perf.label", "local");
+    private static final Path REPORT_DIR = Path.of(System.getProperty("perf.report-dir", "target/perf"));
+
+    @LocalServerPort
+    private int port;
+    @Value("${wiremock.server.baseUrl}")
+    private String stubsBaseUrl;
+    @Value("${keycloak.resource}")
+    private String clientId;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    @Qualifier("contextCacheFileStore")
+    private FileStore contextCacheFileStore;
+    @Autowired
+    private RevalidationService revalidationService;
+    @Autowired
+    private Neo4j embeddedDatabaseServer;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final List<String> signedSDs = new ArrayList<>();
+    private final AtomicInteger nextSD = new AtomicInteger();
+    private final List<String> hashes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final ThreadLocal<String> token = ThreadLocal.withInitial(this::issueToken);
+    private LocalStandIns standIns;
+    private LatencyReport report;
+
+    @BeforeAll
+    public void setup() throws Exception {
+        standIns = new LocalStandIns(stubsBaseUrl, clientId, objectMapper);
+        standIns.start();
+        standIns.primeContextCache(contextCacheFileStore);
+        report = new LatencyReport(LABEL);
+        // signing is client work, so all SDs are prepared before anything is measured
+        String template = getMockFileDataAsString("perf-sd-template.json");
+        int total = SD_COUNT + MIXED_COUNT / 5 + 1;
+        for (int i = 0; i < total; i++) {
+            String sd = template.replace("{{index}}", String.valueOf(i)).replace("{{bucket}}", String.valueOf(i % 16));
+            signedSDs.add(standIns.sign(sd));
+        }
+        log.info("setup; prepared {} signed SDs, server port: {}, stubs at: {}", total, port, stubsBaseUrl);
+    }
+
+    @AfterAll
+    public void tearDown() throws IOException {
+        report.write(REPORT_DIR, objectMapper);
+        embeddedDatabaseServer.close();
+    }
+
+    @Test
+    public void runWorkloads() throws Exception {
+        LatencyReport.Phase upload = report.phase("upload");
+        runPhase(upload, SD_COUNT, i -> upload(upload));
+        assertEquals(SD_COUNT, hashes.size(), "not all SDs were accepted, check the log for verification errors");
+
+        LatencyReport.Phase query = report.phase("query");
+        runPhase(query, QUERY_COUNT, i -> query(query, i));
+
+        LatencyReport.Phase mixed = report.phase("mixed");
+        runPhase(mixed, MIXED_COUNT, i -> {
+            int kind = i % 10;
+            if (kind < 2) {
+                upload(mixed);
+            } else if (kind < 5) {
+                read(mixed);
+            } else {
+                query(mixed, i);
+            }
+        });
+
+        assertEquals(0, rejected.get(), "queries were rejected by admission control, lower perf.threads");
+
+        revalidate(report.phase("revalidation"));
+    }
+
+    private void runPhase(LatencyReport.Phase phase, int count, IntConsumer operation) throws Exception {
+        log.info("runPhase; starting {} with {} operations on {} threads", phase, count, THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            phase.start();
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final int idx = i;
+                futures.add(executor.submit(() -> operation.accept(idx)));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+            phase.stop();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void upload(LatencyReport.Phase phase) {
+        String sd = signedSDs.get(nextSD.getAndIncrement());
+        HttpRequest request = request("/self-descriptions")
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(sd))
+            .build();
+        HttpResponse<String> response = send(phase, "upload", request, 201);
+        if (response != null) {
+            try {
+                hashes.add(objectMapper.readTree(response.body()).get("sdHash").asText());
+            } catch (IOException ex) {
+                log.warn("upload.error; cannot parse response", ex);
+            }
+        }
+    }
+
+    private void read(LatencyReport.Phase phase) {
+        String hash = hashes.get(ThreadLocalRandom.current().nextInt(hashes.size()));
+        send(phase, "read", request("/self-descriptions/" + hash).GET().build(), 200);
+    }
+
+    private void query(LatencyReport.Phase phase, int i) {
+        String operation;
+        Map<String, Object> statement;
+        if (i % 10 == 0) {
+            operation = "queryScan";
+            statement = Map.of("statement", "MATCH (n) WHERE any(k IN n.claimsGraphUri WHERE k STARTS WITH $prefix) RETURN count(n)",
+                "parameters", Map.of("prefix", "http://perf.local/offering/"));
+        } else {
+            operation = "queryLookup";
+            int idx = ThreadLocalRandom.current().nextInt(SD_COUNT);
+            statement = Map.of("statement", "MATCH (n) WHERE $uri IN n.claimsGraphUri RETURN n.uri LIMIT 10",
+                "parameters", Map.of("uri", "http://perf.local/offering/" + idx));
+        }
+        try {
+            HttpRequest request = request("/query?withTotalCount=false")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(statement)))
+                .build();
+            send(phase, operation, request, 200);
+        } catch (IOException ex) {
+            log.warn("query.error", ex);
+        }
+    }
+
+    private void revalidate(LatencyReport.Phase phase) throws InterruptedException {
+        log.info("revalidate; revalidating {} SDs", hashes.size());
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(REVALIDATION_TIMEOUT);
+        phase.start();
+        long start = System.nanoTime();
+        revalidationService.startValidating();
+        // the manager picks the work up asynchronously, wait for it to start and then to finish
+        while (!revalidationService.isWorking() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        while (revalidationService.isWorking() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        phase.stop();
+        phase.record("revalidateAll", System.nanoTime() - start, System.currentTimeMillis() < deadline);
+    }
+
+    private String issueToken() {
+        try {
+            // a fresh subject per worker thread, admission control limits queries per subject
+            return standIns.issueToken(CATALOGUE_ADMIN_ROLE);
+        } catch (Exception ex) {
+            throw new IllegalStateException("cannot issue token", ex);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .timeout(Duration.ofSeconds(60))
+            .header("Authorization", "Bearer " + token.get());
+    }
+
+    private HttpResponse<String> send(LatencyReport.Phase phase, String operation, HttpRequest request, int expectedStatus) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            log.debug("send.error; {} failed: {}", operation, ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        boolean success = response != null && response.statusCode() == expectedStatus;
+        if (response != null && response.statusCode() == 429) {
+            rejected.incrementAndGet();
+        }
+        phase.record(operation, System.nanoTime() - start, success);
+        if (!success && response != null) {
+            log.debug("send; {} returned {}: {}", operation, response.statusCode(), response.body());
+        }
+        return success ? response : null;
+    }
+
+}